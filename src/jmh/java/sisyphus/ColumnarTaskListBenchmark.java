@@ -0,0 +1,73 @@
+package sisyphus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link ColumnarTaskList} with the object-per-task {@link TaskList} on the scans that grow
+ * with the list: ordering it by time for {@code latest}, and taking the done tasks out of it.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnarTaskListBenchmark {
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"object", "columnar"})
+    private String store;
+
+    private ArrayList<Task> tasks;
+    private TaskList taskList;
+    private TaskList fresh;
+
+    /** Generates the tasks and an indexed list of them. */
+    @Setup
+    public void setUp() {
+        tasks = TaskFixtures.generate(size);
+        taskList = newList();
+        taskList.buildIndexes();
+    }
+
+    /** Builds a list that has not ordered itself by time yet, for the benchmarks that change or index it. */
+    @Setup(Level.Invocation)
+    public void setUpFresh() {
+        fresh = newList();
+    }
+
+    private TaskList newList() {
+        return store.equals("columnar") ? new ColumnarTaskList(tasks) : new TaskList(new ArrayList<>(tasks));
+    }
+
+    /** First {@code latest} page on a list that was just loaded. */
+    @Benchmark
+    public List<Task> firstLatestPage() {
+        return fresh.sortedByTime(0, Sisyphus.Ui.DEFAULT_PAGE_SIZE);
+    }
+
+    /** A page from the middle of the time order, as {@code more} after {@code latest} shows. */
+    @Benchmark
+    public List<Task> middleLatestPage() {
+        return taskList.sortedByTime(size / 2, Sisyphus.Ui.DEFAULT_PAGE_SIZE);
+    }
+
+    /** {@code delete done} on a list with about a third of its tasks done. */
+    @Benchmark
+    public int removeDone() {
+        return fresh.removeDone().size();
+    }
+
+    /** {@code find} for a word most names contain and a number few do. */
+    @Benchmark
+    public List<Task> search() {
+        return taskList.search("book 99");
+    }
+}
@@ -0,0 +1,62 @@
+package sisyphus;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures read scaling on {@link ConcurrentTaskList}.
+ * Run the plain read benchmarks with -PjmhThreads=N for increasing N to see how reads scale;
+ * the grouped benchmark pits three readers against one writer toggling a task's done flag.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcurrentTaskListBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ConcurrentTaskList taskList;
+
+    /** Builds the shared list. */
+    @Setup
+    public void setUp() {
+        taskList = new ConcurrentTaskList(TaskFixtures.generate(size));
+    }
+
+    /** Optimistic positional read. */
+    @Benchmark
+    public Task get() {
+        return taskList.get(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /** Indexed search under the shared read lock. */
+    @Benchmark
+    public int search() {
+        return taskList.search("standup").size();
+    }
+
+    /** Reader side of the mixed workload. */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Task mixedGet() {
+        return taskList.get(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /** Writer side of the mixed workload. */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Task mixedToggle() {
+        int number = 1 + ThreadLocalRandom.current().nextInt(size);
+        return taskList.atomically(() -> taskList.setDone(number, !taskList.get(number).isDone()));
+    }
+}
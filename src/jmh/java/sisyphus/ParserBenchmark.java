@@ -0,0 +1,92 @@
+package sisyphus;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures command dispatch through {@link Parser#readAndRespond}.
+ * Inputs are raw lines, as the GUI sends them, so tokenizing is part of every measurement.
+ * Mutating benchmarks undo their own change so the list size stays fixed across invocations.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private Parser parser;
+    private Storage storage;
+    private TaskList taskList;
+    private String findInput;
+    private String todoInput;
+    private String deadlineInput;
+    private String deleteInput;
+    private String markInput;
+    private String unmarkInput;
+    private String lastInput;
+
+    /** Builds the task list and the command inputs. */
+    @Setup
+    public void setUp() {
+        parser = new Parser();
+        storage = new Storage();
+        taskList = new TaskList(TaskFixtures.generate(size));
+        findInput = "find standup";
+        todoInput = "todo benchmark todo";
+        deadlineInput = "deadline benchmark deadline /by 2025-06-01 12:00";
+        deleteInput = "delete " + (size + 1);
+        // Start with task 1 undone so mark/unmark alternate cleanly.
+        if (taskList.get(1).isDone()) {
+            taskList.get(1).incomplete();
+        }
+        markInput = "mark 1";
+        unmarkInput = "unmark 1";
+        lastInput = "delete " + size;
+    }
+
+    /** Adds a todo and deletes it again. */
+    @Benchmark
+    public String todoThenDelete() {
+        parser.readAndRespond(todoInput, storage, taskList);
+        return parser.readAndRespond(deleteInput, storage, taskList);
+    }
+
+    /** Adds a deadline (date parsing included) and deletes it again. */
+    @Benchmark
+    public String deadlineThenDelete() {
+        parser.readAndRespond(deadlineInput, storage, taskList);
+        return parser.readAndRespond(deleteInput, storage, taskList);
+    }
+
+    /** Marks and unmarks the first task; both commands re-render the list. */
+    @Benchmark
+    public String markThenUnmark() {
+        parser.readAndRespond(markInput, storage, taskList);
+        return parser.readAndRespond(unmarkInput, storage, taskList);
+    }
+
+    /**
+     * Deletes the last task and appends a new todo of the same name; the gc profiler shows what parsing the
+     * command costs, plus the one new task. Re-adding the removed task would bring back an ID below the last
+     * one handed out, and every later lookup by ID would then scan instead of binary searching.
+     */
+    @Benchmark
+    public String deleteThenRestore() {
+        String name = taskList.get(taskList.size()).getName();
+        String response = parser.readAndRespond(lastInput, storage, taskList);
+        taskList.addTask(new TodoTask(name));
+        return response;
+    }
+
+    /** Runs a single-word find. */
+    @Benchmark
+    public String find() {
+        return parser.readAndRespond(findInput, storage, taskList);
+    }
+}
@@ -0,0 +1,49 @@
+package sisyphus;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link SearchTask#filterTasks} for a query that hits often and one that hits once, and
+ * {@link SearchTask#fuzzyFilterTasks} for a misspelt query.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private TaskList taskList;
+    private String rareQuery;
+
+    /** Builds the task list. */
+    @Setup
+    public void setUp() {
+        taskList = new TaskList(TaskFixtures.generate(size));
+        rareQuery = " " + (size / 2);
+    }
+
+    /** Query shared by roughly a twelfth of the tasks. */
+    @Benchmark
+    public TaskList commonQuery() {
+        return SearchTask.filterTasks(taskList, "standup");
+    }
+
+    /** Query matching a single task. */
+    @Benchmark
+    public TaskList rareQuery() {
+        return SearchTask.filterTasks(taskList, rareQuery);
+    }
+
+    /** Misspelt query, as {@code find ~standp}, keeping the best 50 matches. */
+    @Benchmark
+    public TaskList fuzzyQuery() {
+        return SearchTask.fuzzyFilterTasks(taskList, "standp", 50);
+    }
+}
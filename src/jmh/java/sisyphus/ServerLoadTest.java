@@ -0,0 +1,124 @@
+package sisyphus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loopback load test for {@link Server}.
+ * Opens a crowd of idle connections, then drives a smaller set of active clients through a
+ * todo/find/mark/list/delete cycle and reports requests per second, latency percentiles and heap growth.
+ * Run with {@code ./gradlew serverLoadTest -Pargs="<idle> <clients> <requestsPerClient>"}; client and server
+ * share the process, so each idle connection costs two file descriptors and ulimit -n may need raising.
+ */
+public class ServerLoadTest {
+    private static final String[] CYCLE = {"todo load test task", "find load", "mark 1", "list", "delete 1"};
+
+    /**
+     * Runs the load test against an in-process server.
+     *
+     * @param args idle connections (default 10000), active clients (default 32),
+     *             requests per active client (default 5000)
+     */
+    public static void main(String[] args) throws Exception {
+        int idle = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+
+        Sisyphus shared = new Sisyphus(new Storage(), new ConcurrentTaskList(new ArrayList<>()));
+        Server server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), shared,
+                Runtime.getRuntime().availableProcessors());
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "sisyphus-server");
+        serverThread.start();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        long heapBefore = usedHeap();
+        List<SocketChannel> idleConnections = new ArrayList<>(idle);
+        for (int i = 0; i < idle; i++) {
+            idleConnections.add(SocketChannel.open(address));
+        }
+        Thread.sleep(500); // let the selector accept the backlog
+        long heapIdle = usedHeap();
+        System.out.printf("%d idle connections, heap +%.1f MiB (%.0f bytes per connection)%n", idle,
+                (heapIdle - heapBefore) / 1048576.0, idle == 0 ? 0.0 : (heapIdle - heapBefore) / (double) idle);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(() -> runClient(address, requests)));
+        }
+        long[] latencies = new long[clients * requests];
+        int n = 0;
+        for (Future<long[]> f : results) {
+            long[] clientLatencies = f.get();
+            System.arraycopy(clientLatencies, 0, latencies, n, clientLatencies.length);
+            n += clientLatencies.length;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests from %d clients in %.2f s: %.0f req/s%n", latencies.length, clients, seconds,
+                latencies.length / seconds);
+        System.out.printf("latency us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[latencies.length - 1] / 1000.0);
+
+        for (SocketChannel channel : idleConnections) {
+            channel.close();
+        }
+        server.close();
+        serverThread.join();
+    }
+
+    private static long[] runClient(InetSocketAddress address, int requests) throws IOException {
+        long[] latencies = new long[requests];
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            socket.setTcpNoDelay(true);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < requests; i++) {
+                byte[] command = (CYCLE[i % CYCLE.length] + "\n").getBytes(StandardCharsets.UTF_8);
+                long sent = System.nanoTime();
+                out.write(command);
+                out.flush();
+                String line = reader.readLine();
+                while (!line.equals(Server.END_OF_RESPONSE)) {
+                    line = reader.readLine();
+                }
+                latencies[i] = System.nanoTime() - sent;
+            }
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1000.0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+package sisyphus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link Storage#saveFile} and {@link Storage#readFile} against a temporary data file.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private Storage storage;
+    private ArrayList<Task> tasks;
+    private Path readPath;
+    private Path writePath;
+
+    /** Generates the tasks and writes the file that {@link #readFile()} loads. */
+    @Setup
+    public void setUp() throws IOException {
+        storage = new Storage();
+        tasks = TaskFixtures.generate(size);
+        readPath = Files.createTempFile("sisyphus-read", ".txt");
+        writePath = Files.createTempFile("sisyphus-write", ".txt");
+        storage.saveFile(tasks, readPath.toString());
+    }
+
+    /** Removes the temporary files, and the journal that loading starts next to the data file. */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(readPath);
+        Files.deleteIfExists(Journal.pathFor(readPath.toString()));
+        Files.deleteIfExists(writePath);
+    }
+
+    /** Loads the whole data file with a storage of its own, closing the journal the load opens. */
+    @Benchmark
+    public TaskList readFile() {
+        Storage reader = new Storage();
+        TaskList loaded = reader.readFile(readPath.toString());
+        reader.close();
+        return loaded;
+    }
+
+    /** Rewrites the whole data file. */
+    @Benchmark
+    public void saveFile() {
+        storage.saveFile(tasks, writePath.toString());
+    }
+}
@@ -0,0 +1,54 @@
+package sisyphus;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates deterministic task lists for the benchmarks.
+ * Lists are a rough 50/30/20 mix of TodoTask, DeadlineTask and EventTask with names drawn
+ * from a small vocabulary, so repeated names and substring hits look like real data.
+ */
+final class TaskFixtures {
+    static final String[] WORDS = {
+        "standup", "pay rent", "gym", "read book", "return book", "project meeting",
+        "buy groceries", "call mum", "submit report", "review pr", "water plants", "dentist"
+    };
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long SEED = 42L;
+
+    private TaskFixtures() {
+    }
+
+    /**
+     * Returns a new list of {@code size} generated tasks; roughly a third are marked done.
+     *
+     * @param size number of tasks to generate
+     * @return the generated tasks
+     */
+    static ArrayList<Task> generate(int size) {
+        Random random = new Random(SEED);
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + i;
+            LocalDateTime start = EPOCH.plusMinutes(random.nextInt(60 * 24 * 730));
+            int kind = random.nextInt(10);
+            Task task;
+            if (kind < 5) {
+                task = new TodoTask(name);
+            } else if (kind < 8) {
+                task = new DeadlineTask(name, start.format(FORMAT));
+            } else {
+                task = new EventTask(name, start.format(FORMAT),
+                        start.plusMinutes(30 + random.nextInt(240)).format(FORMAT));
+            }
+            if (random.nextInt(3) == 0) {
+                task.complete();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
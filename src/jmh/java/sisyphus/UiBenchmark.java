@@ -0,0 +1,59 @@
+package sisyphus;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link Sisyphus.Ui} renderers behind {@code list} and {@code latest}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UiBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private TaskList taskList;
+
+    /** Builds the task list. */
+    @Setup
+    public void setUp() {
+        taskList = new TaskList(TaskFixtures.generate(size));
+    }
+
+    /** Renders the list in insertion order. */
+    @Benchmark
+    public String printTasks() {
+        return Sisyphus.Ui.printTasks(taskList);
+    }
+
+    /** Renders the last page of the list, as {@code list <page>} does. */
+    @Benchmark
+    public String printLastPage() {
+        int pageSize = Sisyphus.Ui.DEFAULT_PAGE_SIZE;
+        int offset = (size - 1) / pageSize * pageSize;
+        StringBuilder sb = new StringBuilder();
+        Sisyphus.Ui.printPage(taskList.getTasks(offset, pageSize), offset, taskList.size(), sb);
+        return sb.toString();
+    }
+
+    /** Renders a page from the middle of the time order, as {@code more} after {@code latest} does. */
+    @Benchmark
+    public String printLatestPage() {
+        int pageSize = Sisyphus.Ui.DEFAULT_PAGE_SIZE;
+        StringBuilder sb = new StringBuilder();
+        Sisyphus.Ui.printPage(taskList.sortedByTime(size / 2, pageSize), size / 2, taskList.size(), sb);
+        return sb.toString();
+    }
+
+    /** Renders the list ordered by deadline/start time. */
+    @Benchmark
+    public String printTasksByLatestFirst() {
+        return Sisyphus.Ui.printTasksByLatestFirst(taskList);
+    }
+}
@@ -23,6 +23,7 @@ public class DialogBox extends HBox {
     private Label dialog;
     @FXML
     private ImageView displayPicture;
+    private boolean isBot;
 
     private DialogBox(String text, Image img) {
         try {
@@ -57,6 +58,16 @@ public class DialogBox extends HBox {
         setAlignment(Pos.TOP_LEFT);
     }
 
+    /**
+     * Replaces the text shown, so a list cell can reuse this box for another message from the same speaker.
+     *
+     * @param text the new text
+     */
+    public void setText(String text) {
+        // Normalize tabs for the monospaced bot replies
+        dialog.setText(isBot ? text.replace("\t", "    ") : text);
+    }
+
     public static DialogBox getUserDialog(String text, Image img) {
         DialogBox db = new DialogBox(text, img);
         db.getStyleClass().add("user");
@@ -69,8 +80,8 @@ public class DialogBox extends HBox {
         db.getStyleClass().add("bot");
 
         // Normalize tabs, use monospaced font, and disable wrapping for ASCII art
-        String mono = text.replace("\t", "    ");
-        db.dialog.setText(mono);
+        db.isBot = true;
+        db.setText(text);
         db.dialog.setWrapText(false);
         db.dialog.setStyle(
                 "-fx-font-family: 'Menlo','Monaco','Consolas','Courier New',monospace; -fx-font-size: 12px;"
@@ -1,15 +1,32 @@
+import java.io.IOException;
+import java.util.Arrays;
+
 import javafx.application.Application;
+import sisyphus.BatchRunner;
+import sisyphus.Events;
+import sisyphus.Server;
 
 /**
  * A launcher class to workaround classpath issues.
  */
 public class Launcher {
     /**
-     * Launches the JavaFX GUI application.
+     * Launches the JavaFX GUI application, or a headless mode selected by the first argument.
      *
-     * @param args CLI arguments passed to the application
+     * @param args CLI arguments passed to the application; {@code --server [port]} starts the server and
+     *             {@code --batch <script> [output] [checkpointInterval]} replays a command file;
+     *             with {@code -Dsisyphus.jfr=<file>} any mode is flight recorded to that file
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        Events.startRecording();
+        if (args.length > 0 && args[0].equals("--server")) {
+            Server.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
@@ -13,6 +13,7 @@ import sisyphus.Sisyphus;
 public class Main extends Application {
 
     private Sisyphus sisyphus = new Sisyphus();
+    private MainWindow mainWindow;
 
     @Override
     public void start(Stage stage) {
@@ -25,10 +26,19 @@ public class Main extends Application {
             stage.setScene(scene);
             stage.setWidth(1200);
             stage.setHeight(800);
-            fxmlLoader.<MainWindow>getController().setSisyphus(sisyphus); // inject the Sisyphus instance
+            mainWindow = fxmlLoader.getController();
+            mainWindow.setSisyphus(sisyphus); // inject the Sisyphus instance
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (mainWindow != null) {
+            mainWindow.shutdown();
+        }
+        sisyphus.shutdown();
+    }
 }
@@ -1,61 +1,237 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import sisyphus.Parser;
 import sisyphus.Sisyphus;
+import sisyphus.Transcript;
 
 /**
  * Controller for the main GUI.
+ * The conversation is a {@link Transcript} shown in a ListView, which only creates nodes for the
+ * messages on screen and reuses them while scrolling, so long sessions stay as responsive as short ones.
+ * Commands run one at a time on a background thread, so a slow one never blocks rendering; read-only
+ * commands that are still running can be cancelled.
  */
 public class MainWindow extends AnchorPane {
+    /** Horizontal space a cell leaves for the list's padding and scroll bar. */
+    private static final double CELL_INSETS = 48.0;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Transcript.Message> transcriptView;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
+    @FXML
+    private Button cancelButton;
 
     private Sisyphus sisyphus;
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/DaUser.png"));
     private Image sisyphusImage = new Image(this.getClass().getResourceAsStream("/images/Sisyphus.png"));
 
+    private final Transcript transcript = new Transcript(Transcript.DEFAULT_RETAINED,
+            Paths.get(Transcript.DEFAULT_HISTORY_PATH));
+    private final ObservableList<Transcript.Message> messages = FXCollections.observableArrayList();
+
+    /** One thread keeps commands in the order they were entered. */
+    private final ExecutorService commandRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sisyphus-command");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Commands submitted and not yet answered, oldest first; only touched on the application thread. */
+    private final ArrayDeque<PendingCommand> pending = new ArrayDeque<>();
+
     @FXML
     /**
      * Initializes the main window controls and bindings.
-     * Ensures the scroll pane follows new messages and the dialog container
-     * fills the available width for responsive resizing.
+     * Backs the transcript view with the message list and shows the welcome message.
      */
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
-        // Make the scroll content fit width and dialog container responsive
-        scrollPane.setFitToWidth(true);
-        dialogContainer.setFillWidth(true);
-        dialogContainer.getChildren().add(DialogBox.getSisyphusDialog(Sisyphus.Ui.introMessage(), sisyphusImage));
+        transcriptView.setItems(messages);
+        transcriptView.setCellFactory(view -> new MessageCell());
+        transcriptView.setFocusTraversable(false);
+        addMessage(Transcript.Speaker.SISYPHUS, Sisyphus.Ui.introMessage());
     }
 
-    /** Injects the Sisyphus instance */
+    /** Injects the Sisyphus instance and shows what loading the data file reported. */
     public void setSisyphus(Sisyphus d) {
         sisyphus = d;
+        String notices = sisyphus.takeNotices();
+        if (!notices.isEmpty()) {
+            addMessage(Transcript.Speaker.SISYPHUS, notices);
+        }
+        sisyphus.startReminders(text -> Platform.runLater(() -> addMessage(Transcript.Speaker.SISYPHUS, text)));
+    }
+
+    /**
+     * Stops running commands and closes the transcript's history file. Called once, when the window closes.
+     */
+    public void shutdown() {
+        commandRunner.shutdownNow();
+        try {
+            transcript.close();
+        } catch (IOException e) {
+            System.out.println("Error closing transcript history: " + e.getMessage());
+        }
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Sisyphus's reply and then
-     * appends them to the dialog container. Clears the user input after processing.
+     * Adds the user input to the transcript and runs it in the background; the reply is added when it is ready.
+     * Clears the user input straight away so the next command can be typed.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = sisyphus.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getSisyphusDialog(response, sisyphusImage)
-        );
         userInput.clear();
+        addMessage(Transcript.Speaker.USER, input);
+        PendingCommand command = new PendingCommand(input);
+        pending.addLast(command);
+        command.future = commandRunner.submit(() -> run(command));
+        updateBusy();
+    }
+
+    /**
+     * Cancels the read-only commands still waiting or running. Commands that change the list are left to
+     * finish, since stopping one halfway could leave the list and its journal out of step.
+     */
+    @FXML
+    private void handleCancel() {
+        Iterator<PendingCommand> it = pending.iterator();
+        while (it.hasNext()) {
+            PendingCommand command = it.next();
+            if (command.isCancellable) {
+                command.isCancelled = true;
+                command.future.cancel(true);
+                it.remove();
+                addMessage(Transcript.Speaker.SISYPHUS, "Cancelled: " + command.input);
+            }
+        }
+        updateBusy();
+    }
+
+    /**
+     * Runs on the command thread and hands the reply back to the application thread, even when the command
+     * fails with an Error, so the spinner always stops and the next command is not left waiting.
+     */
+    private void run(PendingCommand command) {
+        String response = "Error: the command failed unexpectedly.";
+        try {
+            response = sisyphus.getResponse(command.input);
+        } catch (CancellationException e) {
+            response = "Cancelled.";
+        } catch (RuntimeException e) {
+            response = "Error: " + e.getMessage();
+        } finally {
+            // Clear the interrupt a late cancel may have left, so it does not reach the next command.
+            Thread.interrupted();
+            String reply = response;
+            Platform.runLater(() -> finish(command, reply));
+        }
+    }
+
+    private void finish(PendingCommand command, String response) {
+        pending.remove(command);
+        if (!command.isCancelled) {
+            addMessage(Transcript.Speaker.SISYPHUS, response);
+        }
+        updateBusy();
+    }
+
+    /** Shows the progress indicator, and the cancel button if something can be cancelled, while work is pending. */
+    private void updateBusy() {
+        boolean isBusy = !pending.isEmpty();
+        boolean isCancellable = pending.stream().anyMatch(command -> command.isCancellable);
+        busyIndicator.setVisible(isBusy);
+        busyIndicator.setManaged(isBusy);
+        cancelButton.setVisible(isCancellable);
+        cancelButton.setManaged(isCancellable);
+    }
+
+    /** Appends a message, dropping from view whatever the transcript moved to its history file. */
+    private void addMessage(Transcript.Speaker speaker, String text) {
+        Transcript.Message message = new Transcript.Message(speaker, text);
+        List<Transcript.Message> spilled = transcript.add(message);
+        if (!spilled.isEmpty()) {
+            messages.remove(0, spilled.size());
+        }
+        messages.add(message);
+        transcriptView.scrollTo(messages.size() - 1);
+    }
+
+    /** A command entered by the user and the state of its background run. */
+    private static final class PendingCommand {
+        private final String input;
+        private final boolean isCancellable;
+        private Future<?> future;
+        private boolean isCancelled;
+
+        private PendingCommand(String input) {
+            this.input = input;
+            this.isCancellable = Parser.isReadOnly(input);
+        }
+    }
+
+    /**
+     * Shows one message as a dialog box. A cell keeps one box per speaker and only swaps the text
+     * when it is reused for another message.
+     */
+    private final class MessageCell extends ListCell<Transcript.Message> {
+        private DialogBox userBox;
+        private DialogBox sisyphusBox;
+
+        private MessageCell() {
+            // Let the list decide the width so long lines wrap instead of widening the cell.
+            setPrefWidth(0);
+        }
+
+        @Override
+        protected void updateItem(Transcript.Message message, boolean isEmpty) {
+            super.updateItem(message, isEmpty);
+            if (isEmpty || message == null) {
+                setGraphic(null);
+                return;
+            }
+            DialogBox box;
+            if (message.getSpeaker() == Transcript.Speaker.USER) {
+                if (userBox == null) {
+                    userBox = fitToList(DialogBox.getUserDialog(message.getText(), userImage));
+                }
+                box = userBox;
+            } else {
+                if (sisyphusBox == null) {
+                    sisyphusBox = fitToList(DialogBox.getSisyphusDialog(message.getText(), sisyphusImage));
+                }
+                box = sisyphusBox;
+            }
+            box.setText(message.getText());
+            setGraphic(box);
+        }
+
+        private DialogBox fitToList(DialogBox box) {
+            box.prefWidthProperty().bind(transcriptView.widthProperty().subtract(CELL_INSETS));
+            return box;
+        }
     }
 }
@@ -0,0 +1,139 @@
+package sisyphus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Replays a file of commands, one per line, against a task list without the GUI.
+ * Responses, and any messages from loading and saving, go to a single buffered writer and the journal is
+ * switched off for the run; instead the list is saved every {@code checkpointInterval} mutating commands
+ * (if positive) and once at the end, by {@code bye} if the script has one.
+ */
+public class BatchRunner {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Storage storageManager;
+    private final TaskList todoList;
+    private final Sisyphus session;
+    private final int checkpointInterval;
+
+    /**
+     * Creates a runner over a loaded storage and list.
+     *
+     * @param storageManager     the storage the list was loaded from; saves go to its data file
+     * @param todoList           the list to run commands against
+     * @param checkpointInterval save after this many mutating commands; 0 saves only at the end
+     */
+    public BatchRunner(Storage storageManager, TaskList todoList, int checkpointInterval) {
+        this.storageManager = storageManager;
+        this.todoList = todoList;
+        this.session = new Sisyphus(storageManager, todoList);
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Runs every command from the script, stopping early after {@code bye}.
+     *
+     * @param script the commands, one per line
+     * @param out    where each response is written, followed by a newline
+     * @return the number of commands run
+     * @throws IOException if reading the script or writing a response fails
+     */
+    public long run(BufferedReader script, Writer out) throws IOException {
+        storageManager.setJournaling(false);
+        long commands = 0;
+        long sinceCheckpoint = 0;
+        boolean isSavedByBye = false;
+        try {
+            out.write(storageManager.takeNotices());
+            String line;
+            while ((line = script.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                commands++;
+                String response = session.enterInput(line);
+                out.write(response);
+                if (!response.endsWith("\n")) {
+                    out.write('\n');
+                }
+                if (isMutating(line)) {
+                    sinceCheckpoint++;
+                    if (checkpointInterval > 0 && sinceCheckpoint >= checkpointInterval) {
+                        save();
+                        sinceCheckpoint = 0;
+                    }
+                }
+                if (line.trim().equals("bye")) {
+                    isSavedByBye = true;
+                    break;
+                }
+            }
+        } finally {
+            if (!isSavedByBye && sinceCheckpoint > 0) {
+                save();
+            }
+            storageManager.setJournaling(true);
+            out.write(storageManager.takeNotices());
+            out.flush();
+        }
+        return commands;
+    }
+
+    private void save() {
+        String dataPath = storageManager.getDataPath();
+        if (dataPath != null) {
+            todoList.atomically(() -> {
+                storageManager.saveFile(todoList, dataPath);
+                return null;
+            });
+        }
+    }
+
+    /** Returns whether a command line can change the list, by its first word. */
+    private static boolean isMutating(String line) {
+        String trimmed = line.stripLeading();
+        int end = trimmed.indexOf(' ');
+        String command = end < 0 ? trimmed : trimmed.substring(0, end);
+        return switch (command) {
+        case "todo", "deadline", "event", "mark", "unmark", "delete" -> true;
+        default -> false;
+        };
+    }
+
+    /**
+     * Runs a command file against the data file.
+     *
+     * @param args {@code <script> [output] [checkpointInterval]}; output defaults to standard output
+     * @throws IOException if the script cannot be read or the output written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: --batch <script> [output] [checkpointInterval]");
+            return;
+        }
+        int checkpointInterval = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        Storage storage = new Storage();
+        TaskList tasks = storage.readFile(Sisyphus.DATA_PATH);
+        BatchRunner runner = new BatchRunner(storage, tasks, checkpointInterval);
+        OutputStream sink = args.length > 1 && !args[1].equals("-")
+                ? Files.newOutputStream(Paths.get(args[1]))
+                : System.out;
+        try (BufferedReader script = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(Paths.get(args[0])), StandardCharsets.UTF_8), BUFFER_SIZE);
+                Writer out = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            long started = System.nanoTime();
+            long commands = runner.run(script, out);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.err.printf("%d commands in %.2f s (%.0f commands/s)%n", commands, seconds, commands / seconds);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package sisyphus;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot format.
+ * <pre>
+ * header: magic "SSYB" (4 bytes), version (2 bytes), task count (4 bytes), highest ID handed out (4 bytes)
+ * record: tag byte (bits 0-1 type: 0 todo, 1 deadline, 2 event; bit 7 done), ID (4 bytes),
+ *         name length (4 bytes), name (UTF-8),
+ *         then one epoch-minute long for a deadline, or two (start, end) for an event
+ * </pre>
+ * All numbers are big-endian. Dates are stored as minutes since 1970-01-01T00:00 with no zone,
+ * which is exact because tasks only carry minute precision. Version 1 files, from before IDs were saved,
+ * have no IDs and still load.
+ */
+final class BinaryFormat {
+    static final int MAGIC = 0x53535942;
+    static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+
+    static final byte TYPE_TODO = 0;
+    static final byte TYPE_DEADLINE = 1;
+    static final byte TYPE_EVENT = 2;
+    private static final int TYPE_MASK = 0x03;
+    static final int DONE_BIT = 0x80;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Returns whether the file starts with the binary magic number.
+     *
+     * @param path the file to check
+     * @return true if it is a binary snapshot
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) {
+                    return false;
+                }
+            }
+            return head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the tasks as a binary snapshot, updating the checksum with every byte written.
+     *
+     * @param tasks    the tasks to write
+     * @param lastId   the highest ID handed out so far
+     * @param file     the stream to write to, closed when done
+     * @param checksum updated with the written bytes
+     * @throws IOException if the file cannot be written
+     */
+    static void save(List<Task> tasks, int lastId, OutputStream file, CRC32 checksum) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(file, 1 << 16), checksum))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(tasks.size());
+            out.writeInt(lastId);
+            for (Task t : tasks) {
+                int done = t.isDone() ? DONE_BIT : 0;
+                byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+                if (t instanceof DeadlineTask) {
+                    out.writeByte(TYPE_DEADLINE | done);
+                    writeIdAndName(out, t.getId(), name);
+                    out.writeLong(toEpochMinute(((DeadlineTask) t).getDeadline()));
+                } else if (t instanceof EventTask) {
+                    EventTask et = (EventTask) t;
+                    out.writeByte(TYPE_EVENT | done);
+                    writeIdAndName(out, t.getId(), name);
+                    out.writeLong(toEpochMinute(et.getStart()));
+                    out.writeLong(toEpochMinute(et.getEnd()));
+                } else {
+                    out.writeByte(TYPE_TODO | done);
+                    writeIdAndName(out, t.getId(), name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a binary snapshot, updating the checksum with the raw file contents.
+     *
+     * @param path     the file to read
+     * @param checksum updated with the file contents
+     * @param lastId   told the highest ID handed out before the file was saved
+     * @return the loaded tasks; tasks from a version 1 file, or repeating an earlier ID, have no ID yet
+     * @throws IOException if the file cannot be read or is not a supported binary snapshot
+     */
+    static ArrayList<Task> load(Path path, CRC32 checksum, IntConsumer lastId) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        load(path, checksum, lastId, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * Loads a binary snapshot as {@link #load(Path, CRC32, IntConsumer)} does, handing each task to a sink as
+     * it is decoded rather than collecting them.
+     *
+     * @param path     the file to read
+     * @param checksum updated with the file contents
+     * @param lastId   told the highest ID handed out before the file was saved
+     * @param sink     takes each loaded task, in file order
+     * @throws IOException if the file cannot be read or is not a supported binary snapshot
+     */
+    static void load(Path path, CRC32 checksum, IntConsumer lastId, Consumer<Task> sink) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot too large: " + channel.size() + " bytes");
+            }
+            // Read into the heap rather than mapping the file: a mapping lasts until the buffer is collected,
+            // and on Windows the next save could not move its snapshot over a file that is still mapped.
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Binary snapshot shrank while it was read");
+                }
+            }
+            buffer.flip();
+            checksum.update(buffer.array(), 0, buffer.limit());
+            long read = System.nanoTime();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary snapshot");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+            boolean hasIds = version == VERSION;
+            int count = buffer.getInt();
+            int savedLastId = hasIds ? buffer.getInt() : 0;
+            int previousId = 0;
+            byte[] nameBytes = new byte[64];
+            for (int i = 0; i < count; i++) {
+                int tag = buffer.get();
+                int id = hasIds ? buffer.getInt() : 0;
+                int nameLength = buffer.getInt();
+                if (nameLength > nameBytes.length) {
+                    nameBytes = new byte[Math.max(nameLength, nameBytes.length * 2)];
+                }
+                buffer.get(nameBytes, 0, nameLength);
+                String name = NamePool.SHARED.intern(nameBytes, 0, nameLength);
+                Task task;
+                switch (tag & TYPE_MASK) {
+                case TYPE_TODO:
+                    task = new TodoTask(name);
+                    break;
+                case TYPE_DEADLINE:
+                    task = new DeadlineTask(name, fromEpochMinute(buffer.getLong()));
+                    break;
+                case TYPE_EVENT:
+                    LocalDateTime start = fromEpochMinute(buffer.getLong());
+                    task = new EventTask(name, start, fromEpochMinute(buffer.getLong()));
+                    break;
+                default:
+                    throw new IOException("Unexpected task type tag: " + tag);
+                }
+                if ((tag & DONE_BIT) != 0) {
+                    task.complete();
+                }
+                if (id > previousId) {
+                    task.assignId(id);
+                    previousId = id;
+                }
+                sink.accept(task);
+            }
+            lastId.accept(Math.max(savedLastId, previousId));
+            Stats.recordPhase(Stats.LOAD_IO, read - started);
+            Stats.recordPhase(Stats.LOAD_PARSE, System.nanoTime() - read);
+        }
+    }
+
+    private static void writeIdAndName(DataOutputStream out, int id, byte[] name) throws IOException {
+        out.writeInt(id);
+        out.writeInt(name.length);
+        out.write(name);
+    }
+
+    /** Returns the minutes since 1970-01-01T00:00, treating the date-time as zone-less. */
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /** Inverse of {@link #toEpochMinute}. */
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
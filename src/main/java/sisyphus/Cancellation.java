@@ -0,0 +1,30 @@
+package sisyphus;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation of long read-only commands.
+ * The GUI interrupts the thread running a query it wants to stop; loops over many tasks call
+ * {@link #check(int)} as they go and give up by throwing. Only queries are ever interrupted, so
+ * commands that change tasks or files run to completion.
+ */
+final class Cancellation {
+    /** Loops look at the interrupt flag once every this many iterations; a power of two. */
+    private static final int CHECK_INTERVAL = 4096;
+
+    private Cancellation() {
+    }
+
+    /**
+     * Throws if the current thread has been interrupted, looking only every {@value #CHECK_INTERVAL}
+     * iterations to keep the check off the hot path.
+     *
+     * @param iteration the loop counter
+     * @throws CancellationException if the command running on this thread was cancelled
+     */
+    static void check(int iteration) {
+        if ((iteration & (CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Command cancelled");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package sisyphus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the loaded data file in the background whenever the task list has changed.
+ * Every interval it compares the list's modification count with the one last saved and, if they differ,
+ * writes a new snapshot through {@link Storage#checkpoint}. Commands only wait for the list to be copied
+ * and for the finished snapshot to be swapped in, never for the write itself, and the journal stays short
+ * so the next start has little to replay.
+ */
+final class Checkpointer implements Closeable {
+    /** Milliseconds between checks unless the sisyphus.autosave.intervalMillis property says otherwise. */
+    static final long DEFAULT_INTERVAL_MILLIS = Long.getLong("sisyphus.autosave.intervalMillis", 2000);
+
+    private final Storage storage;
+    private final TaskList todoList;
+    private final ScheduledExecutorService scheduler;
+    private long savedModCount;
+
+    private Checkpointer(Storage storage, TaskList todoList) {
+        this.storage = storage;
+        this.todoList = todoList;
+        this.savedModCount = todoList.getModCount();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sisyphus-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts checkpointing a loaded list.
+     *
+     * @param storage        the storage the list was loaded from
+     * @param todoList       the list to save
+     * @param intervalMillis time between checks; 0 or less turns autosave off
+     * @return the running checkpointer, or null if autosave is off, or no data file was loaded or it failed to
+     *         load, as saving a partly loaded list would overwrite the file
+     */
+    static Checkpointer start(Storage storage, TaskList todoList, long intervalMillis) {
+        if (intervalMillis <= 0 || storage.getDataPath() == null || storage.getLoadError() != null) {
+            return null;
+        }
+        Checkpointer checkpointer = new Checkpointer(storage, todoList);
+        checkpointer.scheduler.scheduleWithFixedDelay(checkpointer::checkpointQuietly, intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+        return checkpointer;
+    }
+
+    /**
+     * Saves the list now if it has changed since the last checkpoint.
+     *
+     * @return true if a snapshot was written
+     * @throws IOException if the snapshot cannot be written
+     */
+    synchronized boolean checkpoint() throws IOException {
+        long before = savedModCount;
+        savedModCount = storage.checkpoint(todoList, savedModCount);
+        return savedModCount != before;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // Keep the schedule alive; the journal still holds every change and the next run retries.
+            storage.notice("Error autosaving: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the background checks, letting a checkpoint already under way finish. Changes not yet
+     * checkpointed stay in the journal.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,317 @@
+package sisyphus;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A list stored as a sequence of small chunks, so removing from the middle only shifts the rest of one
+ * chunk instead of the rest of the list.
+ * <p>
+ * A Fenwick tree over the chunk sizes finds the chunk holding a position, and the number of elements
+ * before a chunk, in O(log n). A chunk that grows past {@link #MAX_CHUNK} is split in two and an emptied
+ * chunk is dropped; both rebuild the tree, which is rare enough to be cheap overall. Appending, which is
+ * what task lists mostly do, fills the last chunk.
+ *
+ * @param <E> the element type
+ */
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+    /** Most elements a chunk holds. */
+    static final int MAX_CHUNK = 1024;
+
+    private final ArrayList<ArrayList<E>> chunks = new ArrayList<>();
+    /** 1-based Fenwick tree over chunks.get(i).size(). */
+    private int[] tree = new int[1];
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    ChunkedList() {
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size);
+        long at = locate(index);
+        return chunks.get(chunkOf(at)).get(offsetOf(at));
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index, size);
+        long at = locate(index);
+        return chunks.get(chunkOf(at)).set(offsetOf(at), element);
+    }
+
+    @Override
+    public boolean add(E element) {
+        int last = chunks.size() - 1;
+        if (last < 0 || chunks.get(last).size() >= MAX_CHUNK) {
+            chunks.add(new ArrayList<>(MAX_CHUNK));
+            last++;
+            chunks.get(last).add(element);
+            rebuild();
+        } else {
+            chunks.get(last).add(element);
+            update(last, 1);
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size + 1);
+        if (index == size) {
+            add(element);
+            return;
+        }
+        long at = locate(index);
+        int chunk = chunkOf(at);
+        ArrayList<E> elements = chunks.get(chunk);
+        elements.add(offsetOf(at), element);
+        if (elements.size() > MAX_CHUNK) {
+            ArrayList<E> tail = new ArrayList<>(elements.subList(elements.size() / 2, elements.size()));
+            elements.subList(elements.size() / 2, elements.size()).clear();
+            chunks.add(chunk + 1, tail);
+            rebuild();
+        } else {
+            update(chunk, 1);
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size);
+        long at = locate(index);
+        int chunk = chunkOf(at);
+        ArrayList<E> elements = chunks.get(chunk);
+        E removed = elements.remove(offsetOf(at));
+        if (elements.isEmpty()) {
+            chunks.remove(chunk);
+            rebuild();
+        } else {
+            update(chunk, -1);
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every element the filter accepts in one pass, compacting each chunk once.
+     * The filter sees the elements in list order, exactly once each, so it may track positions.
+     *
+     * @param filter returns true for elements to remove
+     * @return whether anything was removed
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        int removed = 0;
+        for (ArrayList<E> elements : chunks) {
+            int kept = 0;
+            for (int i = 0; i < elements.size(); i++) {
+                E element = elements.get(i);
+                if (!filter.test(element)) {
+                    elements.set(kept++, element);
+                }
+            }
+            removed += elements.size() - kept;
+            elements.subList(kept, elements.size()).clear();
+        }
+        if (removed == 0) {
+            return false;
+        }
+        chunks.removeIf(ArrayList::isEmpty);
+        rebuild();
+        size -= removed;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+        tree = new int[1];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Finds an element by an int key that increases strictly along the list.
+     *
+     * @param key    the key of an element
+     * @param target the key to look for
+     * @return the index of the element with that key, or -1 if there is none
+     */
+    int binarySearch(ToIntFunction<? super E> key, int target) {
+        int lo = 0;
+        int hi = chunks.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            ArrayList<E> elements = chunks.get(mid);
+            if (key.applyAsInt(elements.get(elements.size() - 1)) < target) {
+                lo = mid + 1;
+            } else if (key.applyAsInt(elements.get(0)) > target) {
+                hi = mid - 1;
+            } else {
+                int offset = search(elements, key, target);
+                return offset < 0 ? -1 : prefix(mid) + offset;
+            }
+        }
+        return -1;
+    }
+
+    private static <E> int search(ArrayList<E> elements, ToIntFunction<? super E> key, int target) {
+        int lo = 0;
+        int hi = elements.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = key.applyAsInt(elements.get(mid));
+            if (k < target) {
+                lo = mid + 1;
+            } else if (k > target) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        int expectedModCount = modCount;
+        for (ArrayList<E> elements : chunks) {
+            elements.forEach(action);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /** Returns the chunk and offset of a position, packed as chunk << 32 | offset. */
+    private long locate(int index) {
+        int chunk = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(chunks.size()); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                chunk = next;
+                remaining -= tree[next];
+            }
+        }
+        return (long) chunk << 32 | remaining;
+    }
+
+    private static int chunkOf(long at) {
+        return (int) (at >>> 32);
+    }
+
+    private static int offsetOf(long at) {
+        return (int) at;
+    }
+
+    /** Returns the number of elements in the chunks before the given one. */
+    private int prefix(int chunk) {
+        int sum = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void update(int chunk, int delta) {
+        for (int i = chunk + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void rebuild() {
+        int n = chunks.size();
+        tree = new int[n + 1];
+        for (int i = 1; i <= n; i++) {
+            tree[i] += chunks.get(i - 1).size();
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + length);
+        }
+    }
+
+    /** Walks the chunks in order; a change to the list other than through this iterator fails fast. */
+    private final class Itr implements Iterator<E> {
+        private int chunk;
+        private int offset;
+        private int returned;
+        private boolean isRemovable;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return returned < size;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (returned >= size) {
+                throw new NoSuchElementException();
+            }
+            while (offset >= chunks.get(chunk).size()) {
+                chunk++;
+                offset = 0;
+            }
+            returned++;
+            isRemovable = true;
+            return chunks.get(chunk).get(offset++);
+        }
+
+        @Override
+        public void remove() {
+            if (!isRemovable) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            int chunkCount = chunks.size();
+            ChunkedList.this.remove(--returned);
+            if (chunks.size() < chunkCount) {
+                offset = 0; // the chunk emptied and the next one took its place
+            } else {
+                offset--;
+            }
+            isRemovable = false;
+            expectedModCount = modCount;
+        }
+    }
+}
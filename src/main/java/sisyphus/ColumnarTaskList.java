@@ -0,0 +1,1143 @@
+package sisyphus;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A TaskList that stores its tasks as columns of primitives rather than one object graph per task,
+ * for lists of a million tasks or more.
+ * <p>
+ * Each task is a slot across parallel arrays: a type tag, a done bit, its deadline or event start and
+ * its event end as epoch minutes, its ID, and the offset and length of its name in one UTF-8 arena.
+ * That is under 40 bytes a task plus the name, against well over 100 for a task object with its
+ * boxed dates and String. Tasks handed out are views built on demand; they are copies, so changes
+ * must go through the list, and two views of one task are equal only by ID. Saving writes straight from
+ * the columns, without a view of any task.
+ * <p>
+ * Deleting a task only marks its slot removed, and a Fenwick tree over the live slots turns a position into
+ * a slot and back in O(log n). Once removed slots outnumber live ones, one pass slides the live ones down.
+ * <p>
+ * There are no per-task indexes. Time queries use one array of slots sorted by (time, slot),
+ * built with a primitive sort when first needed and kept through deletes and appends in time order;
+ * an append out of order drops it. Word search and done filtering scan the columns, which is fast
+ * because nothing but the names is dereferenced. Fuzzy search goes through the words of the names, each
+ * with the slots that have it and a {@link TrigramIndex} over them, about 4 bytes a word of every name;
+ * they are built in the background from the first fuzzy search on, which scans the names until then.
+ */
+public class ColumnarTaskList extends TaskList {
+    /** Type tags, the same as those of {@link BinaryFormat}. */
+    private static final byte TODO = BinaryFormat.TYPE_TODO;
+    private static final byte DEADLINE = BinaryFormat.TYPE_DEADLINE;
+    private static final byte EVENT = BinaryFormat.TYPE_EVENT;
+    private static final int INITIAL_CAPACITY = 16;
+    /** Arena size below which removed names are never compacted away. */
+    private static final int MIN_COMPACT_BYTES = 1 << 16;
+    /** Removed slots below which the columns are never compacted. */
+    private static final int MIN_COMPACT_SLOTS = 1 << 12;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DATE_LENGTH = "yyyy-MM-dd HH:mm".length();
+    private static final byte[] SEPARATOR = " | ".getBytes(StandardCharsets.US_ASCII);
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private final BitSet done = new BitSet();
+    /** Deadline or event start, in epoch minutes; unused for todos. */
+    private long[] starts = new long[INITIAL_CAPACITY];
+    /** Event end, in epoch minutes; unused for other tasks. */
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] nameStarts = new int[INITIAL_CAPACITY];
+    private int[] nameLengths = new int[INITIAL_CAPACITY];
+    /** Names back to back in UTF-8; removing a task leaves a gap until the arena is compacted. */
+    private byte[] names = new byte[INITIAL_CAPACITY * 16];
+    private int namesEnd;
+    private long liveNameBytes;
+    /** Slots in use, live or removed. */
+    private int slots;
+    /** Live tasks. */
+    private int size;
+    /** Slots whose task was deleted; they are skipped until the columns are compacted. */
+    private final BitSet removed = new BitSet();
+    /** 1-based Fenwick tree over whether each slot is live. */
+    private int[] live = new int[INITIAL_CAPACITY + 1];
+    private long modCount;
+    private int lastId;
+    private boolean isIdOrdered = true;
+    /** Slots of the dated tasks by (time, slot), or null until a time query needs it again. */
+    private int[] timeOrder;
+    private int timeOrderSize;
+    /** How many slots in the time order have been removed since it was built or compacted. */
+    private int timeOrderRemoved;
+    /** Words of the names for fuzzy search, or null until one has been built. */
+    private Vocabulary vocabulary;
+    /** The vocabulary being built from a copy of the names, or null if none is being built. */
+    private CompletableFuture<Vocabulary> pendingVocabulary;
+
+    /**
+     * Creates a columnar list holding the given tasks; later changes to the given list are not seen.
+     *
+     * @param tasks the initial tasks
+     */
+    public ColumnarTaskList(List<Task> tasks) {
+        super(new ArrayList<>());
+        ensureCapacity(tasks.size());
+        for (Task task : tasks) {
+            append(task);
+        }
+    }
+
+    /** Creates a copy of another list's live tasks, sharing nothing with it. */
+    private ColumnarTaskList(ColumnarTaskList source) {
+        super(new ArrayList<>());
+        ensureCapacity(source.size);
+        int arena = 0;
+        for (int p = source.nextLive(0); p < source.slots; p = source.nextLive(p + 1)) {
+            types[slots] = source.types[p];
+            starts[slots] = source.starts[p];
+            ends[slots] = source.ends[p];
+            ids[slots] = source.ids[p];
+            done.set(slots, source.done.get(p));
+            nameLengths[slots] = source.nameLengths[p];
+            arena += source.nameLengths[p];
+            slots++;
+        }
+        names = new byte[Math.max(arena, INITIAL_CAPACITY)];
+        for (int p = source.nextLive(0), q = 0; p < source.slots; p = source.nextLive(p + 1), q++) {
+            System.arraycopy(source.names, source.nameStarts[p], names, namesEnd, nameLengths[q]);
+            nameStarts[q] = namesEnd;
+            namesEnd += nameLengths[q];
+        }
+        size = slots;
+        liveNameBytes = namesEnd;
+        lastId = source.lastId;
+        isIdOrdered = source.isIdOrdered;
+        rebuildLive();
+    }
+
+    /**
+     * Returns a copy of the tasks as they are now, to be saved while the list goes on changing. Only the columns
+     * are copied, with no view of any task.
+     *
+     * @return an independent copy
+     */
+    ColumnarTaskList copy() {
+        return new ColumnarTaskList(this);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        assert task != null : "Cannot add null task";
+        append(task);
+        int p = slots - 1;
+        if (vocabulary != null) {
+            vocabulary.add(p, name(p));
+        }
+        if (timeOrder != null && types[p] != TODO) {
+            if (timeOrderSize == 0 || starts[timeOrder[timeOrderSize - 1]] <= starts[p]) {
+                if (timeOrderSize == timeOrder.length) {
+                    timeOrder = Arrays.copyOf(timeOrder, Math.max(INITIAL_CAPACITY, timeOrderSize * 2));
+                }
+                timeOrder[timeOrderSize++] = p;
+            } else {
+                timeOrder = null;
+            }
+        }
+        if (!task.isDone()) {
+            notifyPending(task);
+        }
+        modCount++;
+    }
+
+    /** Copies a task into a new last slot, giving the task an ID first if it has none. */
+    private void append(Task task) {
+        if (task.getId() == 0) {
+            task.assignId(++lastId);
+        }
+        appendLoaded(task);
+    }
+
+    /**
+     * Copies a task into a new last slot as it was loaded, leaving it without an ID if it has none.
+     * Once everything is loaded, {@link #assignMissingIds} numbers those slots.
+     *
+     * @param task the loaded task
+     */
+    void appendLoaded(Task task) {
+        if (task.getId() != 0) {
+            isIdOrdered &= task.getId() > lastId;
+            lastId = Math.max(lastId, task.getId());
+        }
+        ensureCapacity(slots + 1);
+        int p = slots;
+        if (task instanceof DeadlineTask) {
+            types[p] = DEADLINE;
+            starts[p] = BinaryFormat.toEpochMinute(((DeadlineTask) task).getDeadline());
+        } else if (task instanceof EventTask) {
+            types[p] = EVENT;
+            starts[p] = BinaryFormat.toEpochMinute(((EventTask) task).getStart());
+            ends[p] = BinaryFormat.toEpochMinute(((EventTask) task).getEnd());
+        } else {
+            types[p] = TODO;
+        }
+        done.set(p, task.isDone());
+        ids[p] = task.getId();
+        byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+        if (namesEnd + name.length > names.length) {
+            names = Arrays.copyOf(names, Math.max(namesEnd + name.length, names.length * 2));
+        }
+        System.arraycopy(name, 0, names, namesEnd, name.length);
+        nameStarts[p] = namesEnd;
+        nameLengths[p] = name.length;
+        namesEnd += name.length;
+        liveNameBytes += name.length;
+        slots++;
+        size++;
+        for (int i = slots; i < live.length; i += i & -i) {
+            live[i]++;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int grown = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, grown);
+        starts = Arrays.copyOf(starts, grown);
+        ends = Arrays.copyOf(ends, grown);
+        ids = Arrays.copyOf(ids, grown);
+        nameStarts = Arrays.copyOf(nameStarts, grown);
+        nameLengths = Arrays.copyOf(nameLengths, grown);
+        rebuildLive();
+    }
+
+    /** Rebuilds the Fenwick tree over the live slots for the current capacity, in linear time. */
+    private void rebuildLive() {
+        live = new int[types.length + 1];
+        for (int i = 1; i < live.length; i++) {
+            live[i] += i > slots || removed.get(i - 1) ? 0 : 1;
+            int parent = i + (i & -i);
+            if (parent < live.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    /** Returns the slot of the live task with the given number of live tasks before it. */
+    private int select(int index) {
+        int slot = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(live.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < live.length && live[next] <= remaining) {
+                slot = next;
+                remaining -= live[next];
+            }
+        }
+        return slot;
+    }
+
+    /** Returns how many live tasks come before a slot. */
+    private int rank(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += live[i];
+        }
+        return count;
+    }
+
+    /** Returns the first live slot at or after the given one, or a slot past the end if there is none. */
+    private int nextLive(int slot) {
+        return removed.nextClearBit(slot);
+    }
+
+    /** Returns the slot of the task at a 1-based position. */
+    private int slotOf(int number) {
+        checkPosition(number);
+        return select(number - 1);
+    }
+
+    /** Marks a slot removed, leaving it in place, in O(log n). */
+    @Override
+    public Task removeTask(int number) {
+        int p = slotOf(number);
+        Task task = view(p);
+        markRemoved(p);
+        for (int i = p + 1; i < live.length; i += i & -i) {
+            live[i]--;
+        }
+        modCount++;
+        if (slots - size > MIN_COMPACT_SLOTS && (slots - size) * 2 > slots) {
+            compact();
+        }
+        return task;
+    }
+
+    /** Marks a slot removed without updating the Fenwick tree. */
+    private void markRemoved(int p) {
+        removed.set(p);
+        done.clear(p);
+        liveNameBytes -= nameLengths[p];
+        size--;
+        if (timeOrder != null && types[p] != TODO) {
+            timeOrderRemoved++;
+        }
+    }
+
+    @Override
+    public Task setDone(int number, boolean isDone) {
+        int p = slotOf(number);
+        if (done.get(p) == isDone) {
+            return view(p);
+        }
+        done.set(p, isDone);
+        modCount++;
+        Task task = view(p);
+        if (!isDone) {
+            notifyPending(task);
+        }
+        return task;
+    }
+
+    @Override
+    int setDone(RangeSet positions, boolean isDone) {
+        int changed = 0;
+        for (int k = 0; k < positions.rangeCount(); k++) {
+            int p = select(positions.start(k) - 1);
+            for (int number = positions.start(k); number <= positions.end(k); number++, p = nextLive(p + 1)) {
+                if (done.get(p) != isDone) {
+                    done.set(p, isDone);
+                    changed++;
+                    if (!isDone && types[p] != TODO) {
+                        notifyPending(view(p));
+                    }
+                }
+            }
+        }
+        modCount += changed;
+        return changed;
+    }
+
+    @Override
+    int removeTasks(RangeSet positions) {
+        int[] range = {0};
+        int[] number = {0};
+        return removeWhere(p -> {
+            number[0]++;
+            while (range[0] < positions.rangeCount() && positions.end(range[0]) < number[0]) {
+                range[0]++;
+            }
+            return range[0] < positions.rangeCount() && positions.start(range[0]) <= number[0];
+        }).size();
+    }
+
+    @Override
+    RangeSet removeTasks(Predicate<Task> filter) {
+        return removeWhere(p -> filter.test(view(p)));
+    }
+
+    /** Removes the done tasks straight from the done bits, without building a view of any task. */
+    @Override
+    RangeSet removeDone() {
+        return done.isEmpty() ? new RangeSet() : removeWhere(done::get);
+    }
+
+    /**
+     * Removes the live slots the filter accepts, then compacts the columns, in two passes over them.
+     * The filter sees each live slot once, in order, before anything has moved.
+     */
+    private RangeSet removeWhere(IntPredicate isRemoved) {
+        RangeSet positions = new RangeSet();
+        int number = 0;
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            number++;
+            if (isRemoved.test(p)) {
+                positions.add(number);
+                markRemoved(p);
+            }
+        }
+        if (positions.isEmpty()) {
+            return positions;
+        }
+        compact();
+        modCount += positions.size();
+        return positions;
+    }
+
+    /** Slides the live slots down over the removed ones in one pass, keeping the time order. */
+    private void compact() {
+        int[] moved = timeOrder == null && vocabulary == null ? null : new int[slots];
+        int kept = 0;
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            if (kept != p) {
+                types[kept] = types[p];
+                starts[kept] = starts[p];
+                ends[kept] = ends[p];
+                ids[kept] = ids[p];
+                nameStarts[kept] = nameStarts[p];
+                nameLengths[kept] = nameLengths[p];
+                done.set(kept, done.get(p));
+            }
+            if (moved != null) {
+                moved[p] = kept;
+            }
+            kept++;
+        }
+        if (vocabulary != null) {
+            vocabulary.remap(moved, removed);
+        }
+        if (timeOrder != null) {
+            int liveEntries = 0;
+            for (int k = 0; k < timeOrderSize; k++) {
+                if (!removed.get(timeOrder[k])) {
+                    timeOrder[liveEntries++] = moved[timeOrder[k]];
+                }
+            }
+            timeOrderSize = liveEntries;
+            timeOrderRemoved = 0;
+        }
+        done.clear(kept, slots);
+        removed.clear();
+        slots = kept;
+        rebuildLive();
+        compactNamesIfSparse();
+        if (pendingVocabulary != null) {
+            pendingVocabulary = buildVocabulary(); // the one being built numbers the slots as they were
+        }
+    }
+
+    /** Rewrites the name arena without the gaps left by removed tasks once they make up most of it. */
+    private void compactNamesIfSparse() {
+        if (namesEnd < MIN_COMPACT_BYTES || liveNameBytes * 2 > namesEnd) {
+            return;
+        }
+        byte[] compacted = new byte[(int) Math.max(liveNameBytes * 2, INITIAL_CAPACITY * 16)];
+        int end = 0;
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            System.arraycopy(names, nameStarts[p], compacted, end, nameLengths[p]);
+            nameStarts[p] = end;
+            end += nameLengths[p];
+        }
+        names = compacted;
+        namesEnd = end;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getModCount() {
+        return modCount;
+    }
+
+    @Override
+    public Task get(int index) {
+        return view(slotOf(index));
+    }
+
+    /** Removed slots keep their IDs until compacted, so the IDs of all slots stay in order. */
+    @Override
+    public int indexOfId(int id) {
+        if (isIdOrdered) {
+            int p = Arrays.binarySearch(ids, 0, slots, id);
+            return p < 0 || removed.get(p) ? -1 : rank(p) + 1;
+        }
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            if (ids[p] == id) {
+                return rank(p) + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives the slots loaded without an ID new ones above every ID loaded and above {@code highest}, in order.
+     *
+     * @param highest the highest ID handed out before the data file was saved
+     * @return the highest ID now in use
+     */
+    int assignMissingIds(int highest) {
+        highest = Math.max(highest, lastId);
+        if (size < slots) {
+            compact();
+        }
+        int previous = 0;
+        isIdOrdered = true;
+        for (int p = 0; p < slots; p++) {
+            if (ids[p] == 0) {
+                ids[p] = ++highest;
+            }
+            isIdOrdered &= ids[p] > previous;
+            previous = ids[p];
+        }
+        lastId = highest;
+        return highest;
+    }
+
+    @Override
+    void reserveIds(int id) {
+        lastId = Math.max(lastId, id);
+    }
+
+    @Override
+    int getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the tasks whose names contain every word of the query, in list order, by scanning the
+     * name arena. A query word has no whitespace, so finding it anywhere in a name is finding it in one
+     * of the name's words, as the word index would. Every task is checked, as there is no word index to
+     * narrow the search.
+     */
+    @Override
+    List<Task> search(String query, IntConsumer scanned) {
+        List<String> words = TaskIndex.words(query);
+        List<Task> hits = new ArrayList<>();
+        scanned.accept(words.isEmpty() ? 0 : size);
+        if (words.isEmpty()) {
+            return hits;
+        }
+        byte[][] needles = new byte[words.size()][];
+        for (int w = 0; w < needles.length; w++) {
+            needles[w] = words.get(w).getBytes(StandardCharsets.UTF_8);
+        }
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            Cancellation.check(p);
+            if (containsAll(p, needles)) {
+                hits.add(view(p));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Ranks the tasks against the query through the vocabulary of their names, checking only the tasks with
+     * a word like the query word whose matches are in the fewest tasks. Until the vocabulary is built, it is
+     * started in the background and the name arena is scanned instead. A hit is kept in the heap as one long,
+     * the score's float bits above the ID counted down from the largest, so the head is the lowest score and
+     * latest added.
+     */
+    @Override
+    public List<Task> fuzzySearch(String query, int limit) {
+        List<String> queryWords = TaskIndex.words(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Vocabulary words = vocabulary();
+        if (words == null) {
+            return scanFuzzy(queryWords, limit);
+        }
+        List<Map<String, Double>> matches = new ArrayList<>(queryWords.size());
+        int rarest = 0;
+        long rarestSlots = Long.MAX_VALUE;
+        for (String queryWord : queryWords) {
+            Map<String, Double> similar = words.trigrams.similar(queryWord);
+            if (similar.isEmpty()) {
+                return new ArrayList<>();
+            }
+            long wordSlots = 0;
+            for (String word : similar.keySet()) {
+                wordSlots += words.slots.get(word).size;
+            }
+            if (wordSlots < rarestSlots) {
+                rarest = matches.size();
+                rarestSlots = wordSlots;
+            }
+            matches.add(similar);
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+        BitSet seen = new BitSet();
+        int i = 0;
+        for (String word : matches.get(rarest).keySet()) {
+            Slots withWord = words.slots.get(word);
+            for (int k = 0; k < withWord.size; k++) {
+                Cancellation.check(i++);
+                int p = withWord.slots[k];
+                if (removed.get(p) || seen.get(p)) {
+                    continue;
+                }
+                seen.set(p);
+                List<String> nameWords = TaskIndex.words(name(p));
+                double total = 0;
+                for (int w = 0; w < matches.size() && total >= 0; w++) {
+                    double wordBest = 0;
+                    for (String nameWord : nameWords) {
+                        wordBest = Math.max(wordBest, matches.get(w).getOrDefault(nameWord, 0.0));
+                    }
+                    total = wordBest == 0 ? -1 : total + wordBest;
+                }
+                if (total > 0) {
+                    keepBest(best, limit, (float) (total / matches.size()), p);
+                }
+            }
+        }
+        return ranked(best);
+    }
+
+    /** Ranks the tasks by scanning the name arena; words of ASCII names are scored straight from their bytes. */
+    private List<Task> scanFuzzy(List<String> queryWords, int limit) {
+        TrigramIndex.Matcher[] matchers = new TrigramIndex.Matcher[queryWords.size()];
+        for (int w = 0; w < matchers.length; w++) {
+            matchers[w] = new TrigramIndex.Matcher(queryWords.get(w));
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            Cancellation.check(p);
+            double total = 0;
+            for (int w = 0; w < matchers.length && total >= 0; w++) {
+                double wordBest = bestWordScore(p, matchers[w]);
+                total = wordBest < TrigramIndex.THRESHOLD ? -1 : total + wordBest;
+            }
+            if (total > 0) {
+                keepBest(best, limit, (float) (total / matchers.length), p);
+            }
+        }
+        return ranked(best);
+    }
+
+    /** Adds a slot's hit to the heap if it is among the best {@code limit} so far. */
+    private void keepBest(PriorityQueue<Long> best, int limit, float score, int p) {
+        long hit = (long) Float.floatToIntBits(score) << 32 | Integer.MAX_VALUE - ids[p];
+        if (best.size() < limit || hit > best.peek()) {
+            best.add(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /** Empties the heap of hits into a list, best first. */
+    private List<Task> ranked(PriorityQueue<Long> best) {
+        List<Task> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(get(indexOfId(Integer.MAX_VALUE - (int) (best.poll() & Integer.MAX_VALUE))));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * Returns the vocabulary, catching it up with the tasks added since its build started if that has just
+     * finished, or null if it is still being built, starting the build if it is the first time.
+     */
+    private Vocabulary vocabulary() {
+        if (vocabulary == null && pendingVocabulary == null) {
+            pendingVocabulary = buildVocabulary();
+        }
+        if (vocabulary == null && pendingVocabulary.isDone()) {
+            vocabulary = pendingVocabulary.join();
+            pendingVocabulary = null;
+            for (int p = nextLive(vocabulary.slotCount); p < slots; p = nextLive(p + 1)) {
+                vocabulary.add(p, name(p));
+            }
+        }
+        return vocabulary;
+    }
+
+    /** Starts building a vocabulary in the background from a copy of the names as they are now. */
+    private CompletableFuture<Vocabulary> buildVocabulary() {
+        byte[] arena = Arrays.copyOf(names, namesEnd);
+        int[] from = Arrays.copyOf(nameStarts, slots);
+        int[] length = Arrays.copyOf(nameLengths, slots);
+        BitSet gone = (BitSet) removed.clone();
+        return CompletableFuture.supplyAsync(() -> new Vocabulary(arena, from, length, gone), TrigramIndex.BUILDER);
+    }
+
+    private String name(int p) {
+        return new String(names, nameStarts[p], nameLengths[p], StandardCharsets.UTF_8);
+    }
+
+    /** Returns the best score of any word in a slot's name against one query word. */
+    private double bestWordScore(int p, TrigramIndex.Matcher matcher) {
+        int from = nameStarts[p];
+        int to = from + nameLengths[p];
+        double best = 0;
+        int wordStart = -1;
+        for (int i = from; i <= to; i++) {
+            byte c = i < to ? names[i] : (byte) ' ';
+            if (c < 0) {
+                return bestWordScore(new String(names, from, to - from, StandardCharsets.UTF_8), matcher);
+            }
+            boolean isBoundary = c == ' ' || (c >= 0x09 && c <= 0x0D) || (c >= 0x1C && c <= 0x1F); // isWhitespace
+            if (isBoundary && wordStart >= 0) {
+                best = Math.max(best, matcher.score(names, wordStart, i));
+                wordStart = -1;
+            } else if (!isBoundary && wordStart < 0) {
+                wordStart = i;
+            }
+        }
+        return best;
+    }
+
+    /** Scores a name with characters outside ASCII, splitting it into words as the word index does. */
+    private static double bestWordScore(String name, TrigramIndex.Matcher matcher) {
+        double best = 0;
+        for (String word : TaskIndex.words(name)) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            best = Math.max(best, matcher.score(bytes, 0, bytes.length));
+        }
+        return best;
+    }
+
+    private boolean containsAll(int p, byte[][] needles) {
+        for (byte[] needle : needles) {
+            if (!contains(names, nameStarts[p], nameStarts[p] + nameLengths[p], needle)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(byte[] haystack, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public List<Task> sortedByTime() {
+        timeOrder();
+        List<Task> sorted = new ArrayList<>(size);
+        for (int k = 0; k < timeOrderSize; k++) {
+            Cancellation.check(k);
+            if (!removed.get(timeOrder[k])) {
+                sorted.add(view(timeOrder[k]));
+            }
+        }
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            Cancellation.check(p);
+            if (types[p] == TODO) {
+                sorted.add(view(p));
+            }
+        }
+        return sorted;
+    }
+
+    @Override
+    public List<Task> sortedByTime(int offset, int limit) {
+        timeOrder();
+        List<Task> page = new ArrayList<>(Math.min(limit, Math.max(0, size - offset)));
+        int dated = timeOrderSize - timeOrderRemoved;
+        int k = timeOrderRemoved == 0 ? Math.min(offset, timeOrderSize) : 0;
+        for (int toSkip = offset; k < timeOrderSize && toSkip > 0 && timeOrderRemoved > 0; k++) {
+            toSkip -= removed.get(timeOrder[k]) ? 0 : 1;
+        }
+        for (; k < timeOrderSize && page.size() < limit; k++) {
+            if (!removed.get(timeOrder[k])) {
+                page.add(view(timeOrder[k]));
+            }
+        }
+        int undatedToSkip = Math.max(0, offset - dated);
+        for (int p = nextLive(0); p < slots && page.size() < limit; p = nextLive(p + 1)) {
+            Cancellation.check(p);
+            if (types[p] != TODO) {
+                continue;
+            }
+            if (undatedToSkip > 0) {
+                undatedToSkip--;
+            } else {
+                page.add(view(p));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        return dated(from, to, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<EventTask> eventsAt(LocalDateTime time) {
+        long t = IntervalIndex.minutes(time);
+        return events(t, t + 1);
+    }
+
+    @Override
+    public List<EventTask> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return events(IntervalIndex.minutes(from), IntervalIndex.minutes(to));
+    }
+
+    /** Returns the events with start &lt; to and end &gt; from, in minutes, by start. */
+    private List<EventTask> events(long from, long to) {
+        timeOrder();
+        List<EventTask> found = new ArrayList<>();
+        int startsTooLate = lowerBound(to);
+        for (int k = 0; k < startsTooLate; k++) {
+            Cancellation.check(k);
+            int p = timeOrder[k];
+            if (types[p] == EVENT && Math.max(ends[p], starts[p] + 1) > from && !removed.get(p)) {
+                found.add((EventTask) view(p));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Task> upcoming(LocalDateTime from, int limit) {
+        return dated(from, LocalDateTime.MAX, true, limit);
+    }
+
+    @Override
+    List<Task> pendingBetween(LocalDateTime from, LocalDateTime to) {
+        return dated(from, to, true, Integer.MAX_VALUE);
+    }
+
+    @Override
+    LocalDateTime nextPendingTime(LocalDateTime from) {
+        timeOrder();
+        for (int k = lowerBound(ceilMinute(from)); k < timeOrderSize; k++) {
+            int p = timeOrder[k];
+            if (!done.get(p) && !removed.get(p)) {
+                return BinaryFormat.fromEpochMinute(starts[p]);
+            }
+        }
+        return null;
+    }
+
+    /** Returns up to limit dated tasks with a time in [from, to), earliest first, optionally only those not done. */
+    private List<Task> dated(LocalDateTime from, LocalDateTime to, boolean isPendingOnly, int limit) {
+        timeOrder();
+        long end = ceilMinute(to);
+        List<Task> found = new ArrayList<>();
+        for (int k = lowerBound(ceilMinute(from)); k < timeOrderSize && found.size() < limit; k++) {
+            int p = timeOrder[k];
+            if (starts[p] >= end) {
+                break;
+            }
+            if (!removed.get(p) && (!isPendingOnly || !done.get(p))) {
+                found.add(view(p));
+            }
+        }
+        return found;
+    }
+
+    /** Returns the first index in the time order whose time is at or after the given minute. */
+    private int lowerBound(long minute) {
+        int lo = 0;
+        int hi = timeOrderSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[timeOrder[mid]] < minute) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the first whole epoch minute at or after a time, so minute bounds match time bounds. */
+    private static long ceilMinute(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60);
+        return Math.floorMod(seconds, 60) != 0 || time.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    /**
+     * Builds the time order if it was dropped. Times and positions are packed into one long per task
+     * and sorted as primitives, unless the times span too many minutes to pack.
+     */
+    private void timeOrder() {
+        if (timeOrder != null) {
+            return;
+        }
+        int count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            if (types[p] != TODO) {
+                count++;
+                min = Math.min(min, starts[p]);
+                max = Math.max(max, starts[p]);
+            }
+        }
+        int[] order = new int[Math.max(count, INITIAL_CAPACITY)];
+        if (count > 0 && max - min < 1L << 32) {
+            long[] keys = new long[count];
+            int k = 0;
+            for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+                Cancellation.check(p);
+                if (types[p] != TODO) {
+                    keys[k++] = (starts[p] - min) << 31 | p;
+                }
+            }
+            Arrays.sort(keys);
+            for (k = 0; k < count; k++) {
+                order[k] = (int) (keys[k] & Integer.MAX_VALUE);
+            }
+        } else if (count > 0) {
+            Integer[] boxed = new Integer[count];
+            int k = 0;
+            for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+                if (types[p] != TODO) {
+                    boxed[k++] = p;
+                }
+            }
+            Arrays.sort(boxed, Comparator.comparingLong(p -> starts[p])); // stable, so ties stay in list order
+            for (k = 0; k < count; k++) {
+                order[k] = boxed[k];
+            }
+        }
+        timeOrder = order;
+        timeOrderSize = count;
+        timeOrderRemoved = 0;
+    }
+
+    @Override
+    void buildIndexes() {
+        timeOrder();
+    }
+
+    @Override
+    public ArrayList<Task> getTasks() {
+        return getTasks(0, size);
+    }
+
+    @Override
+    public ArrayList<Task> getTasks(int offset, int limit) {
+        int from = Math.min(offset, size);
+        int to = (int) Math.min((long) from + limit, size);
+        ArrayList<Task> page = new ArrayList<>(to - from);
+        for (int p = from < to ? select(from) : slots; page.size() < to - from; p = nextLive(p + 1)) {
+            page.add(view(p));
+        }
+        return page;
+    }
+
+    /**
+     * Writes the tasks as a snapshot in the given format straight from the columns, making no task objects.
+     * The bytes are the same as {@link Storage} writes for the same tasks as objects.
+     *
+     * @param format   the snapshot format
+     * @param lastId   the highest ID handed out so far
+     * @param file     the stream to write to, closed when done
+     * @param checksum updated with the written bytes
+     * @throws IOException if the file cannot be written
+     */
+    void save(Storage.Format format, int lastId, OutputStream file, CRC32 checksum) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(file, 1 << 16), checksum))) {
+            if (format == Storage.Format.BINARY) {
+                saveBinary(lastId, out);
+            } else {
+                saveText(lastId, out);
+            }
+        }
+    }
+
+    private void saveBinary(int lastId, DataOutputStream out) throws IOException {
+        out.writeInt(BinaryFormat.MAGIC);
+        out.writeShort(BinaryFormat.VERSION);
+        out.writeInt(size);
+        out.writeInt(lastId);
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            out.writeByte(types[p] | (done.get(p) ? BinaryFormat.DONE_BIT : 0));
+            out.writeInt(ids[p]);
+            out.writeInt(nameLengths[p]);
+            out.write(names, nameStarts[p], nameLengths[p]);
+            if (types[p] != TODO) {
+                out.writeLong(starts[p]);
+            }
+            if (types[p] == EVENT) {
+                out.writeLong(ends[p]);
+            }
+        }
+    }
+
+    /** Writes the lines {@link Storage#formatTask} would, with the dates written digit by digit. */
+    private void saveText(int lastId, DataOutputStream out) throws IOException {
+        out.writeBytes(SnapshotLoader.LAST_ID_HEADER + lastId + "\n");
+        byte[] date = new byte[DATE_LENGTH + SEPARATOR.length];
+        System.arraycopy(SEPARATOR, 0, date, 0, SEPARATOR.length);
+        for (int p = nextLive(0); p < slots; p = nextLive(p + 1)) {
+            out.write(types[p] == TODO ? 'T' : types[p] == DEADLINE ? 'D' : 'E');
+            out.writeBytes(done.get(p) ? " | 1 | " : " | 0 | ");
+            out.write(names, nameStarts[p], nameLengths[p]);
+            if (types[p] != TODO) {
+                writeDate(out, date, starts[p]);
+            }
+            if (types[p] == EVENT) {
+                writeDate(out, date, ends[p]);
+            }
+            if (ids[p] != 0) {
+                out.writeBytes(" | #");
+                out.writeBytes(Integer.toString(ids[p]));
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes " | " and an epoch minute as yyyy-MM-dd HH:mm, working out the calendar date from the day number
+     * as in Howard Hinnant's days_from_civil inverse. Years without four digits go through the formatter.
+     */
+    private static void writeDate(DataOutputStream out, byte[] date, long epochMinute) throws IOException {
+        long days = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+        int minuteOfDay = (int) Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        long shifted = days + 719468;
+        long era = Math.floorDiv(shifted, 146097);
+        int dayOfEra = (int) (shifted - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 1 || year > 9999) {
+            out.write(SEPARATOR);
+            out.writeBytes(BinaryFormat.fromEpochMinute(epochMinute).format(DATE_FORMAT));
+            return;
+        }
+        int at = SEPARATOR.length;
+        at = digits(date, at, (int) year, 4);
+        date[at++] = '-';
+        at = digits(date, at, month, 2);
+        date[at++] = '-';
+        at = digits(date, at, day, 2);
+        date[at++] = ' ';
+        at = digits(date, at, minuteOfDay / 60, 2);
+        date[at++] = ':';
+        digits(date, at, minuteOfDay % 60, 2);
+        out.write(date);
+    }
+
+    /** Writes a number as a fixed count of decimal digits and returns the position after them. */
+    private static int digits(byte[] b, int at, int value, int count) {
+        for (int i = at + count - 1; i >= at; i--) {
+            b[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + count;
+    }
+
+    /**
+     * Builds a task object for a slot; it carries the slot's ID and done flag. Its name is kept only while
+     * the view is, so it is not counted as a name stored in the pool.
+     */
+    private Task view(int p) {
+        String name = NamePool.SHARED.decode(names, nameStarts[p], nameStarts[p] + nameLengths[p]);
+        Task task = switch (types[p]) {
+        case DEADLINE -> new DeadlineTask(name, BinaryFormat.fromEpochMinute(starts[p]));
+        case EVENT -> new EventTask(name, BinaryFormat.fromEpochMinute(starts[p]),
+                BinaryFormat.fromEpochMinute(ends[p]));
+        default -> new TodoTask(name);
+        };
+        task.assignId(ids[p]);
+        if (done.get(p)) {
+            task.complete();
+        }
+        return task;
+    }
+
+    /** The distinct words of the names, each with the slots whose name has it, and their trigrams. */
+    private static final class Vocabulary {
+        private final Map<String, Slots> slots = new HashMap<>();
+        private final TrigramIndex trigrams;
+        /** Slots there were when the vocabulary was built; later ones are added once it is in use. */
+        private final int slotCount;
+
+        Vocabulary(byte[] names, int[] nameStarts, int[] nameLengths, BitSet removed) {
+            slotCount = nameStarts.length;
+            for (int p = removed.nextClearBit(0); p < slotCount; p = removed.nextClearBit(p + 1)) {
+                for (String word : TaskIndex.words(new String(names, nameStarts[p], nameLengths[p],
+                        StandardCharsets.UTF_8))) {
+                    slots.computeIfAbsent(word, k -> new Slots()).add(p);
+                }
+            }
+            trigrams = new TrigramIndex(slots.keySet());
+        }
+
+        void add(int p, String name) {
+            for (String word : TaskIndex.words(name)) {
+                Slots withWord = slots.get(word);
+                if (withWord == null) {
+                    withWord = new Slots();
+                    slots.put(word, withWord);
+                    trigrams.add(word);
+                }
+                withWord.add(p);
+            }
+        }
+
+        /** Renumbers the slots after compaction, dropping removed ones and the words left with none. */
+        void remap(int[] moved, BitSet removed) {
+            for (Iterator<Map.Entry<String, Slots>> it = slots.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Slots> entry = it.next();
+                Slots withWord = entry.getValue();
+                int kept = 0;
+                for (int k = 0; k < withWord.size; k++) {
+                    int p = withWord.slots[k];
+                    if (!removed.get(p)) {
+                        withWord.slots[kept++] = moved[p];
+                    }
+                }
+                withWord.size = kept;
+                if (kept == 0) {
+                    it.remove();
+                    trigrams.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /** A growable list of slots in increasing order, each once. */
+    private static final class Slots {
+        private int[] slots = new int[2];
+        private int size;
+
+        void add(int p) {
+            if (size > 0 && slots[size - 1] == p) {
+                return; // the word is in the name twice
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = p;
+        }
+    }
+
+    private void checkPosition(int number) {
+        if (number <= 0 || number > size) {
+            throw new IndexOutOfBoundsException("Index: " + number + " Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package sisyphus;
+
+import java.util.Arrays;
+
+/**
+ * A command line split into space-separated tokens without copying it.
+ * <p>
+ * Tokens are kept as [start, end) offsets into the original text and follow {@code String.split(" ")}:
+ * every single space separates two tokens, so a run of spaces gives empty tokens, and trailing empty
+ * tokens are dropped. The first {@code /by}, {@code /from} and {@code /to} markers are found in the
+ * same pass. Strings are only created for the fields a command actually keeps.
+ * <p>
+ * An instance is meant to be reused from line to line by one thread at a time.
+ */
+final class CommandLine {
+    static final String MARKER_BY = "/by";
+    static final String MARKER_FROM = "/from";
+    static final String MARKER_TO = "/to";
+
+    private CharSequence text = "";
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+    private int byIndex;
+    private int fromIndex;
+    private int toIndex;
+
+    /**
+     * Tokenizes a new line, replacing the previous one.
+     *
+     * @param line the raw input
+     * @return this command line
+     */
+    CommandLine reset(CharSequence line) {
+        text = line;
+        count = 0;
+        byIndex = -1;
+        fromIndex = -1;
+        toIndex = -1;
+        int length = line.length();
+        int start = 0;
+        int lastNonEmpty = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && line.charAt(i) != ' ') {
+                continue;
+            }
+            addToken(start, i);
+            if (i > start) {
+                lastNonEmpty = count;
+            }
+            start = i + 1;
+        }
+        // String.split keeps a lone empty token for empty input but drops trailing empties otherwise.
+        if (length > 0) {
+            count = lastNonEmpty;
+        }
+        return this;
+    }
+
+    private void addToken(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        if (byIndex < 0 && matches(start, end, MARKER_BY)) {
+            byIndex = count;
+        } else if (fromIndex < 0 && matches(start, end, MARKER_FROM)) {
+            fromIndex = count;
+        } else if (toIndex < 0 && matches(start, end, MARKER_TO)) {
+            toIndex = count;
+        }
+        count++;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return the token count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the position of the first {@code /by} token.
+     *
+     * @return its token index, or -1 if there is none
+     */
+    int byIndex() {
+        return byIndex;
+    }
+
+    /**
+     * Returns the position of the first {@code /from} token.
+     *
+     * @return its token index, or -1 if there is none
+     */
+    int fromIndex() {
+        return fromIndex;
+    }
+
+    /**
+     * Returns the position of the first {@code /to} token.
+     *
+     * @return its token index, or -1 if there is none
+     */
+    int toIndex() {
+        return toIndex;
+    }
+
+    /**
+     * Returns whether a token is exactly the given word.
+     *
+     * @param index the token index
+     * @param word  the word to compare with
+     * @return true if they are equal
+     */
+    boolean tokenEquals(int index, String word) {
+        return matches(starts[index], ends[index], word);
+    }
+
+    /**
+     * Returns whether a token is empty or made only of whitespace.
+     *
+     * @param index the token index
+     * @return true if the token is blank
+     */
+    boolean isBlank(int index) {
+        for (int i = starts[index]; i < ends[index]; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a token contains the given character.
+     *
+     * @param index the token index
+     * @param c     the character to look for
+     * @return true if it occurs in the token
+     */
+    boolean contains(int index, char c) {
+        for (int i = starts[index]; i < ends[index]; i++) {
+            if (text.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a token starts with the given character.
+     *
+     * @param index the token index
+     * @param c     the character to look for
+     * @return true if the token is not empty and begins with c
+     */
+    boolean startsWith(int index, char c) {
+        return starts[index] < ends[index] && text.charAt(starts[index]) == c;
+    }
+
+    /**
+     * Parses a token as a decimal int without copying it.
+     *
+     * @param index the token index
+     * @return the parsed value
+     * @throws NumberFormatException if the token is not a valid int
+     */
+    int parseInt(int index) throws NumberFormatException {
+        return parseInt(index, 0);
+    }
+
+    /**
+     * Parses the rest of a token after its first few characters as a decimal int, as for {@code #12}.
+     *
+     * @param index the token index
+     * @param skip  number of leading characters to ignore
+     * @return the parsed value
+     * @throws NumberFormatException if the rest of the token is not a valid int
+     */
+    int parseInt(int index, int skip) throws NumberFormatException {
+        return Integer.parseInt(text, Math.min(starts[index] + skip, ends[index]), ends[index], 10);
+    }
+
+    /**
+     * Returns a token as a string.
+     *
+     * @param index the token index
+     * @return the token text
+     */
+    String token(int index) {
+        return text.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Returns the tokens in [from, to) with the spaces between them, as {@code String.join(" ", ...)} would.
+     *
+     * @param from first token, inclusive
+     * @param to   last token, exclusive
+     * @return the joined text, or "" if the range is empty
+     */
+    String text(int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        return text.subSequence(starts[from], ends[to - 1]).toString();
+    }
+
+    /**
+     * Returns {@link #text(int, int)} with leading and trailing whitespace removed, as {@code trim()} would.
+     *
+     * @param from first token, inclusive
+     * @param to   last token, exclusive
+     * @return the trimmed text
+     */
+    String trimmed(int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        int start = trimStart(from, to);
+        return text.subSequence(start, trimEnd(start, to)).toString();
+    }
+
+    /**
+     * Returns {@link #trimmed(int, int)} followed by a single space, the spacing deadline and event names
+     * have always been stored with. The space is taken from the input when one follows the text.
+     *
+     * @param from first token, inclusive
+     * @param to   last token, exclusive
+     * @return the trimmed text and a trailing space
+     */
+    String trimmedWithSpace(int from, int to) {
+        if (from >= to) {
+            return " ";
+        }
+        int start = trimStart(from, to);
+        int end = trimEnd(start, to);
+        if (end < text.length() && text.charAt(end) == ' ') {
+            return text.subSequence(start, end + 1).toString();
+        }
+        return text.subSequence(start, end) + " ";
+    }
+
+    private int trimStart(int from, int to) {
+        int start = starts[from];
+        int limit = ends[to - 1];
+        while (start < limit && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int to) {
+        int end = ends[to - 1];
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean matches(int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,229 @@
+package sisyphus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A TaskList that can be shared between threads.
+ * Writers are serialized by a {@link StampedLock}. Point reads ({@code size}, {@code get}, {@code isEmpty})
+ * are optimistic and only fall back to a read lock if a write raced with them; bulk reads take the
+ * read lock and hand back copies, so callers never see the list change underneath them.
+ * The thread holding the write lock (inside {@link #atomically}) can call any method without re-locking.
+ */
+public class ConcurrentTaskList extends TaskList {
+    private final StampedLock lock = new StampedLock();
+    private volatile Thread writer;
+
+    /**
+     * Creates a concurrent list holding the given tasks.
+     *
+     * @param tasks the initial tasks; the list is copied
+     */
+    public ConcurrentTaskList(List<Task> tasks) {
+        super(new ArrayList<>(tasks));
+        // The indexes exist from the start so reads under the shared lock never build one.
+        super.buildIndexes();
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> {
+            super.addTask(task);
+            return null;
+        });
+    }
+
+    @Override
+    public Task removeTask(int number) {
+        return write(() -> super.removeTask(number));
+    }
+
+    @Override
+    public Task setDone(int number, boolean isDone) {
+        return write(() -> super.setDone(number, isDone));
+    }
+
+    @Override
+    int setDone(RangeSet positions, boolean isDone) {
+        return write(() -> super.setDone(positions, isDone));
+    }
+
+    @Override
+    int removeTasks(RangeSet positions) {
+        return write(() -> super.removeTasks(positions));
+    }
+
+    @Override
+    RangeSet removeTasks(Predicate<Task> filter) {
+        return write(() -> super.removeTasks(filter));
+    }
+
+    @Override
+    RangeSet removeDone() {
+        return write(super::removeDone);
+    }
+
+    @Override
+    public <T> T atomically(Supplier<T> action) {
+        return write(action);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return optimisticRead(super::isEmpty);
+    }
+
+    @Override
+    public int size() {
+        return optimisticRead(super::size);
+    }
+
+    @Override
+    public long getModCount() {
+        return optimisticRead(super::getModCount);
+    }
+
+    @Override
+    public Task get(int index) {
+        return optimisticRead(() -> super.get(index));
+    }
+
+    @Override
+    public int indexOfId(int id) {
+        return read(() -> super.indexOfId(id));
+    }
+
+    @Override
+    void reserveIds(int id) {
+        write(() -> {
+            super.reserveIds(id);
+            return null;
+        });
+    }
+
+    @Override
+    int getLastId() {
+        return read(super::getLastId);
+    }
+
+    @Override
+    List<Task> search(String query, IntConsumer scanned) {
+        return read(() -> super.search(query, scanned));
+    }
+
+    @Override
+    public List<Task> fuzzySearch(String query, int limit) {
+        return read(() -> super.fuzzySearch(query, limit));
+    }
+
+    @Override
+    public List<Task> sortedByTime() {
+        return read(super::sortedByTime);
+    }
+
+    @Override
+    public List<Task> sortedByTime(int offset, int limit) {
+        return read(() -> super.sortedByTime(offset, limit));
+    }
+
+    @Override
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.between(from, to));
+    }
+
+    @Override
+    public List<EventTask> eventsAt(LocalDateTime time) {
+        return read(() -> super.eventsAt(time));
+    }
+
+    @Override
+    public List<EventTask> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.eventsOverlapping(from, to));
+    }
+
+    @Override
+    public List<Task> upcoming(LocalDateTime from, int limit) {
+        return read(() -> super.upcoming(from, limit));
+    }
+
+    @Override
+    List<Task> pendingBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.pendingBetween(from, to));
+    }
+
+    @Override
+    LocalDateTime nextPendingTime(LocalDateTime from) {
+        return read(() -> super.nextPendingTime(from));
+    }
+
+    @Override
+    public ArrayList<Task> getTasks() {
+        return read(super::getTasks);
+    }
+
+    @Override
+    public ArrayList<Task> getTasks(int offset, int limit) {
+        return read(() -> super.getTasks(offset, limit));
+    }
+
+    private boolean holdsWriteLock() {
+        return writer == Thread.currentThread();
+    }
+
+    private <T> T write(Supplier<T> action) {
+        if (holdsWriteLock()) {
+            return action.get();
+        }
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        try {
+            return action.get();
+        } finally {
+            writer = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        if (holdsWriteLock()) {
+            return action.get();
+        }
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a read without locking and validates it afterwards. A failure seen while a writer was
+     * active is treated as a torn read and retried under the read lock; one seen on a valid stamp is real.
+     */
+    private <T> T optimisticRead(Supplier<T> action) {
+        if (holdsWriteLock()) {
+            return action.get();
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result;
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                return read(action);
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        return read(action);
+    }
+}
@@ -0,0 +1,196 @@
+package sisyphus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the two date-time shapes tasks accept, "yyyy-MM-dd HH:mm" and "yyyy-MM-dd" (the start of that day).
+ * <p>
+ * Well-formed input is recognised by its length and the separators at fixed positions and read digit by
+ * digit, so it never goes through {@link DateTimeFormatter} or throws. Anything else falls back to the
+ * formatters, which keeps their lenient handling of odd input (such as a 30th of February being moved to
+ * the last day of the month) and their error for invalid input.
+ * <p>
+ * Recent results are kept in a small cache keyed on the parsed fields, so loading many tasks that share
+ * dates also shares their LocalDateTime instances.
+ */
+final class DateTimeParser {
+    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter INPUT_DATE_ONLY = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int DATE_LENGTH = 10;
+    private static final int DATE_TIME_LENGTH = 16;
+    private static final int CACHE_SIZE = 256;
+
+    /** Direct-mapped cache; entries are immutable, so racing writers only ever lose a cached value. */
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private DateTimeParser() {
+    }
+
+    /**
+     * Parses yyyy-MM-dd HH:mm, or yyyy-MM-dd as the start of that day.
+     *
+     * @param text the trimmed input
+     * @return the parsed date-time
+     * @throws DateTimeParseException if the input is in neither format
+     */
+    static LocalDateTime parse(String text) throws DateTimeParseException {
+        LocalDateTime dateTime = tryParse(text);
+        return dateTime != null ? dateTime : parseWithFormatter(text);
+    }
+
+    /**
+     * Reads a well-formed yyyy-MM-dd HH:mm or yyyy-MM-dd without throwing.
+     *
+     * @param text the trimmed input
+     * @return the date-time, or null if the input is not exactly one of those shapes with a valid value
+     */
+    static LocalDateTime tryParse(CharSequence text) {
+        int length = text.length();
+        if (length != DATE_LENGTH && length != DATE_TIME_LENGTH) {
+            return null;
+        }
+        if (text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        int hour = 0;
+        int minute = 0;
+        if (length == DATE_TIME_LENGTH) {
+            if (text.charAt(10) != ' ' || text.charAt(13) != ':') {
+                return null;
+            }
+            hour = digits(text, 11, 2);
+            minute = digits(text, 14, 2);
+        }
+        return of(pack(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2), hour, minute));
+    }
+
+    /**
+     * Reads a well-formed yyyy-MM-dd HH:mm or yyyy-MM-dd from ASCII bytes without throwing.
+     *
+     * @param b    the bytes
+     * @param from start of the value, inclusive
+     * @param to   end of the value, exclusive
+     * @return the date-time, or null if the range is not exactly one of those shapes with a valid value
+     */
+    static LocalDateTime tryParse(byte[] b, int from, int to) {
+        return of(pack(b, from, to));
+    }
+
+    /**
+     * Returns whether {@link #tryParse(byte[], int, int)} would succeed, without building the value.
+     *
+     * @param b    the bytes
+     * @param from start of the value, inclusive
+     * @param to   end of the value, exclusive
+     * @return true if the range holds a valid date-time in one of the accepted shapes
+     */
+    static boolean isWellFormed(byte[] b, int from, int to) {
+        return pack(b, from, to) >= 0;
+    }
+
+    private static long pack(byte[] b, int from, int to) {
+        int length = to - from;
+        if (length != DATE_LENGTH && length != DATE_TIME_LENGTH) {
+            return -1;
+        }
+        if (b[from + 4] != '-' || b[from + 7] != '-') {
+            return -1;
+        }
+        int hour = 0;
+        int minute = 0;
+        if (length == DATE_TIME_LENGTH) {
+            if (b[from + 10] != ' ' || b[from + 13] != ':') {
+                return -1;
+            }
+            hour = digits(b, from + 11, 2);
+            minute = digits(b, from + 14, 2);
+        }
+        return pack(digits(b, from, 4), digits(b, from + 5, 2), digits(b, from + 8, 2), hour, minute);
+    }
+
+    /**
+     * Validates the fields and packs them as the decimal number yyyyMMddHHmm, or returns -1 if they are
+     * out of range. Year 0 is not a valid year-of-era for "yyyy", so it and day overflow are left to the
+     * formatters.
+     */
+    private static long pack(int year, int month, int day, int hour, int minute) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return -1;
+        }
+        return (((year * 100L + month) * 100 + day) * 100 + hour) * 100 + minute;
+    }
+
+    /** Returns the cached or a new date-time for packed fields, or null for -1. */
+    private static LocalDateTime of(long key) {
+        if (key < 0) {
+            return null;
+        }
+        int slot = (int) (key ^ (key >>> 17)) & (CACHE_SIZE - 1);
+        Entry entry = CACHE[slot];
+        if (entry != null && entry.key == key) {
+            return entry.value;
+        }
+        LocalDateTime dateTime = LocalDateTime.of((int) (key / 100_000_000), (int) (key / 1_000_000 % 100),
+                (int) (key / 10_000 % 100), (int) (key / 100 % 100), (int) (key % 100));
+        CACHE[slot] = new Entry(key, dateTime);
+        return dateTime;
+    }
+
+    private static LocalDateTime parseWithFormatter(String text) throws DateTimeParseException {
+        try {
+            return LocalDateTime.parse(text, INPUT_FORMAT);
+        } catch (DateTimeParseException e) {
+            try {
+                LocalDate date = LocalDate.parse(text, INPUT_DATE_ONLY);
+                return date.atStartOfDay();
+            } catch (DateTimeParseException e2) {
+                throw new DateTimeParseException("Invalid date format. Use yyyy-MM-dd or yyyy-MM-dd HH:mm", text, 0);
+            }
+        }
+    }
+
+    /** Returns the decimal value of count ASCII digits, or -1 if any character is not a digit. */
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /** Returns the decimal value of count ASCII digits, or -1 if any byte is not a digit. */
+    private static int digits(byte[] b, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /** A cached result and the fields it was parsed from. */
+    private static final class Entry {
+        private final long key;
+        private final LocalDateTime value;
+
+        private Entry(long key, LocalDateTime value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
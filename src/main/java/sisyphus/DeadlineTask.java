@@ -1,6 +1,5 @@
 package sisyphus;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -12,7 +11,6 @@ import java.time.format.DateTimeParseException;
 public class DeadlineTask extends Task {
 
     private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    private static final DateTimeFormatter INPUT_DATE_ONLY = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
     private LocalDateTime deadline;
 
@@ -26,24 +24,35 @@ public class DeadlineTask extends Task {
     public DeadlineTask(String name, String deadlineString) throws DateTimeParseException {
         super(name);
         // Parse the input date string (yyyy-MM-dd format)
-        this.deadline = parseDateTime(deadlineString.trim());
+        this.deadline = DateTimeParser.parse(deadlineString.trim());
         assert this.deadline != null : "Deadline must not be null";
     }
 
-    private LocalDateTime parseDateTime(String dateTimeString) throws DateTimeParseException {
-        try {
-            // Try parsing with time (yyyy-MM-dd HH:mm)
-            return LocalDateTime.parse(dateTimeString, INPUT_FORMAT);
-        } catch (DateTimeParseException e) {
-            try {
-                // No time in input so set time to 00:00
-                LocalDate date = LocalDate.parse(dateTimeString, INPUT_DATE_ONLY);
-                return date.atStartOfDay();
-            } catch (DateTimeParseException e2) {
-                throw new DateTimeParseException("Invalid date format. Use yyyy-MM-dd or yyyy-MM-dd HH:mm",
-                        dateTimeString, 0);
-            }
-        }
+    /**
+     * Creates a deadline task from an already parsed deadline.
+     *
+     * @param name     the task description
+     * @param deadline the deadline
+     */
+    DeadlineTask(String name, LocalDateTime deadline) {
+        super(name);
+        assert deadline != null : "Deadline must not be null";
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a deadline task from a data file record that is parsed on first use.
+     *
+     * @param record the record bytes, with a well-formed deadline in the fourth field
+     * @param isDone the record's done flag
+     */
+    DeadlineTask(byte[] record, boolean isDone) {
+        super(record, isDone);
+    }
+
+    @Override
+    void hydrate(byte[] record, int[] starts, int[] ends) {
+        this.deadline = DateTimeParser.tryParse(record, starts[3], ends[3]);
     }
 
     /**
@@ -52,17 +61,28 @@ public class DeadlineTask extends Task {
      * @return deadline as LocalDateTime
      */
     public LocalDateTime getDeadline() {
+        hydrate();
         assert this.deadline != null : "Deadline should have been initialized";
         return this.deadline;
     }
 
+    /**
+     * Returns the deadline, reading only its field of the record if the task is still lazily loaded.
+     *
+     * @return deadline as LocalDateTime
+     */
+    LocalDateTime peekDeadline() {
+        LocalDateTime fromRecord = recordDate(3);
+        return fromRecord != null ? fromRecord : getDeadline();
+    }
+
     /**
      * Returns the deadline in the canonical input format yyyy-MM-dd HH:mm.
      *
      * @return formatted deadline string
      */
     public String getDeadlineString() {
-        return this.deadline.format(INPUT_FORMAT);
+        return getDeadline().format(INPUT_FORMAT);
     }
 
     /**
@@ -72,7 +92,7 @@ public class DeadlineTask extends Task {
      */
     public String toString() {
         // Format date for display (MMM dd yyyy format)
-        String formattedDate = this.deadline.format(OUTPUT_FORMAT);
+        String formattedDate = getDeadline().format(OUTPUT_FORMAT);
         return "[D] " + super.toString() + " (by: " + formattedDate + ")";
     }
 }
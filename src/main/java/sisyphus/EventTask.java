@@ -1,6 +1,5 @@
 package sisyphus;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -12,7 +11,6 @@ import java.time.format.DateTimeParseException;
 public class EventTask extends Task {
 
     private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    private static final DateTimeFormatter INPUT_DATE_ONLY = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
     private LocalDateTime start;
     private LocalDateTime end;
@@ -28,26 +26,42 @@ public class EventTask extends Task {
      */
     public EventTask(String name, String startString, String endString) throws DateTimeParseException {
         super(name);
-        this.start = parseDateTime(startString.trim());
-        this.end = parseDateTime(endString.trim());
+        this.start = DateTimeParser.parse(startString.trim());
+        this.end = DateTimeParser.parse(endString.trim());
         assert this.start != null : "Start datetime must not be null";
         assert this.end != null : "End datetime must not be null";
         assert !this.end.isBefore(this.start) : "Event end must not be before start";
     }
 
-    // same as in EventTask
-    private LocalDateTime parseDateTime(String dateTimeString) throws DateTimeParseException {
-        try {
-            return LocalDateTime.parse(dateTimeString, INPUT_FORMAT);
-        } catch (DateTimeParseException e) {
-            try {
-                LocalDate date = LocalDate.parse(dateTimeString, INPUT_DATE_ONLY);
-                return date.atStartOfDay();
-            } catch (DateTimeParseException e2) {
-                throw new DateTimeParseException("Invalid date format. Use yyyy-MM-dd or yyyy-MM-dd HH:mm",
-                        dateTimeString, 0);
-            }
-        }
+    /**
+     * Creates an event task from already parsed start and end date-times.
+     *
+     * @param name  the event description
+     * @param start the start date-time
+     * @param end   the end date-time
+     */
+    EventTask(String name, LocalDateTime start, LocalDateTime end) {
+        super(name);
+        assert start != null : "Start datetime must not be null";
+        assert end != null : "End datetime must not be null";
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates an event task from a data file record that is parsed on first use.
+     *
+     * @param record the record bytes, with well-formed start and end in the fourth and fifth fields
+     * @param isDone the record's done flag
+     */
+    EventTask(byte[] record, boolean isDone) {
+        super(record, isDone);
+    }
+
+    @Override
+    void hydrate(byte[] record, int[] starts, int[] ends) {
+        this.start = DateTimeParser.tryParse(record, starts[3], ends[3]);
+        this.end = DateTimeParser.tryParse(record, starts[4], ends[4]);
     }
 
     /**
@@ -56,15 +70,27 @@ public class EventTask extends Task {
      * @return the start as a LocalDateTime
      */
     public LocalDateTime getStart() {
+        hydrate();
         return this.start;
     }
 
+    /**
+     * Returns the start, reading only its field of the record if the task is still lazily loaded.
+     *
+     * @return the start as a LocalDateTime
+     */
+    LocalDateTime peekStart() {
+        LocalDateTime fromRecord = recordDate(3);
+        return fromRecord != null ? fromRecord : getStart();
+    }
+
     /**
      * Returns the end date-time of this event.
      *
      * @return the end as a LocalDateTime
      */
     public LocalDateTime getEnd() {
+        hydrate();
         return this.end;
     }
 
@@ -74,7 +100,7 @@ public class EventTask extends Task {
      * @return formatted start string
      */
     public String getStartString() {
-        return this.start.format(INPUT_FORMAT);
+        return getStart().format(INPUT_FORMAT);
     }
 
     /**
@@ -83,7 +109,7 @@ public class EventTask extends Task {
      * @return formatted end string
      */
     public String getEndString() {
-        return this.end.format(INPUT_FORMAT);
+        return getEnd().format(INPUT_FORMAT);
     }
 
     /**
@@ -92,8 +118,8 @@ public class EventTask extends Task {
      * @return the display string for this event task
      */
     public String toString() {
-        String formattedStart = this.start.format(OUTPUT_FORMAT);
-        String formattedEnd = this.end.format(OUTPUT_FORMAT);
+        String formattedStart = getStart().format(OUTPUT_FORMAT);
+        String formattedEnd = getEnd().format(OUTPUT_FORMAT);
         return "[E] " + super.toString() + " (from: " + formattedStart + " to: " + formattedEnd + ")";
     }
 }
@@ -0,0 +1,160 @@
+package sisyphus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events for the stages a command goes through, so a recording of a stall shows which
+ * stage was slow rather than only generic JavaFX frames.
+ * <p>
+ * Each event is created and begun before its stage and committed after it; JFR drops events that are
+ * disabled or shorter than their threshold at the commit, and does so cheaply enough to leave in place.
+ * The thresholds in the bundled {@value #SETTINGS} profile keep an always-on recording small. Run with
+ * {@code -Dsisyphus.jfr=<file>} to record with that profile and write the file on exit, or pass the
+ * profile to {@code -XX:StartFlightRecording:settings=} after extracting it from the jar.
+ */
+public final class Events {
+    /** Classpath location of the settings profile for recordings of Sisyphus. */
+    static final String SETTINGS = "/jfr/sisyphus.jfc";
+
+    private static Recording recording;
+
+    private Events() {
+    }
+
+    /**
+     * Starts a recording with the bundled profile if the sisyphus.jfr property names a file to write it to.
+     * Calling it again does nothing.
+     */
+    public static synchronized void startRecording() {
+        String destination = System.getProperty("sisyphus.jfr");
+        if (destination == null || recording != null) {
+            return;
+        }
+        try (InputStream in = Events.class.getResourceAsStream(SETTINGS);
+                Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            recording = new Recording(Configuration.create(reader));
+            recording.setName("sisyphus");
+            recording.setToDisk(true);
+            recording.setDumpOnExit(true);
+            recording.setDestination(Path.of(destination));
+            recording.start();
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.out.println("Error starting flight recording: " + e.getMessage());
+        }
+    }
+
+    /** One command, from parsing the line to the finished response. */
+    @Name("sisyphus.Command")
+    @Label("Command")
+    @Category({"Sisyphus", "Parser"})
+    @Description("A command run by Parser.readAndRespond")
+    @StackTrace(false)
+    static final class Command extends Event {
+        @Label("Command")
+        String command;
+
+        @Label("Tasks")
+        @Description("Tasks in the list after the command")
+        int tasks;
+
+        @Label("Response Length")
+        @Description("Characters in the response, or -1 if the command failed")
+        int responseLength;
+    }
+
+    /** Loading a data file and replaying its journal. */
+    @Name("sisyphus.Load")
+    @Label("Load")
+    @Category({"Sisyphus", "Storage"})
+    @Description("Storage.readFile reading a snapshot and replaying its journal")
+    @StackTrace(false)
+    static final class Load extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Format")
+        String format;
+
+        @Label("Records")
+        @Description("Tasks read from the snapshot")
+        int records;
+
+        @Label("Journal Records")
+        @Description("Journal records replayed on top of the snapshot")
+        int journalRecords;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    /** Writing a snapshot, for a save or a background checkpoint. */
+    @Name("sisyphus.Save")
+    @Label("Save")
+    @Category({"Sisyphus", "Storage"})
+    @Description("A snapshot written for a save or a checkpoint")
+    @StackTrace(false)
+    static final class Save extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Format")
+        String format;
+
+        @Label("Records")
+        int records;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    /** A find over task names. */
+    @Name("sisyphus.Search")
+    @Label("Search")
+    @Category({"Sisyphus", "Search"})
+    @Description("SearchTask.filterTasks answering a query")
+    @StackTrace(false)
+    static final class Search extends Event {
+        @Label("Query")
+        String query;
+
+        @Label("Hits")
+        int hits;
+
+        @Label("Scanned")
+        @Description("Candidate tasks checked against every query word, or -1 for a fuzzy search")
+        int scanned;
+    }
+
+    /** Turning tasks into response text. */
+    @Name("sisyphus.Render")
+    @Label("Render")
+    @Category({"Sisyphus", "UI"})
+    @Description("Sisyphus.Ui writing numbered task lines")
+    @StackTrace(false)
+    static final class Render extends Event {
+        @Label("Tasks")
+        int tasks;
+
+        @Label("Characters")
+        @Description("Characters written, or -1 if the output does not say")
+        int characters;
+    }
+}
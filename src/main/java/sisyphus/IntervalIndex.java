@@ -0,0 +1,231 @@
+package sisyphus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interval tree over the events in a list, for "what is on at this time" and "what overlaps this window".
+ * <p>
+ * Events are nodes of a treap ordered by start (then task ID), and every node also holds the latest end
+ * in its subtree. A query skips any subtree that ends before the window and, past the window's end,
+ * everything to the right, so it takes O(log n + k) for k results, which come back in start order.
+ * Times are kept as minutes since the epoch; an event counts as taking [start, end), and one that does
+ * not end after it starts counts as taking its starting minute.
+ */
+class IntervalIndex {
+    private Node root;
+    private int size;
+    /** State of the xorshift generator that picks node priorities. */
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Creates an index over the events among the given tasks.
+     *
+     * @param tasks the tasks to index; only events are kept
+     */
+    IntervalIndex(Collection<Task> tasks) {
+        int i = 0;
+        for (Task t : tasks) {
+            Cancellation.check(i++);
+            add(t);
+        }
+    }
+
+    /**
+     * Indexes a task if it is an event.
+     *
+     * @param task the task to index
+     */
+    void add(Task task) {
+        if (!(task instanceof EventTask)) {
+            return;
+        }
+        EventTask event = (EventTask) task;
+        long start = minutes(event.getStart());
+        long end = Math.max(minutes(event.getEnd()), start + 1);
+        root = insert(root, new Node(event, start, end, nextPriority()));
+        size++;
+    }
+
+    /**
+     * Removes a task from the index; tasks that are not indexed are ignored.
+     *
+     * @param task the task to remove
+     */
+    void remove(Task task) {
+        if (!(task instanceof EventTask)) {
+            return;
+        }
+        root = delete(root, (EventTask) task, minutes(((EventTask) task).getStart()));
+    }
+
+    /**
+     * Returns the number of indexed events.
+     *
+     * @return the event count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the events taking place at a time.
+     *
+     * @param time the time
+     * @return events with start &lt;= time &lt; end, by start
+     */
+    List<EventTask> at(LocalDateTime time) {
+        long t = minutes(time);
+        return overlapping(t, t + 1);
+    }
+
+    /**
+     * Returns the events that overlap a window.
+     *
+     * @param from start of the window, inclusive
+     * @param to   end of the window, exclusive
+     * @return events with start &lt; to and end &gt; from, by start
+     */
+    List<EventTask> overlapping(LocalDateTime from, LocalDateTime to) {
+        return overlapping(minutes(from), minutes(to));
+    }
+
+    private List<EventTask> overlapping(long from, long to) {
+        List<EventTask> found = new ArrayList<>();
+        collect(root, from, to, found);
+        return found;
+    }
+
+    private static void collect(Node node, long from, long to, List<EventTask> found) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, found);
+        if (node.start >= to) {
+            return; // this node and everything to its right start too late
+        }
+        if (node.end > from) {
+            found.add(node.event);
+        }
+        collect(node.right, from, to, found);
+    }
+
+    /** Returns a time as minutes since the epoch, the unit intervals are stored in. */
+    static long minutes(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private long nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    private static boolean isBefore(Node a, long start, int id) {
+        return a.start < start || (a.start == start && a.event.getId() < id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            Node[] halves = split(node, added.start, added.event.getId());
+            added.left = halves[0];
+            added.right = halves[1];
+            return added.update();
+        }
+        if (isBefore(added, node.start, node.event.getId())) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return node.update();
+    }
+
+    /** Splits a subtree into the nodes ordered before (start, id) and the rest. */
+    private static Node[] split(Node node, long start, int id) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (isBefore(node, start, id)) {
+            Node[] halves = split(node.right, start, id);
+            node.right = halves[0];
+            halves[0] = node.update();
+            return halves;
+        }
+        Node[] halves = split(node.left, start, id);
+        node.left = halves[1];
+        halves[1] = node.update();
+        return halves;
+    }
+
+    private Node delete(Node node, EventTask event, long start) {
+        if (node == null) {
+            return null;
+        }
+        if (node.event == event) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (node.start > start || (node.start == start && node.event.getId() > event.getId())) {
+            node.left = delete(node.left, event, start);
+        } else if (node.start < start || node.event.getId() < event.getId()) {
+            node.right = delete(node.right, event, start);
+        } else {
+            // Same start and ID but another task, as in a list whose tasks were never given IDs.
+            node.left = delete(node.left, event, start);
+            node.right = delete(node.right, event, start);
+        }
+        return node.update();
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    /** One event, with the latest end in its subtree. */
+    private static final class Node {
+        private final EventTask event;
+        private final long start;
+        private final long end;
+        private final long priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(EventTask event, long start, long end, long priority) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        private Node update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package sisyphus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only log of task mutations made since the last snapshot of the data file.
+ * The first line is a header holding the CRC32 of the snapshot the records apply on top of,
+ * so a journal left behind by a crash after its snapshot was rewritten is recognised as stale.
+ * Every following line is one record; a last line without its newline is a torn write and is dropped.
+ * <p>
+ * A background checkpoint writes its snapshot while records keep arriving, so afterwards only the records
+ * before the snapshot can go. The records after it are first written to a {@code .next} journal for the new
+ * snapshot, which replaces this one once the snapshot is in place; recovery falls back to it if a crash
+ * came in between.
+ */
+class Journal {
+    /**
+     * When appended records are forced to disk.
+     */
+    enum SyncPolicy {
+        /** Force after every record; a record survives a crash once its command has returned. */
+        ALWAYS,
+        /** Leave flushing to the operating system; a crash may lose the most recent records. */
+        NEVER
+    }
+
+    private static final String HEADER_PREFIX = "# ";
+    private static final String SUFFIX = ".journal";
+    private static final String NEXT_SUFFIX = ".next";
+
+    private final Path path;
+    private final Path nextPath;
+    private final SyncPolicy syncPolicy;
+    private FileChannel channel;
+    /** Bumped whenever the records are rewritten, so positions taken before then are known to be stale. */
+    private long generation;
+
+    /**
+     * Creates a journal stored at the given path. Nothing is opened until {@link #recover} is called.
+     *
+     * @param path       the journal file
+     * @param syncPolicy when appended records are forced to disk
+     */
+    Journal(Path path, SyncPolicy syncPolicy) {
+        this.path = path;
+        this.nextPath = path.resolveSibling(path.getFileName() + NEXT_SUFFIX);
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * Returns the journal path that belongs to a data file.
+     *
+     * @param dataPath the data file path
+     * @return the path of its journal
+     */
+    static Path pathFor(String dataPath) {
+        return Paths.get(dataPath + SUFFIX);
+    }
+
+    /**
+     * Opens the journal for appending and returns the records still to be applied to the snapshot.
+     * A missing or stale journal is reset to an empty one for the given snapshot; a torn tail is cut off.
+     *
+     * @param snapshotChecksum CRC32 of the snapshot currently on disk
+     * @return the records to replay, in order
+     * @throws IOException if the journal cannot be read or opened
+     */
+    List<String> recover(long snapshotChecksum) throws IOException {
+        String header = HEADER_PREFIX + Long.toHexString(snapshotChecksum);
+        if (Files.exists(nextPath)) {
+            // A checkpoint got as far as its next journal; keep it only if its snapshot made it too.
+            if (startsWith(Files.readAllBytes(nextPath), header + "\n")) {
+                Files.move(nextPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(nextPath);
+            }
+        }
+        List<String> records = new ArrayList<>();
+        byte[] bytes = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        int lineStart = 0;
+        int validLength = 0;
+        boolean isCurrent = false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            if (lineStart == 0) {
+                isCurrent = line.equals(header);
+                if (!isCurrent) {
+                    break;
+                }
+            } else {
+                records.add(line);
+            }
+            lineStart = i + 1;
+            validLength = lineStart;
+        }
+        open();
+        if (isCurrent) {
+            channel.truncate(validLength);
+        } else {
+            records.clear();
+            reset(snapshotChecksum);
+        }
+        return records;
+    }
+
+    /**
+     * Discards every record and starts a journal on top of a new snapshot.
+     *
+     * @param snapshotChecksum CRC32 of the snapshot just written
+     * @throws IOException if the journal cannot be written
+     */
+    void reset(long snapshotChecksum) throws IOException {
+        generation++;
+        open();
+        channel.truncate(0);
+        write(HEADER_PREFIX + Long.toHexString(snapshotChecksum));
+        channel.force(false);
+    }
+
+    /**
+     * Appends one record, forcing it to disk if the sync policy says so.
+     *
+     * @param record the record text, without a trailing newline
+     * @throws IOException if the record cannot be written
+     */
+    void append(String record) throws IOException {
+        assert record.indexOf('\n') < 0 : "Journal records must fit on one line";
+        open();
+        write(record);
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Returns the current size of the journal in bytes.
+     *
+     * @return journal size, 0 if it has not been opened
+     * @throws IOException if the size cannot be read
+     */
+    long size() throws IOException {
+        return channel == null ? 0 : channel.size();
+    }
+
+    /**
+     * Returns a position that {@link #prepareRebase} can later cut the journal at.
+     *
+     * @return the current end of the records
+     * @throws IOException if the size cannot be read
+     */
+    Position position() throws IOException {
+        return new Position(generation, size());
+    }
+
+    /**
+     * Returns whether the records are still the ones a position was taken in.
+     *
+     * @param position a position from {@link #position()}
+     * @return false if the journal has been reset or rebased since
+     */
+    boolean isCurrent(Position position) {
+        return position.generation == generation;
+    }
+
+    /**
+     * Writes the records after a position to the next journal, headed by the checksum of a snapshot that
+     * holds everything before it. The caller moves the snapshot into place and then calls
+     * {@link #commitRebase()}; no records may be appended in between.
+     *
+     * @param position         where the new snapshot's contents end
+     * @param snapshotChecksum CRC32 of that snapshot
+     * @throws IOException if the next journal cannot be written
+     */
+    void prepareRebase(Position position, long snapshotChecksum) throws IOException {
+        assert isCurrent(position) : "Journal was rewritten after the position was taken";
+        ByteBuffer tail;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            tail = ByteBuffer.allocate((int) (in.size() - position.size));
+            while (tail.hasRemaining()) {
+                if (in.read(tail, position.size + tail.position()) < 0) {
+                    throw new IOException("Journal shrank while rebasing");
+                }
+            }
+        }
+        tail.flip();
+        ByteBuffer header = ByteBuffer.wrap((HEADER_PREFIX + Long.toHexString(snapshotChecksum) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        try (FileChannel next = FileChannel.open(nextPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || tail.hasRemaining()) {
+                next.write(new ByteBuffer[] {header, tail});
+            }
+            next.force(false);
+        }
+    }
+
+    /**
+     * Replaces this journal with the one written by {@link #prepareRebase}.
+     *
+     * @throws IOException if it cannot be moved into place or reopened
+     */
+    void commitRebase() throws IOException {
+        generation++;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Files.move(nextPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    /**
+     * Closes the journal file, if it is open. Nothing can be appended afterwards.
+     */
+    void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // records already written stay written; closing only releases the file
+        }
+        channel = null;
+    }
+
+    /**
+     * Returns the data file path this journal belongs to.
+     *
+     * @return the data path
+     */
+    String getDataPath() {
+        String journalPath = path.toString();
+        return journalPath.substring(0, journalPath.length() - SUFFIX.length());
+    }
+
+    private void open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, String prefix) {
+        byte[] expected = prefix.getBytes(StandardCharsets.UTF_8);
+        return bytes.length >= expected.length
+                && Arrays.equals(bytes, 0, expected.length, expected, 0, expected.length);
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A point in the journal: its size in bytes within one generation of records.
+     */
+    static final class Position {
+        private final long generation;
+        private final long size;
+
+        private Position(long generation, long size) {
+            this.generation = generation;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package sisyphus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative values, such as latencies in nanoseconds, in the manner of
+ * HdrHistogram: each power of two is split into {@link #SUB_BUCKETS} equal buckets, so any value is
+ * reported to within about 3% while the whole range of a long fits in under 2000 counters. Recording
+ * is a few atomic increments and never allocates; percentiles are read by walking the counters.
+ */
+final class LatencyHistogram {
+    /** Buckets per power of two, a power of two itself; values below twice this are counted exactly. */
+    static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BITS) * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value.
+     *
+     * @param value the value; negative values count as 0
+     */
+    void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(v));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count
+     */
+    long count() {
+        return total.sum();
+    }
+
+    /**
+     * Returns the largest value recorded, exactly.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return the total, such as the time spent over all runs
+     */
+    long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    long mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * Returns the value below which the given share of recorded values fall, to bucket precision.
+     *
+     * @param percentile between 0 and 100
+     * @return the highest value in the bucket holding that rank, capped at the maximum; 0 if empty
+     */
+    long percentile(double percentile) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max());
+            }
+        }
+        return max();
+    }
+
+    /** Returns the bucket of a value: values below 2 * SUB_BUCKETS map to themselves. */
+    static int indexOf(long value) {
+        int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /** Returns the largest value that falls in a bucket. */
+    static long highestIn(int index) {
+        int shift = Math.max(0, index / SUB_BUCKETS - 1);
+        long sub = index - (long) shift * SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
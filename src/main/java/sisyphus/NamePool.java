@@ -0,0 +1,145 @@
+package sisyphus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out one shared String for task names that are equal, so a list full of "standup" and "pay rent"
+ * keeps a single copy of each rather than one per task.
+ * <p>
+ * The pool is a fixed table indexed by the name's hash, with each slot holding the last name that
+ * landed there: memory stays bounded however many distinct names go through it, and nothing needs
+ * removing when tasks are deleted. A name decoded from bytes is compared with the slot before a String
+ * is made, so a hit allocates nothing. Plain ASCII names are copied straight into Latin-1 Strings, which
+ * keep one byte per character. Names longer than {@link #MAX_LENGTH} are rarely repeated and skip the pool.
+ * Slots are read and written without locks; a String is immutable, so a race only costs a miss.
+ */
+final class NamePool {
+    /** Longest name, in bytes or characters, that is pooled. */
+    static final int MAX_LENGTH = 64;
+    /** The pool task names are loaded, parsed and decoded through. */
+    static final NamePool SHARED = new NamePool(Integer.getInteger("sisyphus.names.poolSize", 1 << 14));
+
+    private final String[] slots;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param size number of slots, rounded up to a power of two
+     */
+    NamePool(int size) {
+        slots = new String[Integer.highestOneBit(Math.max(1, size - 1)) << 1];
+    }
+
+    /**
+     * Returns the pooled name equal to a String, adding it if none is pooled.
+     *
+     * @param name the name
+     * @return an equal String, the same instance for every equal name while it stays pooled
+     */
+    String intern(String name) {
+        if (name.length() > MAX_LENGTH) {
+            return name;
+        }
+        lookups.increment();
+        int slot = slotOf(name.hashCode());
+        String pooled = slots[slot];
+        if (name.equals(pooled)) {
+            hits.increment();
+            return pooled;
+        }
+        slots[slot] = name;
+        return name;
+    }
+
+    /**
+     * Returns the pooled name equal to the UTF-8 text in b[from, to), decoding it only if none is pooled.
+     *
+     * @param b    the bytes holding the name
+     * @param from start of the name, inclusive
+     * @param to   end of the name, exclusive
+     * @return the decoded name
+     */
+    String intern(byte[] b, int from, int to) {
+        return lookUp(b, from, to, true);
+    }
+
+    /**
+     * Returns a name as {@link #intern(byte[], int, int)} does, without counting the lookup in
+     * {@link #lookups()} or {@link #hits()}. For names decoded only to be shown, which would otherwise
+     * swamp the figures for names kept in tasks.
+     *
+     * @param b    the bytes holding the name
+     * @param from start of the name, inclusive
+     * @param to   end of the name, exclusive
+     * @return the decoded name
+     */
+    String decode(byte[] b, int from, int to) {
+        return lookUp(b, from, to, false);
+    }
+
+    private String lookUp(byte[] b, int from, int to, boolean isCounted) {
+        int length = to - from;
+        if (length > MAX_LENGTH) {
+            return new String(b, from, length, StandardCharsets.UTF_8);
+        }
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            if (b[i] < 0) {
+                String name = new String(b, from, length, StandardCharsets.UTF_8);
+                return isCounted ? intern(name) : name;
+            }
+            hash = 31 * hash + b[i]; // String.hashCode, as ASCII bytes are the characters
+        }
+        if (isCounted) {
+            lookups.increment();
+        }
+        int slot = slotOf(hash);
+        String pooled = slots[slot];
+        if (pooled != null && matches(pooled, b, from, length)) {
+            if (isCounted) {
+                hits.increment();
+            }
+            return pooled;
+        }
+        String name = new String(b, from, length, StandardCharsets.ISO_8859_1);
+        slots[slot] = name;
+        return name;
+    }
+
+    private static boolean matches(String pooled, byte[] b, int from, int length) {
+        if (pooled.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pooled.charAt(i) != b[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotOf(int hash) {
+        return (hash ^ hash >>> 16) & (slots.length - 1);
+    }
+
+    /**
+     * Returns how many names have been looked up in the pool so far.
+     *
+     * @return lookups, not counting names too long to pool
+     */
+    long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Returns how many lookups found the name already pooled, each saving a copy of it.
+     *
+     * @return hits so far
+     */
+    long hits() {
+        return hits.sum();
+    }
+}
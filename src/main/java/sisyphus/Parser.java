@@ -1,5 +1,13 @@
 package sisyphus;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 /**
  * Parses user input and performs actions on storage and the in-memory task list.
  */
@@ -16,6 +24,14 @@ public class Parser {
     private static final String CMD_DEADLINE = "deadline";
     private static final String CMD_EVENT = "event";
     private static final String CMD_DELETE = "delete";
+    private static final String CMD_CONVERT = "convert";
+    private static final String CMD_BETWEEN = "between";
+    private static final String CMD_MORE = "more";
+    private static final String CMD_AT = "at";
+    private static final String CMD_BUSY = "busy";
+    private static final String CMD_FREE = "free";
+    private static final String CMD_UPCOMING = "upcoming";
+    private static final String CMD_STATS = "stats";
 
     // Common messages
     private static final String MSG_INVALID = "Invalid command, you are wrong.";
@@ -25,219 +41,818 @@ public class Parser {
     private static final String MSG_MISSING_DEADLINE = "No deadline specified!\n";
     private static final String MSG_MISSING_FROM = "No from specified!";
     private static final String MSG_MISSING_TO = "No to specified!";
+    private static final char TASK_ID_PREFIX = '#';
     private static final String MSG_TASK_NOT_FOUND_PREFIX = "Task ";
     private static final String MSG_TASK_NOT_FOUND_SUFFIX = " does not exist";
     private static final String MSG_DELETE_NOT_SPECIFIED = "Task to delete has not been specified!\n";
     private static final String MSG_DELETE_INCORRECT = "Incorrect input!\n";
     private static final String MSG_DELETE_EMPTY = "There aren't any tasks to delete!\n";
     private static final String MSG_DELETE_NOT_EXIST = "The task to delete does not exist!\n";
+    private static final String MSG_DELETE_NONE = "No tasks match, nothing was removed.\n";
+    private static final String MSG_DELETE_BEFORE_USAGE = "Usage: delete before <yyyy-MM-dd or yyyy-MM-dd HH:mm>\n";
+    private static final String WORD_DONE = "done";
+    private static final String WORD_BEFORE = "before";
+    private static final String MSG_CONVERT_USAGE = "Usage: convert <text|binary>\n";
+    private static final String MSG_BYE_NOT_SAVED =
+            "Not saved: the data file could not be loaded, so it was left as it was.\n";
+    private static final String MSG_CONVERT_NO_FILE = "This session has no data file to convert.\n";
+    private static final String MSG_LIST_USAGE = "Usage: list [page] [page size]\n";
+    private static final String MSG_NO_MORE = "There is nothing more to show.\n";
+    private static final String MSG_BETWEEN_USAGE = "Usage: between <from> <to>, each yyyy-MM-dd or yyyy-MM-dd HH:mm\n";
+    private static final String MSG_AT_USAGE = "Usage: at <yyyy-MM-dd or yyyy-MM-dd HH:mm>\n";
+    private static final String MSG_BUSY_USAGE = "Usage: busy <from> <to>, each yyyy-MM-dd or yyyy-MM-dd HH:mm\n";
+    private static final String MSG_FREE_USAGE = "Usage: free <duration, e.g. 45m, 2h or 1h30m> on <yyyy-MM-dd>\n";
+    private static final String MSG_UPCOMING_USAGE = "Usage: upcoming [number of tasks]\n";
+    private static final String WORD_ON = "on";
+    /** Tasks shown by upcoming without a count. */
+    private static final int DEFAULT_UPCOMING = 10;
+    /** Marks a find query as fuzzy, e.g. find ~standp. */
+    private static final String FUZZY_PREFIX = "~";
+    /** Most tasks a fuzzy find ranks and shows, across all its pages. */
+    private static final int MAX_FUZZY_HITS = 50;
+    /** Most clashing events named in the warning when an event is added. */
+    private static final int MAX_OVERLAPS_SHOWN = 3;
+
+    private static final String[] COMMANDS = {
+        CMD_MANUAL, CMD_BYE, CMD_LIST, CMD_SORTED, CMD_FIND, CMD_MARK, CMD_UNMARK, CMD_TODO,
+        CMD_DEADLINE, CMD_EVENT, CMD_DELETE, CMD_CONVERT, CMD_BETWEEN, CMD_MORE, CMD_AT, CMD_BUSY, CMD_FREE,
+        CMD_UPCOMING, CMD_STATS
+    };
+
+    /** One reusable tokenizer per thread, since a shared session is driven from several threads. */
+    private static final ThreadLocal<CommandLine> COMMAND_LINES = ThreadLocal.withInitial(CommandLine::new);
+
+    /** Where the last paged list, find or latest stopped, or null if it showed everything. */
+    private PageCursor cursor;
+
+    /**
+     * Parses a raw command line and updates storage and the task list accordingly.
+     * Supported commands: bye, list, find, latest, more, mark, unmark, todo, deadline, event, delete, convert,
+     * between, at, busy, free, upcoming, stats.
+     * Each run is timed into {@link Stats} under its command word unless stats are off, and emitted as an
+     * {@link Events.Command} for Flight Recorder.
+     * Words are separated by single spaces; the line is tokenized in place, so only the fields
+     * a command keeps are copied out of it.
+     *
+     * @param input          the user input
+     * @param storageManager the storage instance that journals mutations and saves on exit
+     * @param todoList       the task list to operate on
+     * @return response message
+     */
+    public String readAndRespond(CharSequence input, Storage storageManager, TaskList todoList) {
+        CommandLine line = COMMAND_LINES.get().reset(input);
+        if (line.count() == 0 || line.isBlank(0)) {
+            return MSG_INVALID;
+        }
+        String command = commandOf(line);
+        if (command == null) {
+            return MSG_INVALID;
+        }
+        Events.Command event = new Events.Command();
+        event.begin();
+        Stats.Timer timer = Stats.IS_ENABLED ? Stats.GLOBAL.command(command) : null;
+        long allocated = timer == null ? 0 : Stats.allocatedBytes();
+        long started = System.nanoTime();
+        String response = null;
+        try {
+            response = dispatch(command, line, storageManager, todoList);
+            return response;
+        } finally {
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, Stats.allocatedBytes() - allocated);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.command = command;
+                event.tasks = todoList.size();
+                event.responseLength = response == null ? -1 : response.length();
+                event.commit();
+            }
+        }
+    }
 
     /**
-     * Parses a tokenized user command and updates storage and the task list accordingly.
-     * Supported commands: bye, list, find, mark, unmark, todo, deadline, event, delete.
+     * Parses an already tokenized user command; the tokens are joined back with single spaces.
      *
      * @param tokens         the tokenized input (split by spaces)
-     * @param storageManager the storage instance used for persistence on exit
+     * @param storageManager the storage instance that journals mutations and saves on exit
      * @param todoList       the task list to operate on
      * @return response message
      */
     public String readAndRespond(String[] tokens, Storage storageManager, TaskList todoList) {
-        if (tokens == null || tokens.length == 0 || tokens[0].isBlank()) {
+        if (tokens == null || tokens.length == 0) {
             return MSG_INVALID;
         }
-        String command = tokens[0];
+        return readAndRespond(String.join(" ", tokens), storageManager, todoList);
+    }
+
+    private String dispatch(String command, CommandLine line, Storage storageManager, TaskList todoList) {
         return switch (command) {
         case CMD_MANUAL -> handleManual();
         case CMD_BYE -> handleBye(storageManager, todoList);
-        case CMD_LIST -> Sisyphus.Ui.printTasks(todoList);
-        case CMD_SORTED -> Sisyphus.Ui.printTasksByLatestFirst(todoList);
-        case CMD_FIND -> handleFind(tokens, todoList);
-        case CMD_MARK -> handleMark(tokens, todoList, true);
-        case CMD_UNMARK -> handleMark(tokens, todoList, false);
-        case CMD_TODO -> handleTodo(tokens, todoList);
-        case CMD_DEADLINE -> handleDeadline(tokens, todoList);
-        case CMD_EVENT -> handleEvent(tokens, todoList);
-        case CMD_DELETE -> handleDelete(tokens, todoList);
+        case CMD_LIST -> handleList(line, todoList);
+        case CMD_SORTED -> latestPage(todoList, 0, Sisyphus.Ui.DEFAULT_PAGE_SIZE);
+        case CMD_MORE -> handleMore(todoList);
+        case CMD_BETWEEN -> handleBetween(line, todoList);
+        case CMD_AT -> handleAt(line, todoList);
+        case CMD_BUSY -> handleBusy(line, todoList);
+        case CMD_FREE -> handleFree(line, todoList);
+        case CMD_UPCOMING -> handleUpcoming(line, todoList);
+        case CMD_STATS -> Stats.GLOBAL.getReport();
+        case CMD_FIND -> handleFind(line, todoList);
+        case CMD_MARK -> handleMark(line, storageManager, todoList, true);
+        case CMD_UNMARK -> handleMark(line, storageManager, todoList, false);
+        case CMD_TODO -> handleTodo(line, storageManager, todoList);
+        case CMD_DEADLINE -> handleDeadline(line, storageManager, todoList);
+        case CMD_EVENT -> handleEvent(line, storageManager, todoList);
+        case CMD_DELETE -> handleDelete(line, storageManager, todoList);
+        case CMD_CONVERT -> handleConvert(line, storageManager, todoList);
         default -> MSG_INVALID;
         };
     }
 
+    /**
+     * Returns whether a command line only reads the task list: list, latest, between, at, busy, free,
+     * upcoming, stats, find, more, manual, and anything that is not a valid command. Such commands are safe to
+     * cancel midway.
+     *
+     * @param input the user input
+     * @return true if running the input cannot change tasks or files
+     */
+    public static boolean isReadOnly(CharSequence input) {
+        CommandLine line = COMMAND_LINES.get().reset(input);
+        String command = line.count() == 0 ? null : commandOf(line);
+        if (command == null) {
+            return true;
+        }
+        return switch (command) {
+        case CMD_MANUAL, CMD_LIST, CMD_SORTED, CMD_BETWEEN, CMD_AT, CMD_BUSY, CMD_FREE, CMD_UPCOMING, CMD_STATS,
+                CMD_FIND, CMD_MORE -> true;
+        default -> false;
+        };
+    }
+
+    /** Returns the command constant the first token names, or null, without copying the token. */
+    private static String commandOf(CommandLine line) {
+        for (String command : COMMANDS) {
+            if (line.tokenEquals(0, command)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
     /** Manual help text. */
     private String handleManual() {
         return """
                 todo <task> for a simple todo
                 deadline <task> /by <time> for a time that ends by a certain time
                 event <task> /from <time> /to <time> for a time that ends by a certain time
-                list to show all tasks
+                list [page] [page size] to show tasks, a page at a time
+                find <words> to show tasks whose names contain all the words
+                find ~<words> to show the closest matches, ignoring case and small typos, e.g. find ~standp
                 delete <task number> to delete task
                 mark <task number> or unmark <task>
-                latest to show all tasks from earliest to latest deadline/starting time""";
+                mark, unmark and delete also take ranges, e.g. mark 1-5000 or unmark 10,12,40-90
+                delete done or delete before <date> to delete finished or past tasks at once
+                a task number can also be #<id>, the id shown when it was added, which never changes
+                latest to show all tasks from earliest to latest deadline/starting time
+                more to show the next page of the last list, find or latest
+                between <from> <to> to show deadlines and events starting in that window
+                at <time> to show the events going on at that time
+                busy <from> <to> to show the events that overlap that window
+                free <duration> on <date> to find gaps between events that long, e.g. free 1h30m on 2026-01-05
+                upcoming [n] to show the next n deadlines and events not yet done
+                stats to show how often each command ran, how long it took and what loading and saving cost
+                convert <text|binary> to rewrite the data file in that format""";
     }
 
-    /** Handles bye command including saving tasks if any exist. */
+    /**
+     * Handles bye command including saving tasks, even none, if a data file is loaded. A data file that
+     * failed to load is left as it is, since the list holds only part of it.
+     */
     private String handleBye(Storage storageManager, TaskList todoList) {
         StringBuilder sb = new StringBuilder();
-        if (!todoList.isEmpty()) {
-            storageManager.saveFile(todoList.getTasks(), Sisyphus.DATA_PATH);
-            sb.append("Saved.\n");
-        }
+        todoList.atomically(() -> {
+            String dataPath = storageManager.getDataPath();
+            if (storageManager.getLoadError() != null) {
+                sb.append(MSG_BYE_NOT_SAVED);
+            } else if (dataPath != null && storageManager.saveFile(todoList, dataPath)) {
+                sb.append("Saved.\n");
+            }
+            return null;
+        });
         sb.append("    See you!");
         return sb.toString();
     }
 
+    /**
+     * Returns the token where the second of two date-times starts in {@code <command> <from> <to>},
+     * each a date or a date and time, or -1 if the line is not of that shape.
+     */
+    private static int windowSplit(CommandLine line) {
+        int count = line.count();
+        int toStart = count > 2 && line.contains(2, ':') ? 3 : 2;
+        if (count <= toStart || count > toStart + 2
+                || (count == toStart + 2 && !line.contains(toStart + 1, ':'))) {
+            return -1;
+        }
+        return toStart;
+    }
+
+    /**
+     * Parses a window's bounds, making the upper one exclusive: past the whole day for a date, past the
+     * minute otherwise. Returns null if either bound is not a valid date-time.
+     */
+    private static LocalDateTime[] parseWindow(String fromString, String toString) {
+        try {
+            LocalDateTime from = DateTimeParser.parse(fromString);
+            LocalDateTime to = DateTimeParser.parse(toString);
+            return new LocalDateTime[] {from, toString.contains(":") ? to.plusMinutes(1) : to.plusDays(1)};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** Handles at command: the events going on at a time, a date meaning its start. */
+    private String handleAt(CommandLine line, TaskList todoList) {
+        if (line.count() < 2 || line.count() > 3) {
+            return MSG_AT_USAGE;
+        }
+        String timeString = line.text(1, line.count());
+        LocalDateTime time;
+        try {
+            time = DateTimeParser.parse(timeString);
+        } catch (DateTimeParseException e) {
+            return MSG_AT_USAGE;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Events at ").append(timeString).append("\n");
+        sb.append(Sisyphus.Ui.divider);
+        sb.append(Sisyphus.Ui.printTasks(new TaskList(new ArrayList<>(todoList.eventsAt(time)))));
+        return sb.toString();
+    }
+
+    /**
+     * Handles upcoming command: the next deadlines and event starts from now that are not done,
+     * earliest first, read from the list's pending index so only the tasks shown are visited.
+     */
+    private String handleUpcoming(CommandLine line, TaskList todoList) {
+        int limit = DEFAULT_UPCOMING;
+        if (line.count() > 2) {
+            return MSG_UPCOMING_USAGE;
+        }
+        if (line.count() == 2) {
+            try {
+                limit = line.parseInt(1);
+            } catch (NumberFormatException e) {
+                return MSG_UPCOMING_USAGE;
+            }
+            if (limit < 1) {
+                return MSG_UPCOMING_USAGE;
+            }
+        }
+        List<Task> upcoming = todoList.upcoming(LocalDateTime.now(), limit);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Next ").append(upcoming.size()).append(upcoming.size() == 1 ? " due task" : " due tasks")
+                .append("\n");
+        sb.append(Sisyphus.Ui.divider);
+        sb.append(Sisyphus.Ui.printTasks(new TaskList(new ArrayList<>(upcoming))));
+        return sb.toString();
+    }
+
+    /** Handles busy command: the events overlapping a window, with the same bounds as between. */
+    private String handleBusy(CommandLine line, TaskList todoList) {
+        int toStart = windowSplit(line);
+        if (toStart < 0) {
+            return MSG_BUSY_USAGE;
+        }
+        String fromString = line.text(1, toStart);
+        String toString = line.text(toStart, line.count());
+        LocalDateTime[] window = parseWindow(fromString, toString);
+        if (window == null) {
+            return MSG_BUSY_USAGE;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Events between ").append(fromString).append(" and ").append(toString).append("\n");
+        sb.append(Sisyphus.Ui.divider);
+        List<EventTask> events = todoList.eventsOverlapping(window[0], window[1]);
+        sb.append(Sisyphus.Ui.printTasks(new TaskList(new ArrayList<>(events))));
+        return sb.toString();
+    }
+
+    /** Handles free command: the gaps between events on a day that are at least a given length. */
+    private String handleFree(CommandLine line, TaskList todoList) {
+        if (line.count() != 4 || !line.tokenEquals(2, WORD_ON)) {
+            return MSG_FREE_USAGE;
+        }
+        long minutes = parseDuration(line.token(1));
+        LocalDateTime dayStart = DateTimeParser.tryParse(line.token(3));
+        if (minutes <= 0 || dayStart == null || line.contains(3, ':')) {
+            return MSG_FREE_USAGE;
+        }
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Free for at least ").append(line.token(1)).append(" on ").append(line.token(3)).append("\n");
+        sb.append(Sisyphus.Ui.divider);
+        LocalDateTime gapStart = dayStart;
+        int found = 0;
+        // Events come back by start, so one sweep tracking the latest end so far finds every gap.
+        for (EventTask event : todoList.eventsOverlapping(dayStart, dayEnd)) {
+            if (event.getStart().isAfter(gapStart)) {
+                found += appendGap(sb, gapStart, event.getStart(), minutes, dayEnd);
+            }
+            if (event.getEnd().isAfter(gapStart)) {
+                gapStart = event.getEnd();
+            }
+        }
+        if (dayEnd.isAfter(gapStart)) {
+            found += appendGap(sb, gapStart, dayEnd, minutes, dayEnd);
+        }
+        if (found == 0) {
+            sb.append("No free slot that long.\n");
+        }
+        return sb.toString();
+    }
+
+    /** Appends a gap as "    HH:mm-HH:mm" if it is long enough, returning 1 if it was. */
+    private static int appendGap(StringBuilder sb, LocalDateTime from, LocalDateTime to, long minutes,
+            LocalDateTime dayEnd) {
+        if (IntervalIndex.minutes(to) - IntervalIndex.minutes(from) < minutes) {
+            return 0;
+        }
+        sb.append("    ").append(from.toLocalTime()).append('-')
+                .append(to.equals(dayEnd) ? "24:00" : to.toLocalTime().toString()).append('\n');
+        return 1;
+    }
+
+    /** Parses a duration such as 45m, 2h or 1h30m into minutes, or returns -1 if it is not one. */
+    static long parseDuration(String text) {
+        long total = 0;
+        long value = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+            } else if ((c == 'h' || c == 'm') && value >= 0) {
+                total += c == 'h' ? value * 60 : value;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        return value < 0 && !text.isEmpty() ? total : -1;
+    }
+
     /** Handles find command. */
-    private String handleFind(String[] tokens, TaskList todoList) {
-        if (tokens.length < 2) {
+    private String handleFind(CommandLine line, TaskList todoList) {
+        if (line.count() < 2) {
             return "Invalid input"; // Keep legacy wording
         }
-        String query = tokens[1]; // original implementation used only token[1]
+        String query = line.trimmed(1, line.count());
+        if (query.isEmpty() || query.equals(FUZZY_PREFIX)) {
+            return "Invalid input";
+        }
+        return findPage(todoList, query, null, 0, Sisyphus.Ui.DEFAULT_PAGE_SIZE);
+    }
+
+    /** Handles list command: the first page by default, or the given page and page size. */
+    private String handleList(CommandLine line, TaskList todoList) {
+        int count = line.count();
+        if (count > 3) {
+            return MSG_LIST_USAGE;
+        }
+        int page;
+        int size;
+        try {
+            page = count > 1 ? line.parseInt(1) : 1;
+            size = count > 2 ? line.parseInt(2) : Sisyphus.Ui.DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException e) {
+            return MSG_LIST_USAGE;
+        }
+        if (page < 1 || size < 1) {
+            return MSG_LIST_USAGE;
+        }
+        long offset = (long) (page - 1) * size;
+        int total = todoList.size();
+        if (offset > 0 && offset >= total) {
+            long pages = Math.max(1, (total + (long) size - 1) / size);
+            return "Page " + page + " does not exist, there " + (pages == 1 ? "is 1 page" : "are " + pages + " pages")
+                    + " of " + size + " tasks.\n";
+        }
+        return listPage(todoList, (int) offset, size);
+    }
+
+    /** Handles more command, continuing the last paged listing of this session. */
+    private String handleMore(TaskList todoList) {
+        PageCursor last = cursor;
+        if (last == null) {
+            return MSG_NO_MORE;
+        }
+        return switch (last.command) {
+        case CMD_FIND -> findPage(todoList, last.query, last.modCount == todoList.getModCount() ? last.hits : null,
+                last.offset, last.size);
+        case CMD_SORTED -> latestPage(todoList, last.offset, last.size);
+        default -> listPage(todoList, last.offset, last.size);
+        };
+    }
+
+    private String listPage(TaskList todoList, int offset, int size) {
+        StringBuilder sb = new StringBuilder();
+        appendPage(sb, todoList.getTasks(offset, size), offset, size, todoList.size(), CMD_LIST, null, null, 0);
+        return sb.toString();
+    }
+
+    /**
+     * Shows a page of the tasks matching a query. The hits found for the previous page are passed back in
+     * while the list is unchanged, so paging through them with more searches only once; null searches again.
+     */
+    private String findPage(TaskList todoList, String query, List<Task> hits, int offset, int size) {
+        StringBuilder sb = new StringBuilder();
+        long modCount = todoList.getModCount();
+        if (query.startsWith(FUZZY_PREFIX)) {
+            String fuzzyQuery = query.substring(FUZZY_PREFIX.length());
+            if (hits == null) {
+                hits = SearchTask.fuzzySearch(todoList, fuzzyQuery, MAX_FUZZY_HITS);
+            }
+            sb.append("Closest matches to query: ").append(fuzzyQuery).append("\n");
+        } else {
+            if (hits == null) {
+                hits = SearchTask.search(todoList, query);
+            }
+            sb.append("Filtering based on query: ").append(query).append("\n");
+        }
+        sb.append(Sisyphus.Ui.divider);
+        int from = Math.min(offset, hits.size());
+        List<Task> page = hits.subList(from, Math.min(hits.size(), from + size));
+        appendPage(sb, page, offset, size, hits.size(), CMD_FIND, query, hits, modCount);
+        return sb.toString();
+    }
+
+    private String latestPage(TaskList todoList, int offset, int size) {
+        StringBuilder sb = new StringBuilder();
+        appendPage(sb, todoList.sortedByTime(offset, size), offset, size, todoList.size(), CMD_SORTED, null, null, 0);
+        return sb.toString();
+    }
+
+    /**
+     * Appends one page of a listing and remembers where it ended, so that more can continue from there.
+     * A search also remembers its hits, and the list's modification count they were found at.
+     */
+    private void appendPage(StringBuilder sb, List<Task> page, int offset, int size, int total,
+            String command, String query, List<Task> hits, long modCount) {
+        if (page.isEmpty() && total > 0) {
+            // Tasks were removed since the previous page was shown.
+            cursor = null;
+            sb.append(MSG_NO_MORE);
+            return;
+        }
+        Sisyphus.Ui.printPage(page, offset, total, sb);
+        int next = offset + page.size();
+        cursor = next < total ? new PageCursor(command, query, hits, modCount, next, size) : null;
+    }
+
+    /**
+     * Handles between command. Each bound is a date or a date and time; both ends are inclusive,
+     * and a date-only upper bound covers that whole day.
+     */
+    private String handleBetween(CommandLine line, TaskList todoList) {
+        int toStart = windowSplit(line);
+        if (toStart < 0) {
+            return MSG_BETWEEN_USAGE;
+        }
+        String fromString = line.text(1, toStart);
+        String toString = line.text(toStart, line.count());
+        LocalDateTime[] window = parseWindow(fromString, toString);
+        if (window == null) {
+            return MSG_BETWEEN_USAGE;
+        }
+        LocalDateTime from = window[0];
+        LocalDateTime to = window[1];
         StringBuilder sb = new StringBuilder();
-        sb.append("Filtering based on query: ").append(query).append("\n");
+        sb.append("Tasks between ").append(fromString).append(" and ").append(toString).append("\n");
         sb.append(Sisyphus.Ui.divider);
-        sb.append(Sisyphus.Ui.printTasks(SearchTask.filterTasks(todoList, query)));
+        sb.append(Sisyphus.Ui.printTasks(new TaskList(new ArrayList<>(todoList.between(from, to)))));
         return sb.toString();
     }
 
     /** Handles mark/unmark logic. */
-    private String handleMark(String[] tokens, TaskList todoList, boolean mark) {
-        if (tokens.length < 2) {
+    private String handleMark(CommandLine line, Storage storageManager, TaskList todoList, boolean mark) {
+        if (line.count() < 2) {
             return MSG_TASK_NOT_FOUND_PREFIX + "?" + MSG_TASK_NOT_FOUND_SUFFIX; // ambiguous input
         }
-        int index;
-        try {
-            index = Integer.parseInt(tokens[1]);
-        } catch (NumberFormatException e) {
-            return MSG_TASK_NOT_FOUND_PREFIX + tokens[1] + MSG_TASK_NOT_FOUND_SUFFIX;
+        if (isRangeSpec(line, 1)) {
+            return markRanges(line, storageManager, todoList, mark);
         }
-        if (index < 1 || index > todoList.size()) {
-            return MSG_TASK_NOT_FOUND_PREFIX + tokens[1] + MSG_TASK_NOT_FOUND_SUFFIX;
+        if (!isTaskRef(line, 1)) {
+            return MSG_TASK_NOT_FOUND_PREFIX + line.token(1) + MSG_TASK_NOT_FOUND_SUFFIX;
         }
-        if (mark) {
-            todoList.get(index).complete();
-        } else {
-            todoList.get(index).incomplete();
+        int index = todoList.atomically(() -> {
+            int i = resolveTaskRef(line, 1, todoList); // resolved under the lock, as another session may delete
+            if (i > 0) {
+                todoList.setDone(i, mark);
+                storageManager.logMark(i, mark, todoList);
+            }
+            return i;
+        });
+        if (index < 0) {
+            return MSG_TASK_NOT_FOUND_PREFIX + line.token(1) + MSG_TASK_NOT_FOUND_SUFFIX;
         }
+        // Show the page the task is on rather than the whole list.
+        int size = Sisyphus.Ui.DEFAULT_PAGE_SIZE;
+        int offset = (index - 1) / size * size;
         StringBuilder sb = new StringBuilder();
         sb.append("Okay, task ").append(index).append(mark ? " is done\n" : " is not done yet\n");
-        sb.append(Sisyphus.Ui.printTasks(todoList));
+        appendPage(sb, todoList.getTasks(offset, size), offset, size, todoList.size(), CMD_LIST, null, null, 0);
         return sb.toString();
     }
 
+    /** Returns whether a token is a task reference: a number, or # and a number for a task ID. */
+    private static boolean isTaskRef(CommandLine line, int token) {
+        try {
+            line.parseInt(token, line.startsWith(token, TASK_ID_PREFIX) ? 1 : 0);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the 1-based position a task reference points to, or -1 if there is no such task.
+     * A number is a position in the list; #n is the task whose ID is n, wherever it is now.
+     */
+    private static int resolveTaskRef(CommandLine line, int token, TaskList todoList) {
+        if (line.startsWith(token, TASK_ID_PREFIX)) {
+            return todoList.indexOfId(line.parseInt(token, 1));
+        }
+        int index = line.parseInt(token);
+        return index >= 1 && index <= todoList.size() ? index : -1;
+    }
+
     /** Handles todo command. */
-    private String handleTodo(String[] tokens, TaskList todoList) {
-        if (tokens.length == 1) {
+    private String handleTodo(CommandLine line, Storage storageManager, TaskList todoList) {
+        if (line.count() == 1) {
             return MSG_MISSING_DESC_TODO;
         }
-        String description = join(tokens, 1, tokens.length).trim();
-        TodoTask newTodoTask = new TodoTask(description);
-        todoList.addTask(newTodoTask);
-        return buildAddResponse(newTodoTask, todoList.size(), false);
+        String description = line.trimmed(1, line.count());
+        TodoTask newTodoTask = new TodoTask(NamePool.SHARED.intern(description));
+        return buildAddResponse(newTodoTask, addAndLog(newTodoTask, storageManager, todoList), false);
     }
 
     /** Handles deadline command. */
-    private String handleDeadline(String[] tokens, TaskList todoList) {
-        if (tokens.length == 1) {
+    private String handleDeadline(CommandLine line, Storage storageManager, TaskList todoList) {
+        if (line.count() == 1) {
             return MSG_MISSING_DESC_DEADLINE;
         }
-        int byIndex = indexOf(tokens, "/by");
+        int byIndex = line.byIndex();
         if (byIndex == -1) {
             return MSG_MISSING_DEADLINE; // legacy message
         }
-        String description = join(tokens, 1, byIndex).trim();
-        String deadline = join(tokens, byIndex + 1, tokens.length).trim();
+        String deadline = line.trimmed(byIndex + 1, line.count());
         if (deadline.isEmpty()) {
             return MSG_MISSING_DEADLINE;
         }
-        DeadlineTask dt = new DeadlineTask(description + " ", deadline + " "); // preserve spacing legacy
-        todoList.addTask(dt);
-        return buildAddResponse(dt, todoList.size(), false);
+        // Names keep their legacy trailing space so existing data files and output stay the same.
+        DeadlineTask dt = new DeadlineTask(NamePool.SHARED.intern(line.trimmedWithSpace(1, byIndex)), deadline);
+        return buildAddResponse(dt, addAndLog(dt, storageManager, todoList), false);
     }
 
     /** Handles event command. */
-    private String handleEvent(String[] tokens, TaskList todoList) {
-        if (tokens.length == 1) {
+    private String handleEvent(CommandLine line, Storage storageManager, TaskList todoList) {
+        if (line.count() == 1) {
             return MSG_MISSING_DESC_EVENT;
         }
-        int fromIdx = indexOf(tokens, "/from");
-        int toIdx = indexOf(tokens, "/to");
+        int fromIdx = line.fromIndex();
+        int toIdx = line.toIndex();
         if (fromIdx == -1) {
             return MSG_MISSING_FROM;
         }
         if (toIdx == -1 || toIdx < fromIdx) {
             return MSG_MISSING_TO;
         }
-        String description = join(tokens, 1, fromIdx).trim();
-        String fromString = join(tokens, fromIdx + 1, toIdx).trim();
-        String toString = join(tokens, toIdx + 1, tokens.length).trim();
+        String fromString = line.trimmed(fromIdx + 1, toIdx);
+        String toString = line.trimmed(toIdx + 1, line.count());
         if (fromString.isEmpty()) {
             return MSG_MISSING_FROM;
         }
         if (toString.isEmpty()) {
             return MSG_MISSING_TO;
         }
-        EventTask et = new EventTask(description + " ", fromString + " ", toString + " ");
-        todoList.addTask(et);
-        return buildAddResponse(et, todoList.size(), true);
+        EventTask et = new EventTask(NamePool.SHARED.intern(line.trimmedWithSpace(1, fromIdx)), fromString, toString);
+        String response = buildAddResponse(et, addAndLog(et, storageManager, todoList), true);
+        return response + buildOverlapWarning(et, todoList);
+    }
+
+    /** Returns a warning naming the events a new one clashes with, or "" if it clashes with none. */
+    private String buildOverlapWarning(EventTask added, TaskList todoList) {
+        LocalDateTime end = added.getEnd().isAfter(added.getStart()) ? added.getEnd() : added.getStart().plusMinutes(1);
+        List<EventTask> clashes = todoList.eventsOverlapping(added.getStart(), end);
+        clashes.removeIf(e -> e.getId() == added.getId()); // by ID, as a list may hand back copies
+        if (clashes.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("    Warning: this overlaps ").append(clashes.size())
+                .append(clashes.size() == 1 ? " other event:\n" : " other events:\n");
+        for (int i = 0; i < Math.min(clashes.size(), MAX_OVERLAPS_SHOWN); i++) {
+            sb.append("      ").append(clashes.get(i)).append(" (#").append(clashes.get(i).getId()).append(")\n");
+        }
+        if (clashes.size() > MAX_OVERLAPS_SHOWN) {
+            sb.append("      and ").append(clashes.size() - MAX_OVERLAPS_SHOWN).append(" more\n");
+        }
+        return sb.toString();
     }
 
     /** Handles delete command. */
-    private String handleDelete(String[] tokens, TaskList todoList) {
-        if (tokens.length == 1) {
+    private String handleDelete(CommandLine line, Storage storageManager, TaskList todoList) {
+        if (line.count() == 1) {
             return MSG_DELETE_NOT_SPECIFIED;
         }
-        if (tokens.length > 2) {
+        boolean isBefore = line.tokenEquals(1, WORD_BEFORE);
+        if (isBefore && (line.count() < 3 || line.count() > 4)) {
+            return MSG_DELETE_BEFORE_USAGE;
+        }
+        if (!isBefore && line.count() > 2) {
             return MSG_DELETE_INCORRECT;
         }
         if (todoList.isEmpty()) {
             return MSG_DELETE_EMPTY;
         }
-        int index;
-        try {
-            index = Integer.parseInt(tokens[1]);
-        } catch (NumberFormatException e) {
-            return MSG_DELETE_NOT_EXIST;
+        if (isBefore) {
+            LocalDateTime bound;
+            try {
+                bound = DateTimeParser.parse(line.text(2, line.count()));
+            } catch (DateTimeParseException e) {
+                return MSG_DELETE_BEFORE_USAGE;
+            }
+            Predicate<Task> isPast = t -> {
+                LocalDateTime time = TimeIndex.timeOf(t);
+                return time != null && time.isBefore(bound);
+            };
+            return deleteWhere(list -> list.removeTasks(isPast), storageManager, todoList);
         }
-        if (index < 1 || index > todoList.size()) {
+        if (line.tokenEquals(1, WORD_DONE)) {
+            return deleteWhere(TaskList::removeDone, storageManager, todoList);
+        }
+        if (isRangeSpec(line, 1)) {
+            return deleteRanges(line, storageManager, todoList);
+        }
+        if (!isTaskRef(line, 1)) {
             return MSG_DELETE_NOT_EXIST;
         }
         StringBuilder sb = new StringBuilder();
-        sb.append("I have removed this task: ").append(todoList.get(index));
-        todoList.removeTask(index);
-        sb.append("You now have ").append(todoList.size()).append(" tasks in the list.\n");
+        int remaining = todoList.atomically(() -> {
+            int index = resolveTaskRef(line, 1, todoList); // resolved under the lock, as another session may delete
+            if (index < 0) {
+                return -1;
+            }
+            sb.append("I have removed this task: ").append(todoList.removeTask(index));
+            storageManager.logDelete(index, todoList);
+            return todoList.size();
+        });
+        if (remaining < 0) {
+            return MSG_DELETE_NOT_EXIST;
+        }
+        sb.append("You now have ").append(remaining).append(" tasks in the list.\n");
         return sb.toString();
     }
 
-    /** Builds the standard add-task response. */
-    private String buildAddResponse(Task task, int size, boolean indent) {
-        String prefix = indent ? "    " : "";
-        StringBuilder sb = new StringBuilder();
-        sb.append(prefix).append("added: ").append(task).append("\n");
-        sb.append(prefix).append("You now have ").append(size).append(" tasks in the list.\n");
-        return sb.toString();
+    /** Returns whether a token lists positions and ranges, such as 1-5000 or 10,12,40-90, rather than one task. */
+    private static boolean isRangeSpec(CommandLine line, int token) {
+        return !line.startsWith(token, TASK_ID_PREFIX) && (line.contains(token, ',') || line.contains(token, '-'));
     }
 
-    /** Returns index of token, or -1. */
-    private int indexOf(String[] tokens, String target) {
-        for (int i = 0; i < tokens.length; i++) {
-            if (target.equals(tokens[i])) {
-                return i;
+    /** Marks or unmarks every listed position in one pass and one journal record, answering with a summary. */
+    private String markRanges(CommandLine line, Storage storageManager, TaskList todoList, boolean mark) {
+        RangeSet requested = RangeSet.parse(line.token(1));
+        if (requested == null) {
+            return MSG_TASK_NOT_FOUND_PREFIX + line.token(1) + MSG_TASK_NOT_FOUND_SUFFIX;
+        }
+        int[] changed = {0};
+        RangeSet positions = todoList.atomically(() -> {
+            RangeSet existing = requested.upTo(todoList.size());
+            if (!existing.isEmpty()) {
+                changed[0] = todoList.setDone(existing, mark);
+                storageManager.logMark(existing, mark, todoList);
             }
+            return existing;
+        });
+        if (positions.isEmpty()) {
+            return MSG_TASK_NOT_FOUND_PREFIX + line.token(1) + MSG_TASK_NOT_FOUND_SUFFIX;
         }
-        return -1;
+        int selected = positions.size();
+        return "Okay, " + selected + (mark ? " tasks are done" : " tasks are not done yet")
+                + " (" + changed[0] + " changed, " + (selected - changed[0]) + " already were).\n";
     }
 
-    /** Joins tokens from start (inclusive) to end (exclusive) separated by spaces. */
-    private String join(String[] tokens, int start, int end) {
-        if (start >= end) {
-            return "";
+    /** Deletes every listed position in one pass and one journal record. */
+    private String deleteRanges(CommandLine line, Storage storageManager, TaskList todoList) {
+        RangeSet requested = RangeSet.parse(line.token(1));
+        if (requested == null) {
+            return MSG_DELETE_NOT_EXIST;
         }
-        StringBuilder sb = new StringBuilder();
-        for (int i = start; i < end; i++) {
-            sb.append(tokens[i]);
-            if (i < end - 1) {
-                sb.append(' ');
+        int[] removed = {0};
+        int remaining = todoList.atomically(() -> {
+            RangeSet existing = requested.upTo(todoList.size());
+            if (existing.isEmpty()) {
+                return -1;
             }
+            removed[0] = todoList.removeTasks(existing);
+            storageManager.logDelete(existing, todoList);
+            return todoList.size();
+        });
+        if (remaining < 0) {
+            return MSG_DELETE_NOT_EXIST;
         }
+        return buildBulkDeleteResponse(removed[0], remaining);
+    }
+
+    /** Deletes the tasks the remover takes out of the list, in one pass and one journal record. */
+    private String deleteWhere(Function<TaskList, RangeSet> remover, Storage storageManager, TaskList todoList) {
+        int[] removed = {0};
+        int remaining = todoList.atomically(() -> {
+            RangeSet positions = remover.apply(todoList);
+            if (!positions.isEmpty()) {
+                removed[0] = positions.size();
+                storageManager.logDelete(positions, todoList);
+            }
+            return todoList.size();
+        });
+        return buildBulkDeleteResponse(removed[0], remaining);
+    }
+
+    private static String buildBulkDeleteResponse(int removed, int remaining) {
+        if (removed == 0) {
+            return MSG_DELETE_NONE;
+        }
+        return "I have removed " + removed + " tasks.\nYou now have " + remaining + " tasks in the list.\n";
+    }
+
+    /** Handles convert command, rewriting the data file in the requested format. */
+    private String handleConvert(CommandLine line, Storage storageManager, TaskList todoList) {
+        if (line.count() != 2) {
+            return MSG_CONVERT_USAGE;
+        }
+        String formatName = line.token(1);
+        Storage.Format target;
+        try {
+            target = Storage.Format.valueOf(formatName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return MSG_CONVERT_USAGE;
+        }
+        String dataPath = storageManager.getDataPath();
+        if (dataPath == null) {
+            return MSG_CONVERT_NO_FILE;
+        }
+        Storage.Format previous = storageManager.getFormat();
+        boolean isConverted = todoList.atomically(() -> storageManager.convert(todoList, dataPath, target));
+        if (!isConverted) {
+            return "Data file was not converted; it is still stored as "
+                    + previous.name().toLowerCase(Locale.ROOT) + ".\n";
+        }
+        return "Data file is now stored as " + formatName.toLowerCase(Locale.ROOT) + ".\n";
+    }
+
+    /** Appends and journals a new task as one unit, returning the list size right after. */
+    private int addAndLog(Task task, Storage storageManager, TaskList todoList) {
+        return todoList.atomically(() -> {
+            todoList.addTask(task);
+            storageManager.logAdd(task, todoList);
+            return todoList.size();
+        });
+    }
+
+    /** Builds the standard add-task response. */
+    private String buildAddResponse(Task task, int size, boolean indent) {
+        String prefix = indent ? "    " : "";
+        StringBuilder sb = new StringBuilder();
+        sb.append(prefix).append("added: ").append(task).append(" (#").append(task.getId()).append(")\n");
+        sb.append(prefix).append("You now have ").append(size).append(" tasks in the list.\n");
         return sb.toString();
     }
+
+    /**
+     * A position in a paged listing: the command that produced it, its query, and the next offset.
+     * A search keeps its hits, which stay valid while the list's modification count is unchanged.
+     */
+    private static final class PageCursor {
+        private final String command;
+        private final String query;
+        private final List<Task> hits;
+        private final long modCount;
+        private final int offset;
+        private final int size;
+
+        private PageCursor(String command, String query, List<Task> hits, long modCount, int offset, int size) {
+            this.command = command;
+            this.query = query;
+            this.hits = hits;
+            this.modCount = modCount;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package sisyphus;
+
+import java.util.Arrays;
+
+/**
+ * A set of 1-based task positions held as sorted, non-overlapping inclusive ranges, such as
+ * {@code 10,12,40-90}. Bulk commands take their targets in this form and journal them the same way,
+ * so marking or deleting thousands of tasks is one record rather than thousands.
+ */
+final class RangeSet {
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int count;
+
+    /**
+     * Parses comma-separated positions and ranges, in any order and possibly overlapping.
+     *
+     * @param text the ranges, e.g. {@code 1-5000} or {@code 10,12,40-90}
+     * @return the ranges, merged, or null if the text is not of that form or has a position below 1
+     *     or a range that runs backwards
+     */
+    static RangeSet parse(CharSequence text) {
+        int length = text.length();
+        long[] ranges = new long[4];
+        int n = 0;
+        int i = 0;
+        while (i <= length) {
+            int comma = i;
+            while (comma < length && text.charAt(comma) != ',') {
+                comma++;
+            }
+            int dash = i;
+            while (dash < comma && text.charAt(dash) != '-') {
+                dash++;
+            }
+            int start;
+            int end;
+            try {
+                start = Integer.parseInt(text, i, dash, 10);
+                end = dash == comma ? start : Integer.parseInt(text, dash + 1, comma, 10);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start < 1 || end < start) {
+                return null;
+            }
+            if (n == ranges.length) {
+                ranges = Arrays.copyOf(ranges, n * 2);
+            }
+            ranges[n++] = (long) start << 32 | end;
+            i = comma + 1;
+        }
+        Arrays.sort(ranges, 0, n);
+        RangeSet set = new RangeSet();
+        for (int k = 0; k < n; k++) {
+            set.addRange((int) (ranges[k] >>> 32), (int) ranges[k]);
+        }
+        return set;
+    }
+
+    /**
+     * Adds a position at or after the last one added.
+     *
+     * @param position a 1-based position
+     */
+    void add(int position) {
+        addRange(position, position);
+    }
+
+    /** Adds a range starting at or after the start of the last one, merging it if they touch. */
+    private void addRange(int start, int end) {
+        assert count == 0 || start >= starts[count - 1] : "Ranges must be added in order";
+        if (count > 0 && start <= ends[count - 1] + 1) {
+            ends[count - 1] = Math.max(ends[count - 1], end);
+            return;
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * Returns the positions that are at most the given one.
+     *
+     * @param last the highest position to keep, such as the list size
+     * @return a new set without the positions after last
+     */
+    RangeSet upTo(int last) {
+        RangeSet clipped = new RangeSet();
+        for (int k = 0; k < count && starts[k] <= last; k++) {
+            clipped.addRange(starts[k], Math.min(ends[k], last));
+        }
+        return clipped;
+    }
+
+    /**
+     * Returns whether there are no positions in the set.
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the number of positions in the set.
+     *
+     * @return the position count
+     */
+    int size() {
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            size += ends[k] - starts[k] + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of ranges.
+     *
+     * @return the range count
+     */
+    int rangeCount() {
+        return count;
+    }
+
+    /**
+     * Returns the first position of a range.
+     *
+     * @param k the range index, in increasing order
+     * @return its start, inclusive
+     */
+    int start(int k) {
+        return starts[k];
+    }
+
+    /**
+     * Returns the last position of a range.
+     *
+     * @param k the range index, in increasing order
+     * @return its end, inclusive
+     */
+    int end(int k) {
+        return ends[k];
+    }
+
+    /**
+     * Formats the set the way {@link #parse} reads it.
+     *
+     * @return the ranges, e.g. {@code 10,12,40-90}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < count; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            sb.append(starts[k]);
+            if (ends[k] != starts[k]) {
+                sb.append('-').append(ends[k]);
+            }
+        }
+        return sb.toString();
+    }
+}
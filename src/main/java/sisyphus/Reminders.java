@@ -0,0 +1,151 @@
+package sisyphus;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tells the user when a deadline is coming up or an event is about to start.
+ * <p>
+ * Reminders are driven by the list's index of pending dated tasks rather than by polling: after each
+ * wake-up one timer is set for the next due time, less the lead time, and nothing runs until then, so a
+ * list with a million deadlines costs no CPU while idle. Marking or deleting a task needs no action,
+ * since a wake-up that finds it gone just moves on; adding or unmarking one that is due sooner than the
+ * timer reaches this class through {@link TaskList#setPendingListener} and brings the wake-up forward.
+ * All scheduling state is confined to one daemon thread.
+ */
+final class Reminders implements Closeable {
+    /** How long before a due time to remind, unless the sisyphus.reminders.leadMinutes property says otherwise. */
+    static final Duration DEFAULT_LEAD = Duration.ofMinutes(Long.getLong("sisyphus.reminders.leadMinutes", 15));
+
+    private final TaskList todoList;
+    private final Consumer<String> listener;
+    private final Duration lead;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    /** Tasks due before this have been reminded of; only touched on the scheduler thread. */
+    private LocalDateTime horizon;
+    /** The due time the pending wake-up is for, or null if none is set. */
+    private volatile LocalDateTime nextDue;
+    private ScheduledFuture<?> wakeUp;
+
+    private Reminders(TaskList todoList, Consumer<String> listener, Duration lead, Clock clock) {
+        this.todoList = todoList;
+        this.listener = listener;
+        this.lead = lead;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sisyphus-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts reminding about a list. The first message, if any, counts the deadlines already overdue.
+     *
+     * @param todoList the list to watch
+     * @param listener receives each reminder on the reminder thread; must not block for long
+     * @param lead     how long before a due time to remind; zero or less turns reminders off
+     * @param clock    the clock due times are compared with
+     * @return the running reminders, or null if they are off
+     */
+    static Reminders start(TaskList todoList, Consumer<String> listener, Duration lead, Clock clock) {
+        if (lead.isZero() || lead.isNegative()) {
+            return null;
+        }
+        Reminders reminders = new Reminders(todoList, listener, lead, clock);
+        reminders.scheduler.execute(reminders::catchUp);
+        todoList.setPendingListener(reminders::onPending);
+        return reminders;
+    }
+
+    private void catchUp() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long overdue = todoList.atomically(() -> todoList.pendingBetween(LocalDateTime.MIN, now)).stream()
+                .filter(t -> t instanceof DeadlineTask)
+                .count();
+        if (overdue > 0) {
+            listener.accept("You have " + overdue + (overdue == 1 ? " overdue deadline." : " overdue deadlines."));
+        }
+        horizon = now;
+        wake();
+    }
+
+    /** Reminds of everything due between the horizon and the lead time from now, then sets the next timer. */
+    private void wake() {
+        LocalDateTime until = LocalDateTime.now(clock).plus(lead);
+        if (until.isAfter(horizon)) {
+            List<Task> due = todoList.atomically(() -> todoList.pendingBetween(horizon, until));
+            due.forEach(this::remind);
+            horizon = until;
+        }
+        schedule(todoList.atomically(() -> todoList.nextPendingTime(horizon)));
+    }
+
+    private void schedule(LocalDateTime due) {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        nextDue = due;
+        if (due == null) {
+            wakeUp = null;
+            return;
+        }
+        long delay = Duration.between(LocalDateTime.now(clock), due.minus(lead)).toMillis();
+        wakeUp = scheduler.schedule(this::wake, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs inside the change that made a dated task pending, so it only hands the work to the scheduler,
+     * and never throws: a change racing with {@link #close} must still go through and be journaled.
+     */
+    private void onPending(Task task) {
+        LocalDateTime due = TimeIndex.timeOf(task);
+        LocalDateTime scheduled = nextDue;
+        if (scheduled != null && !due.isBefore(scheduled)) {
+            return; // the timer already set will find it
+        }
+        try {
+            scheduler.execute(() -> onPendingLater(task, due));
+        } catch (RejectedExecutionException e) {
+            // closed while the change was being made; there is nothing left to remind
+        }
+    }
+
+    private void onPendingLater(Task task, LocalDateTime due) {
+        if (horizon == null) {
+            return; // catchUp has not run yet and will see it
+        }
+        if (due.isBefore(horizon)) {
+            // Inside the window already reminded of: remind now unless it was already past due.
+            if (!due.isBefore(LocalDateTime.now(clock)) && !task.isDone()) {
+                remind(task);
+            }
+        } else if (nextDue == null || due.isBefore(nextDue)) {
+            schedule(due);
+        }
+    }
+
+    private void remind(Task task) {
+        String prefix = task instanceof EventTask ? "Starting soon: " : "Due soon: ";
+        listener.accept(prefix + task);
+    }
+
+    /**
+     * Stops reminding and detaches from the list.
+     */
+    @Override
+    public void close() {
+        todoList.setPendingListener(null);
+        scheduler.shutdownNow();
+    }
+}
@@ -1,26 +1,79 @@
 package sisyphus;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility operations for searching/filtering tasks.
  */
 public class SearchTask {
     /**
-     * Returns a new TaskList containing tasks whose names contain the given query as a substring.
-     * The comparison is case-sensitive and does a simple contains check.
+     * Returns a new TaskList containing tasks whose names contain every word of the query.
+     * Each query word is a case-sensitive substring match against the words of the task name,
+     * answered from the list's word index rather than by scanning every task.
      *
      * @param taskList the source list to filter
-     * @param query the substring to search for in task names
+     * @param query one or more whitespace-separated words to search for in task names
      * @return a new TaskList with only the matching tasks (may be empty)
      */
     public static TaskList filterTasks(TaskList taskList, String query) {
-        ArrayList<Task> filteredTasks = new ArrayList<>();
-        for (Task t : taskList.getTasks()) {
-            if (t.getName().contains(query)) {
-                filteredTasks.add(t);
-            }
+        return new TaskList(new ArrayList<>(search(taskList, query)));
+    }
+
+    /**
+     * Searches as {@link #filterTasks} does, returning the hits themselves rather than a new TaskList.
+     *
+     * @param taskList the source list to filter
+     * @param query one or more whitespace-separated words to search for in task names
+     * @return the matching tasks, in list order
+     */
+    static List<Task> search(TaskList taskList, String query) {
+        Events.Search event = new Events.Search();
+        event.begin();
+        int[] scanned = new int[1];
+        List<Task> matches = taskList.search(query, n -> scanned[0] = n);
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = query;
+            event.hits = matches.size();
+            event.scanned = scanned[0];
+            event.commit();
+        }
+        return matches;
+    }
+
+    /**
+     * Returns a new TaskList of the tasks whose names best match the query, ignoring case and small typos,
+     * best match first. Each query word must be similar to some word of the task name.
+     *
+     * @param taskList the source list to search
+     * @param query one or more whitespace-separated words
+     * @param limit most tasks to return
+     * @return a new TaskList with at most limit tasks, ranked by similarity (may be empty)
+     */
+    public static TaskList fuzzyFilterTasks(TaskList taskList, String query, int limit) {
+        return new TaskList(new ArrayList<>(fuzzySearch(taskList, query, limit)));
+    }
+
+    /**
+     * Searches as {@link #fuzzyFilterTasks} does, returning the hits themselves rather than a new TaskList.
+     *
+     * @param taskList the source list to search
+     * @param query one or more whitespace-separated words
+     * @param limit most tasks to return
+     * @return at most limit tasks, best match first
+     */
+    static List<Task> fuzzySearch(TaskList taskList, String query, int limit) {
+        Events.Search event = new Events.Search();
+        event.begin();
+        List<Task> matches = taskList.fuzzySearch(query, limit);
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = "~" + query;
+            event.hits = matches.size();
+            event.scanned = -1;
+            event.commit();
         }
-        return new TaskList(filteredTasks);
+        return matches;
     }
 }
@@ -0,0 +1,379 @@
+package sisyphus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless, line-based TCP front end that lets scripts drive Sisyphus without the GUI.
+ * <p>
+ * Each line a client sends is one command, answered with the same text {@link Sisyphus#enterInput}
+ * would produce followed by a line holding a single "." (lines of the response that start with "."
+ * get an extra "." in front, as in SMTP). A client starts on a private, in-memory task list; sending
+ * {@code :shared} switches it to the list loaded from the data file, which every shared client sees,
+ * and {@code :isolated} switches back. Each client keeps its own command state, such as where
+ * {@code more} continues from, in both modes. {@code bye} closes the connection after its reply.
+ * <p>
+ * One selector thread owns every socket, so an idle connection costs only its channel and a small
+ * read buffer, about 1.6 KB of heap, rather than a thread stack. Commands run on a fixed worker pool,
+ * one at a time per connection so replies come back in order.
+ */
+public class Server implements Closeable {
+    static final int DEFAULT_PORT = 4040;
+    static final String END_OF_RESPONSE = ".";
+    static final String CMD_SHARED = ":shared";
+    static final String CMD_ISOLATED = ":isolated";
+
+    private static final int INITIAL_READ_BUFFER = 256;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int MAX_PENDING_LINES = 64;
+    private static final String MSG_FAILED = "Error: the command failed unexpectedly.";
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService workers;
+    private final Sisyphus shared;
+    /** Replies produced by workers, handed back to the selector thread. */
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private volatile boolean isRunning = true;
+    private volatile boolean isServing;
+
+    /**
+     * Binds a server; call {@link #run()} to start serving.
+     *
+     * @param address       the address to listen on
+     * @param shared        the session behind {@code :shared}; its task list must be thread-safe
+     * @param workerThreads number of threads executing commands
+     * @throws IOException if the address cannot be bound
+     */
+    public Server(InetSocketAddress address, Sisyphus shared, int workerThreads) throws IOException {
+        this.shared = shared;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "sisyphus-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts a server on the loopback interface over the shared data file.
+     *
+     * @param args optional port number, default 4040
+     * @throws IOException if the server cannot start
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Stats.registerMBean();
+        Storage storage = new Storage();
+        TaskList tasks = storage.readFile(Sisyphus.DATA_PATH, ConcurrentTaskList::new);
+        System.out.print(storage.takeNotices());
+        Checkpointer autosave = Checkpointer.start(storage, tasks, Checkpointer.DEFAULT_INTERVAL_MILLIS);
+        Reminders reminders = Reminders.start(tasks, System.out::println, Reminders.DEFAULT_LEAD,
+                Clock.systemDefaultZone());
+        try (Server server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                new Sisyphus(storage, tasks), Runtime.getRuntime().availableProcessors())) {
+            System.out.println("Sisyphus server listening on " + server.getPort());
+            server.run();
+        } finally {
+            if (reminders != null) {
+                reminders.close();
+            }
+            if (autosave != null) {
+                autosave.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port
+     * @throws IOException if the port cannot be read
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Serves connections on the calling thread until {@link #close()} is called.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void run() throws IOException {
+        isServing = true;
+        try {
+            serve();
+        } finally {
+            release();
+        }
+    }
+
+    private void serve() throws IOException {
+        while (isRunning) {
+            selector.select();
+            Reply reply;
+            while ((reply = replies.poll()) != null) {
+                reply.connection.finish(reply.bytes);
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    }
+                } catch (IOException e) {
+                    closeQuietly(key);
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+    }
+
+    /**
+     * Stops the server and closes every connection.
+     */
+    @Override
+    public void close() throws IOException {
+        isRunning = false;
+        selector.wakeup();
+        workers.shutdownNow();
+        if (!isServing) {
+            release();
+        }
+    }
+
+    /** Closes every socket and the selector; safe to call more than once. */
+    private synchronized void release() throws IOException {
+        if (!selector.isOpen()) {
+            return;
+        }
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            closeQuietly(key);
+        }
+        serverChannel.close();
+        selector.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the connection is being dropped anyway
+        }
+    }
+
+    /** Frames a response: dot-stuffed lines followed by the end marker. */
+    static byte[] frame(String response) {
+        StringBuilder sb = new StringBuilder(response.length() + 8);
+        int start = 0;
+        while (start < response.length()) {
+            int end = response.indexOf('\n', start);
+            if (end < 0) {
+                end = response.length();
+            }
+            if (response.startsWith(END_OF_RESPONSE, start)) {
+                sb.append('.');
+            }
+            sb.append(response, start, end).append('\n');
+            start = end + 1;
+        }
+        sb.append(END_OF_RESPONSE).append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** A finished command, queued for the selector thread. */
+    private static final class Reply {
+        private final Connection connection;
+        private final byte[] bytes;
+
+        private Reply(Connection connection, byte[] bytes) {
+            this.connection = connection;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Per-client state. Socket and buffer fields are only touched by the selector thread;
+     * the session fields are only touched by the worker running this client's current command.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final Queue<String> pendingLines = new ArrayDeque<>();
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+        private ByteBuffer out;
+        private boolean isBusy;
+        private volatile boolean isClosing;
+        private Sisyphus privateSession;
+        private Sisyphus sharedSession;
+        private boolean isShared;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void read() throws IOException {
+            if (!in.hasRemaining()) {
+                if (in.capacity() >= MAX_LINE_BYTES) {
+                    throw new IOException("Line too long");
+                }
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            if (channel.read(in) < 0) {
+                throw new IOException("Client closed the connection");
+            }
+            in.flip();
+            int lineStart = 0;
+            for (int i = 0; i < in.limit(); i++) {
+                if (in.get(i) == '\n') {
+                    int end = i > lineStart && in.get(i - 1) == '\r' ? i - 1 : i;
+                    byte[] line = new byte[end - lineStart];
+                    in.get(lineStart, line);
+                    pendingLines.add(new String(line, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+            }
+            in.position(lineStart);
+            in.compact();
+            dispatchNext();
+            updateInterest();
+        }
+
+        private void write() throws IOException {
+            channel.write(out);
+            if (!out.hasRemaining()) {
+                out = null;
+                if (isClosing && pendingLines.isEmpty() && !isBusy) {
+                    closeQuietly(key);
+                    return;
+                }
+            }
+            updateInterest();
+        }
+
+        /** Called on the selector thread once a worker has produced this connection's reply. */
+        private void finish(byte[] reply) {
+            if (!key.isValid()) {
+                return;
+            }
+            isBusy = false;
+            if (out == null) {
+                out = ByteBuffer.wrap(reply);
+            } else {
+                ByteBuffer joined = ByteBuffer.allocate(out.remaining() + reply.length);
+                joined.put(out).put(reply).flip();
+                out = joined;
+            }
+            if (isClosing) {
+                pendingLines.clear();
+            }
+            dispatchNext();
+            updateInterest();
+        }
+
+        private void dispatchNext() {
+            if (isBusy || isClosing || pendingLines.isEmpty()) {
+                return;
+            }
+            isBusy = true;
+            String line = pendingLines.poll();
+            workers.execute(() -> {
+                String response = MSG_FAILED;
+                try {
+                    response = handle(line);
+                } catch (RuntimeException e) {
+                    response = "Error: " + e.getMessage();
+                } finally {
+                    // Reply even when an Error escapes, or the connection would wait for this command forever.
+                    replies.add(new Reply(this, frame(response)));
+                    selector.wakeup();
+                }
+            });
+        }
+
+        private String handle(String line) {
+            String command = line.trim();
+            if (command.equals(CMD_SHARED)) {
+                isShared = true;
+                return "Using the shared task list.";
+            }
+            if (command.equals(CMD_ISOLATED)) {
+                isShared = false;
+                return "Using a private task list.";
+            }
+            if (command.equals("bye")) {
+                isClosing = true;
+            }
+            if (isShared) {
+                if (sharedSession == null) {
+                    sharedSession = shared.newSession();
+                }
+                return sharedSession.enterInput(line);
+            }
+            if (privateSession == null) {
+                // Created on first use so idle connections do not hold a list.
+                privateSession = new Sisyphus(new Storage(), new TaskList(new ArrayList<>()));
+            }
+            return privateSession.enterInput(line);
+        }
+
+        private void updateInterest() {
+            if (!key.isValid()) {
+                return;
+            }
+            int ops = 0;
+            if (!isClosing && pendingLines.size() < MAX_PENDING_LINES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (out != null) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package sisyphus;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Entry point and top-level types for the Sisyphus task management application.
@@ -13,6 +16,8 @@ public class Sisyphus {
     private TaskList todoList;
     private Parser parser;
     private Ui ui;
+    private Checkpointer checkpointer;
+    private Reminders reminders;
 
     /**
      * Constructor
@@ -22,22 +27,87 @@ public class Sisyphus {
         this.todoList = this.storageManager.readFile(DATA_PATH);
         this.parser = new Parser();
         this.ui = new Ui();
+        this.checkpointer = Checkpointer.start(storageManager, todoList, Checkpointer.DEFAULT_INTERVAL_MILLIS);
+        Stats.registerMBean();
+    }
+
+    /**
+     * Creates a session over an existing storage and task list, as the server does for each client.
+     *
+     * @param storageManager the storage that journals and saves this list
+     * @param todoList       the list the session operates on
+     */
+    Sisyphus(Storage storageManager, TaskList todoList) {
+        this.storageManager = storageManager;
+        this.todoList = todoList;
+        this.parser = new Parser();
+        this.ui = new Ui();
+    }
+
+    /**
+     * Returns another session over the same storage and task list. It shares the tasks but has its own
+     * command state, such as where {@code more} continues from.
+     *
+     * @return a new session on this session's data
+     */
+    Sisyphus newSession() {
+        return new Sisyphus(storageManager, todoList);
+    }
+
+    /**
+     * Starts telling the user about deadlines coming up and events about to start, replacing any
+     * reminders started before.
+     *
+     * @param listener receives each reminder on a background thread
+     */
+    public void startReminders(Consumer<String> listener) {
+        if (reminders != null) {
+            reminders.close();
+        }
+        reminders = Reminders.start(todoList, listener, Reminders.DEFAULT_LEAD, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Stops autosave and reminders, as the application exits. Changes not checkpointed yet are already in
+     * the journal, so nothing is lost.
+     */
+    public void shutdown() {
+        if (checkpointer != null) {
+            checkpointer.close();
+        }
+        if (reminders != null) {
+            reminders.close();
+        }
     }
 
     /**
      * Calls the Parser to send the user input
      * @param input user input from GUI
-     * @return Generated response by Sisyphus's Parser
+     * @return Generated response by Sisyphus's Parser, after any messages from storage
      */
     public String enterInput(String input) {
-        String[] inputArr = input.split(" ");
-        return parser.readAndRespond(inputArr, storageManager, todoList);
+        String response = parser.readAndRespond(input, storageManager, todoList);
+        String notices = storageManager.takeNotices();
+        return notices.isEmpty() ? response : notices + response;
+    }
+
+    /**
+     * Returns what loading, saving and autosaving have had to say since the last response, such as how many
+     * tasks were loaded or why a save failed, and forgets it. {@link #enterInput} puts these in front of
+     * its response, so this is only needed to show them before the first command.
+     *
+     * @return the messages, one per line, or "" if there are none
+     */
+    public String takeNotices() {
+        return storageManager.takeNotices();
     }
     /**
      * Handles console I/O lifecycle for the application.
      */
     public static class Ui {
         static final String divider = "-----------------------------\n";
+        /** Number of tasks shown at once by list, find, latest and more unless a size is given. */
+        static final int DEFAULT_PAGE_SIZE = 50;
 
         /**
          * Prints the application logo, welcome message, and usage instructions.
@@ -62,43 +132,84 @@ public class Sisyphus {
          */
         public static String printTasks(TaskList todoList) {
             StringBuilder sb = new StringBuilder();
-            if (todoList.isEmpty()) {
+            List<Task> tasks = todoList.getTasks(); // one consistent snapshot, even if another session edits
+            if (tasks.isEmpty()) {
                 return "No tasks found";
             }
-            for (int i = 1; i <= todoList.size(); i++) {
-                sb.append("    ").append(i).append(".").append(todoList.get(i)).append("\n");
-            }
+            printTasks(tasks, 1, sb);
             return sb.toString();
         }
 
+        /**
+         * Appends the tasks one per line, numbered from firstNumber.
+         *
+         * @param tasks       the tasks to display
+         * @param firstNumber the number shown for the first task
+         * @param out         where the lines are written
+         * @throws UncheckedIOException if out fails
+         */
+        public static void printTasks(List<Task> tasks, int firstNumber, Appendable out) {
+            Events.Render event = new Events.Render();
+            event.begin();
+            int startLength = out instanceof CharSequence ? ((CharSequence) out).length() : -1;
+            try {
+                int number = firstNumber;
+                for (Task task : tasks) {
+                    Cancellation.check(number - firstNumber);
+                    out.append("    ").append(Integer.toString(number++)).append('.')
+                            .append(task.toString()).append('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.tasks = tasks.size();
+                event.characters = startLength < 0 ? -1 : ((CharSequence) out).length() - startLength;
+                event.commit();
+            }
+        }
+
+        /**
+         * Appends one page of a longer listing, numbered by position in the whole listing, followed by a
+         * line saying which part was shown whenever the page is not everything.
+         *
+         * @param page   the tasks on this page
+         * @param offset how many tasks of the listing come before this page
+         * @param total  the number of tasks in the whole listing
+         * @param out    where the lines are written
+         * @throws UncheckedIOException if out fails
+         */
+        public static void printPage(List<Task> page, int offset, int total, Appendable out) {
+            try {
+                if (total == 0) {
+                    out.append("No tasks found");
+                    return;
+                }
+                printTasks(page, offset + 1, out);
+                int end = offset + page.size();
+                if (offset == 0 && end >= total) {
+                    return;
+                }
+                out.append("Showing ").append(Integer.toString(offset + 1)).append('-')
+                        .append(Integer.toString(end)).append(" of ").append(Integer.toString(total))
+                        .append(end < total ? " tasks, type 'more' for the next page.\n" : " tasks.\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         /**
          * Print the tasks with the earliest DeadlineTask or earliest from time for the EventTask
+         * first, followed by the tasks without a time.
          * @param todoList the list of tasks to display
          *
          */
         public static String printTasksByLatestFirst(TaskList todoList) {
-            StringBuilder sb = new StringBuilder();
             if (todoList.isEmpty()) {
                 return "No tasks found";
             }
-            // Use Java streams to sort the tasks by time
-            ArrayList<Task> sortedTaskArrayList = todoList.getTasks().stream().sorted((t1, t2) -> {
-                LocalDateTime t1Time = (t1 instanceof DeadlineTask) ? ((DeadlineTask) t1).getDeadline()
-                        : (t1 instanceof EventTask) ? ((EventTask) t1).getStart() : null;
-
-                LocalDateTime t2Time = (t2 instanceof DeadlineTask) ? ((DeadlineTask) t2).getDeadline()
-                        : (t2 instanceof EventTask) ? ((EventTask) t2).getStart() : null;
-                if (t1Time == null && t2Time == null) {
-                    return 0;
-                } else if (t1Time == null) {
-                    return 1; // t1 (plain Task) goes to end
-                } else if (t2Time == null) {
-                    return -1; // t2 (plain Task) goes to end
-                }
-                return t1Time.compareTo(t2Time);
-            }).collect(Collectors.toCollection(ArrayList::new));
-            TaskList sortedTaskList = new TaskList(sortedTaskArrayList);
-            return printTasks(sortedTaskList);
+            return printTasks(new TaskList(new ArrayList<>(todoList.sortedByTime())));
         }
     }
 
@@ -0,0 +1,340 @@
+package sisyphus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a text snapshot into tasks straight from the bytes of the file.
+ * The file is read through a channel in large chunks, lines and " | " delimiters are located by
+ * hand and only the task name is decoded into a String; dates in the canonical yyyy-MM-dd HH:mm
+ * or yyyy-MM-dd shapes are read digit by digit by {@link DateTimeParser}. Anything else falls back to the String-based
+ * task constructors, so odd hand-edited records still load the same way they used to.
+ * <p>
+ * In lazy mode a well-formed record is only split and checked: the task keeps a copy of its bytes
+ * and decodes its name and dates when first asked for them, dropping the copy then.
+ * <p>
+ * Each record ends in its task's ID, as in "T | 0 | read book | #12", and the file starts with the highest
+ * ID ever handed out, so IDs of deleted tasks are not given out again. Files from before IDs were saved have
+ * neither; their tasks get new IDs when the list is created.
+ */
+final class SnapshotLoader {
+    static final int MAX_FIELDS = 6;
+    /** Starts the first line of a snapshot, followed by the highest task ID handed out so far. */
+    static final String LAST_ID_HEADER = "# last id ";
+    private static final int CHUNK_SIZE = 1 << 20;
+    /** What a record's ID field starts with, the separator included. */
+    private static final byte[] ID_PREFIX = " | #".getBytes(StandardCharsets.US_ASCII);
+
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private final boolean isLazy;
+    /** Highest ID handed out before the file was saved, from its header. */
+    private int savedLastId;
+    /** ID of the last record that had one; IDs not above it are ignored, as the file lists tasks in ID order. */
+    private int lastId;
+
+    /**
+     * Creates a loader.
+     *
+     * @param isLazy whether well-formed records become tasks that keep their bytes and parse them on first use
+     */
+    SnapshotLoader(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    /**
+     * Loads every task in the file, in order, updating the checksum with every byte read.
+     *
+     * @param path     the snapshot to read
+     * @param checksum updated with the raw file contents
+     * @return the loaded tasks
+     * @throws IOException if the file cannot be read
+     */
+    ArrayList<Task> load(Path path, CRC32 checksum) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        load(path, checksum, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * Hands every task in the file, in order, to a sink as it is read, updating the checksum with every byte read.
+     *
+     * @param path     the snapshot to read
+     * @param checksum updated with the raw file contents
+     * @param sink     takes each loaded task
+     * @throws IOException if the file cannot be read
+     */
+    void load(Path path, CRC32 checksum, Consumer<Task> sink) throws IOException {
+        long started = System.nanoTime();
+        long ioNanos = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[(int) Math.min(CHUNK_SIZE, Math.max(channel.size(), 1))];
+            int limit = 0;
+            int lineStart = 0;
+            while (true) {
+                if (limit == buffer.length) {
+                    // Keep the partial line and make room behind it; grow if it alone fills the buffer.
+                    int carry = limit - lineStart;
+                    byte[] next = carry == buffer.length ? new byte[buffer.length * 2] : buffer;
+                    System.arraycopy(buffer, lineStart, next, 0, carry);
+                    buffer = next;
+                    limit = carry;
+                    lineStart = 0;
+                }
+                long reading = System.nanoTime();
+                int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+                ioNanos += System.nanoTime() - reading;
+                if (read < 0) {
+                    break;
+                }
+                checksum.update(buffer, limit, read);
+                int scanFrom = limit;
+                limit += read;
+                for (int i = scanFrom; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        addTask(sink, buffer, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+            }
+            if (lineStart < limit) {
+                addTask(sink, buffer, lineStart, limit);
+            }
+        }
+        Stats.recordPhase(Stats.LOAD_IO, ioNanos);
+        Stats.recordPhase(Stats.LOAD_PARSE, System.nanoTime() - started - ioNanos);
+    }
+
+    /**
+     * Returns the highest task ID in the file loaded last, counting those of tasks deleted before it was saved.
+     *
+     * @return the highest ID, or 0 if the file has none
+     */
+    int getLastId() {
+        return Math.max(savedLastId, lastId);
+    }
+
+    private void addTask(Consumer<Task> sink, byte[] b, int from, int to) {
+        if (to > from && b[to - 1] == '\r') {
+            to--;
+        }
+        if (to > from && b[from] == '#') {
+            readHeader(b, from, to);
+            return;
+        }
+        Task task = parseLine(b, from, to);
+        if (task != null) {
+            sink.accept(task);
+        }
+    }
+
+    private void readHeader(byte[] b, int from, int to) {
+        int digits = from + LAST_ID_HEADER.length();
+        if (to <= digits) {
+            return;
+        }
+        for (int i = 0; i < LAST_ID_HEADER.length(); i++) {
+            if (b[from + i] != LAST_ID_HEADER.charAt(i)) {
+                return;
+            }
+        }
+        savedLastId = parseDigits(b, digits, to);
+    }
+
+    /** Parses one record; mirrors {@link Storage#parseTask} including skipping short lines. */
+    private Task parseLine(byte[] b, int from, int to) {
+        int fields = splitFields(b, from, to, fieldStart, fieldEnd);
+        if (fields < 3) {
+            return null;
+        }
+        if (isLazy && isCanonical(b, from, fields)) {
+            return withId(lazyTask(b, from, to), b, fields);
+        }
+        boolean isDone = fieldEnd[1] - fieldStart[1] == 1 && b[fieldStart[1]] == '1';
+        String name = NamePool.SHARED.intern(b, fieldStart[2], fieldEnd[2]);
+        char type = fieldEnd[0] - fieldStart[0] == 1 ? (char) b[fieldStart[0]] : '?';
+        Task task;
+        switch (type) {
+        case 'T':
+            task = new TodoTask(name);
+            break;
+        case 'D':
+            requireFields(fields, 4, b, from, to);
+            LocalDateTime deadline = DateTimeParser.tryParse(b, fieldStart[3], fieldEnd[3]);
+            task = deadline != null
+                    ? new DeadlineTask(name, deadline)
+                    : new DeadlineTask(name, field(b, 3));
+            break;
+        case 'E':
+            requireFields(fields, 5, b, from, to);
+            LocalDateTime start = DateTimeParser.tryParse(b, fieldStart[3], fieldEnd[3]);
+            LocalDateTime end = DateTimeParser.tryParse(b, fieldStart[4], fieldEnd[4]);
+            task = start != null && end != null
+                    ? new EventTask(name, start, end)
+                    : new EventTask(name, field(b, 3), field(b, 4));
+            break;
+        default:
+            throw new IllegalStateException("Unexpected value: " + field(b, 0));
+        }
+        if (isDone) {
+            task.complete();
+        }
+        return withId(task, b, fields);
+    }
+
+    /**
+     * Gives a task the ID its record ends in, unless the record has none or repeats an earlier one.
+     * A lazy task whose ID is not taken is read at once, so its record, ID and all, is never saved back;
+     * one whose record has no ID stays lazy and is saved back with the ID it is given.
+     */
+    private Task withId(Task task, byte[] b, int fields) {
+        int index = idField(task);
+        int id = fields == index + 1 ? parseId(b, fieldStart[index], fieldEnd[index]) : 0;
+        if (id > lastId) {
+            task.assignId(id);
+            lastId = id;
+        } else if (fields != index) {
+            task.hydrate();
+        }
+        return task;
+    }
+
+    /**
+     * Returns whether a split record can be loaded lazily: a one-character type with all its fields, then
+     * its ID or nothing, a done flag of 0 or 1 and dates that {@link DateTimeParser} reads without falling
+     * back. Such a record parses the same whenever it is hydrated, so loading it can never fail later.
+     */
+    private boolean isCanonical(byte[] b, int from, int fields) {
+        if (fieldEnd[0] != from + 1 || fieldStart[1] != from + Task.RECORD_DONE_OFFSET
+                || fieldEnd[1] != fieldStart[1] + 1 || (b[fieldStart[1]] != '0' && b[fieldStart[1]] != '1')) {
+            return false;
+        }
+        int last = fields - 1;
+        int taskFields = parseId(b, fieldStart[last], fieldEnd[last]) == 0 ? fields : fields - 1;
+        switch (b[from]) {
+        case 'T':
+            return taskFields == 3;
+        case 'D':
+            return taskFields == 4 && DateTimeParser.isWellFormed(b, fieldStart[3], fieldEnd[3]);
+        case 'E':
+            return taskFields == 5 && DateTimeParser.isWellFormed(b, fieldStart[3], fieldEnd[3])
+                    && DateTimeParser.isWellFormed(b, fieldStart[4], fieldEnd[4]);
+        default:
+            return false;
+        }
+    }
+
+    /** Returns which " | "-separated field of a task's record holds its ID: the one after its dates. */
+    static int idField(Task task) {
+        if (task instanceof EventTask) {
+            return 5;
+        }
+        return task instanceof DeadlineTask ? 4 : 3;
+    }
+
+    /**
+     * Reads an ID field, a '#' followed by the ID.
+     *
+     * @return the ID, or 0 if the field is not a '#' and up to nine digits
+     */
+    static int parseId(byte[] b, int from, int to) {
+        if (to - from < 2 || b[from] != '#') {
+            return 0;
+        }
+        return parseDigits(b, from + 1, to);
+    }
+
+    /**
+     * Returns whether a record ends in the ID field for the given ID.
+     *
+     * @param record the record bytes, without the line terminator
+     * @param id     the ID, above 0
+     * @return true if the record's last field is '#' and the ID
+     */
+    static boolean endsWithId(byte[] record, int id) {
+        int i = record.length;
+        for (int rest = id; rest > 0; rest /= 10) {
+            if (--i < 0 || record[i] != '0' + rest % 10) {
+                return false;
+            }
+        }
+        return i >= ID_PREFIX.length && Arrays.equals(record, i - ID_PREFIX.length, i, ID_PREFIX, 0,
+                ID_PREFIX.length);
+    }
+
+    /** Reads up to nine ASCII digits, returning 0 for anything else. */
+    private static int parseDigits(byte[] b, int from, int to) {
+        if (to - from > 9) {
+            return 0;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            if (b[i] < '0' || b[i] > '9') {
+                return 0;
+            }
+            value = value * 10 + b[i] - '0';
+        }
+        return value;
+    }
+
+    /** Copies out a canonical record as a task that parses it on first use. */
+    private static Task lazyTask(byte[] b, int from, int to) {
+        byte[] record = Arrays.copyOfRange(b, from, to);
+        boolean isDone = b[from + Task.RECORD_DONE_OFFSET] == '1';
+        switch (b[from]) {
+        case 'T':
+            return new TodoTask(record, isDone);
+        case 'D':
+            return new DeadlineTask(record, isDone);
+        default:
+            return new EventTask(record, isDone);
+        }
+    }
+
+    /**
+     * Records the bounds of the first " | "-separated fields of a line and returns how many were recorded.
+     * Trailing empty fields are dropped, matching String.split.
+     */
+    static int splitFields(byte[] b, int from, int to, int[] fieldStart, int[] fieldEnd) {
+        int count = 0;
+        int start = from;
+        for (int i = from; i + 2 < to && count < MAX_FIELDS; i++) {
+            if (b[i] == ' ' && b[i + 1] == '|' && b[i + 2] == ' ') {
+                fieldStart[count] = start;
+                fieldEnd[count] = i;
+                count++;
+                start = i + 3;
+                i += 2;
+            }
+        }
+        if (count < MAX_FIELDS) {
+            fieldStart[count] = start;
+            fieldEnd[count] = to;
+            count++;
+        }
+        while (count > 0 && fieldStart[count - 1] == fieldEnd[count - 1]) {
+            count--;
+        }
+        return count;
+    }
+
+    private String field(byte[] b, int index) {
+        return new String(b, fieldStart[index], fieldEnd[index] - fieldStart[index], StandardCharsets.UTF_8);
+    }
+
+    private static void requireFields(int fields, int required, byte[] b, int from, int to) {
+        if (fields < required) {
+            String line = new String(b, from, to - from, StandardCharsets.UTF_8);
+            throw new IllegalStateException("Missing fields: " + line);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package sisyphus;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Where time goes: run counts, latency percentiles and allocation for each command, and time spent in
+ * each phase of loading and saving the data file.
+ * <p>
+ * There is one set of figures per process, shared by every session, shown by the {@code stats} command
+ * and published over JMX through {@link StatsMXBean}. Recording a command costs two clock reads, two
+ * reads of the thread's allocation counter and a few uncontended atomic adds, which is well under a
+ * microsecond; set the sisyphus.stats property to false to skip even that.
+ */
+final class Stats implements StatsMXBean {
+    /** Whether commands and storage phases are timed, unless the sisyphus.stats property says otherwise. */
+    static final boolean IS_ENABLED = Boolean.parseBoolean(System.getProperty("sisyphus.stats", "true"));
+    /** Name the figures are registered under with the platform MBean server. */
+    static final String OBJECT_NAME = "sisyphus:type=Stats";
+    /** Storage phase: reading a snapshot from disk. */
+    static final String LOAD_IO = "load.io";
+    /** Storage phase: turning snapshot bytes into tasks. */
+    static final String LOAD_PARSE = "load.parse";
+    /** Storage phase: recovering the journal and replaying it onto the snapshot. */
+    static final String LOAD_REPLAY = "load.replay";
+    /** Storage phase: turning tasks into snapshot bytes. */
+    static final String SAVE_FORMAT = "save.format";
+    /** Storage phase: writing a snapshot to disk. */
+    static final String SAVE_IO = "save.io";
+    /** The figures for this process. */
+    static final Stats GLOBAL = new Stats();
+
+    private static final ThreadMXBean THREADS = allocationCounter();
+
+    private final ConcurrentHashMap<String, Timer> commands = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> phases = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the timer for a command, creating it on first use.
+     *
+     * @param command the command word
+     * @return its timer
+     */
+    Timer command(String command) {
+        Timer timer = commands.get(command);
+        return timer != null ? timer : commands.computeIfAbsent(command, name -> new Timer());
+    }
+
+    /**
+     * Records time spent in a storage phase, if stats are enabled.
+     *
+     * @param phase the phase, such as {@code load.io}
+     * @param nanos time spent in it
+     */
+    static void recordPhase(String phase, long nanos) {
+        if (IS_ENABLED) {
+            GLOBAL.phases.computeIfAbsent(phase, name -> new Timer()).record(nanos, 0);
+        }
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far, for measuring the difference across a call.
+     *
+     * @return the running total, or 0 if the JVM cannot measure it
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Publishes the process-wide figures over JMX. Calling it again does nothing.
+     */
+    static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another session in this process registered them already.
+        } catch (JMException | SecurityException e) {
+            System.out.println("Error publishing stats: " + e.getMessage());
+        }
+    }
+
+    private static ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof ThreadMXBean) {
+            ThreadMXBean counter = (ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        return collect(commands, t -> t.latency.count());
+    }
+
+    @Override
+    public Map<String, Long> getCommandP50Nanos() {
+        return collect(commands, t -> t.latency.percentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getCommandP99Nanos() {
+        return collect(commands, t -> t.latency.percentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getCommandMaxNanos() {
+        return collect(commands, t -> t.latency.max());
+    }
+
+    @Override
+    public Map<String, Long> getCommandAllocatedBytesPerRun() {
+        return THREADS == null ? new TreeMap<>() : collect(commands, Timer::allocatedPerRun);
+    }
+
+    @Override
+    public Map<String, Long> getPhaseTotalNanos() {
+        return collect(phases, t -> t.latency.sum());
+    }
+
+    private static Map<String, Long> collect(Map<String, Timer> timers, ToLongFunction<Timer> figure) {
+        Map<String, Long> figures = new TreeMap<>();
+        timers.forEach((name, timer) -> figures.put(name, figure.applyAsLong(timer)));
+        return figures;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        if (!IS_ENABLED) {
+            sb.append("Stats are off; start with -Dsisyphus.stats=true to record them.\n");
+            return sb.toString();
+        }
+        sb.append("Commands: runs, p50, p90, p99, max, allocated per run\n");
+        sb.append(Sisyphus.Ui.divider);
+        new TreeMap<>(commands).forEach((name, t) -> sb.append(String.format(Locale.ROOT,
+                "    %-9s %7d %9s %9s %9s %9s %9s\n", name, t.latency.count(),
+                formatNanos(t.latency.percentile(50)), formatNanos(t.latency.percentile(90)),
+                formatNanos(t.latency.percentile(99)), formatNanos(t.latency.max()),
+                THREADS == null ? "n/a" : formatBytes(t.allocatedPerRun()))));
+        if (commands.isEmpty()) {
+            sb.append("    No commands yet.\n");
+        }
+        sb.append("Storage: runs, total, p50, max\n");
+        sb.append(Sisyphus.Ui.divider);
+        new TreeMap<>(phases).forEach((name, t) -> sb.append(String.format(Locale.ROOT,
+                "    %-12s %4d %9s %9s %9s\n", name, t.latency.count(), formatNanos(t.latency.sum()),
+                formatNanos(t.latency.percentile(50)), formatNanos(t.latency.max()))));
+        if (phases.isEmpty()) {
+            sb.append("    Nothing loaded or saved yet.\n");
+        }
+        long lookups = NamePool.SHARED.lookups();
+        if (lookups > 0) {
+            long hits = NamePool.SHARED.hits();
+            sb.append(String.format(Locale.ROOT, "Names: %d of %d shared (%.1f%% deduplicated)\n",
+                    hits, lookups, 100.0 * hits / lookups));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        commands.clear();
+        phases.clear();
+    }
+
+    /** Formats a duration with a unit that keeps it short, e.g. 850ns, 12.3us, 4.5ms or 1.20s. */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+    /** Formats a byte count with a unit that keeps it short, e.g. 96B, 1.5KB or 3.2MB. */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1fKB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1fMB", bytes / (1024.0 * 1024));
+    }
+
+    /** Latency and allocation of one command or phase. */
+    static final class Timer {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder allocated = new LongAdder();
+
+        /**
+         * Records one run.
+         *
+         * @param nanos how long it took
+         * @param bytes how much the running thread allocated
+         */
+        void record(long nanos, long bytes) {
+            latency.record(nanos);
+            allocated.add(bytes);
+        }
+
+        private long allocatedPerRun() {
+            long runs = latency.count();
+            return runs == 0 ? 0 : allocated.sum() / runs;
+        }
+    }
+
+    /** Passes writes through to a file, adding up the time they take so formatting can be told apart from I/O. */
+    static final class TimedOutputStream extends FilterOutputStream {
+        private long nanos;
+        private long bytes;
+
+        /**
+         * Wraps a stream.
+         *
+         * @param out the file stream; writes should be buffered above this so each one is large
+         */
+        TimedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * Returns the time spent in the wrapped stream so far.
+         *
+         * @return nanoseconds spent writing, flushing and closing
+         */
+        long nanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         *
+         * @return bytes passed to the wrapped stream
+         */
+        long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long started = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - started;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long started = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - started;
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long started = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - started;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long started = System.nanoTime();
+            out.close();
+            nanos += System.nanoTime() - started;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package sisyphus;
+
+import java.util.Map;
+
+/**
+ * Management interface for the figures behind the {@code stats} command, registered with the platform
+ * MBean server as {@value Stats#OBJECT_NAME}. Maps are keyed by command or storage phase name; times
+ * are in nanoseconds.
+ */
+public interface StatsMXBean {
+    /**
+     * Returns how many times each command has run.
+     *
+     * @return run counts by command
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * Returns the median run time of each command.
+     *
+     * @return p50 latency by command
+     */
+    Map<String, Long> getCommandP50Nanos();
+
+    /**
+     * Returns the 99th percentile run time of each command.
+     *
+     * @return p99 latency by command
+     */
+    Map<String, Long> getCommandP99Nanos();
+
+    /**
+     * Returns the longest run time of each command.
+     *
+     * @return maximum latency by command
+     */
+    Map<String, Long> getCommandMaxNanos();
+
+    /**
+     * Returns the mean bytes allocated by the running thread per run of each command.
+     *
+     * @return allocation per run by command, or an empty map if the JVM cannot measure it
+     */
+    Map<String, Long> getCommandAllocatedBytesPerRun();
+
+    /**
+     * Returns the total time spent in each storage phase, such as {@code load.io} and {@code load.parse}.
+     *
+     * @return total time by phase
+     */
+    Map<String, Long> getPhaseTotalNanos();
+
+    /**
+     * Returns the figures as the {@code stats} command shows them.
+     *
+     * @return the report
+     */
+    String getReport();
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    void reset();
+}
@@ -1,98 +1,796 @@
 package sisyphus;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * Handles persistence of tasks to and from a simple text file in the project directory.
- * The file format stores task type, completion flag, and task-specific fields separated by " | ".
+ * The file format stores task type, completion flag, task-specific fields and the task's ID separated by " | ".
+ * IDs are saved, along with the highest one handed out, so an ID names the same task across restarts.
+ * A compact binary format (see {@link BinaryFormat}) can be used instead; it is detected on load.
+ * Mutations between saves are appended to a journal next to the data file and replayed on load.
  */
 public class Storage {
     /**
-     * Saves the list of tasks to the specified file.
+     * On-disk snapshot formats.
+     */
+    public enum Format {
+        /** One " | "-separated line per task. */
+        TEXT,
+        /** Tagged records with epoch-minute dates, see {@link BinaryFormat}. */
+        BINARY
+    }
+
+    /** Journal size in bytes past which the next mutation rewrites the snapshot instead. */
+    static final long COMPACT_THRESHOLD = Long.getLong("sisyphus.journal.compactBytes", 1 << 20);
+    /** Whether text snapshots are loaded lazily, see {@link SnapshotLoader}. */
+    static final boolean LAZY_LOAD = Boolean.parseBoolean(System.getProperty("sisyphus.storage.lazy", "true"));
+    /** Whether loaded tasks are kept in a {@link ColumnarTaskList}, for very large lists. */
+    static final boolean COLUMNAR = Boolean.parseBoolean(System.getProperty("sisyphus.storage.columnar", "false"));
+    static final Journal.SyncPolicy SYNC_POLICY = Journal.SyncPolicy.valueOf(
+            System.getProperty("sisyphus.journal.sync", "always").toUpperCase(Locale.ROOT));
+
+    private static final String RECORD_ADD = "A";
+    private static final String RECORD_MARK = "M";
+    private static final String RECORD_UNMARK = "U";
+    private static final String RECORD_DELETE = "X";
+    private static final String SEPARATOR = " | ";
+
+    private Journal journal;
+    private String loadError;
+    /** The data file that failed to load, which saves must not overwrite. */
+    private Path unreadablePath;
+    private boolean isJournaling = true;
+    /** Highest task ID loaded or journaled, saved with each snapshot so IDs of deleted tasks stay unused. */
+    private final AtomicInteger lastId = new AtomicInteger();
+    /** Messages for the user, one per line, waiting to be shown with the next response. */
+    private final StringBuilder notices = new StringBuilder();
+    private Format format = Format.valueOf(
+            System.getProperty("sisyphus.storage.format", "text").toUpperCase(Locale.ROOT));
+
+    /**
+     * Saves the list of tasks to the specified file, in the format the data file was loaded in
+     * (text unless the sisyphus.storage.format property says otherwise for new files).
+     * The file is written to a temporary sibling first and then moved over the original, so a crash
+     * never leaves a half-written snapshot. Saving the loaded data file also empties its journal.
+     * A data file that failed to load is never overwritten, see {@link #getLoadError()}.
      *
      * @param listToSave The list of tasks to be saved.
      * @param path       The file path where the tasks will be saved.
+     * @return whether the file was written; if not, the reason is queued for {@link #takeNotices()}
      */
-    public void saveFile(ArrayList<Task> listToSave, String path) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
-            for (Task t : listToSave) {
-                String taskName = t.getName();
-                int isDone = t.isDone() ? 1 : 0;
-
-                String taskType = t.getClass().getSimpleName();
-                switch (taskType) {
-                case "TodoTask":
-                    writer.println("T | " + isDone + " | " + taskName);
-                    break;
-                case "DeadlineTask":
-                    DeadlineTask dt = (DeadlineTask) t;
-                    writer.println("D | " + isDone + " | " + taskName + " | " + dt.getDeadlineString());
-                    break;
-                case "EventTask":
-                    EventTask et = (EventTask) t;
-                    writer.println("E | " + isDone + " | " + taskName + " | "
-                            + et.getStartString() + " | " + et.getEndString());
-                    break;
-                default:
-                    throw new IllegalStateException("Unexpected value: " + taskType);
+    public boolean saveFile(ArrayList<Task> listToSave, String path) {
+        return save(new Snapshot(listToSave), path);
+    }
+
+    /**
+     * Saves a list of tasks as {@link #saveFile(ArrayList, String)} does. A {@link ColumnarTaskList} is written
+     * straight from its columns, without making an object for any task.
+     *
+     * @param listToSave The list of tasks to be saved.
+     * @param path       The file path where the tasks will be saved.
+     * @return whether the file was written; if not, the reason is queued for {@link #takeNotices()}
+     */
+    public boolean saveFile(TaskList listToSave, String path) {
+        return save(listToSave instanceof ColumnarTaskList
+                ? new Snapshot((ColumnarTaskList) listToSave)
+                : new Snapshot(listToSave.getTasks()), path);
+    }
+
+    private boolean save(Snapshot snapshot, String path) {
+        Path target = Paths.get(path).toAbsolutePath();
+        if (target.equals(unreadablePath)) {
+            notice("Not saved: " + path + " could not be loaded, so saving would overwrite it.");
+            return false;
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            long checksum = writeSnapshot(snapshot, temp, format, lastId.get());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (journal != null && journal.getDataPath().equals(path)) {
+                journal.reset(checksum);
+            }
+            return true;
+        } catch (IOException e) {
+            notice("Error saving file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the loaded data file if the list has changed since the given modification count, holding the
+     * list's lock only to copy it and, once the snapshot is written, to swap it in. Journal records made
+     * while the snapshot was being written are carried over to the new journal. Nothing is saved if no
+     * data file was loaded or it failed to load, or if a full save replaced the journal in the meantime.
+     *
+     * @param todoList      the loaded list
+     * @param savedModCount the list's modification count when it was last saved
+     * @return the modification count now on disk, or savedModCount if nothing was saved
+     * @throws IOException if the snapshot or journal cannot be written
+     */
+    long checkpoint(TaskList todoList, long savedModCount) throws IOException {
+        try {
+            Checkpoint checkpoint = todoList.atomically(() -> {
+                if (journal == null || loadError != null || todoList.getModCount() == savedModCount) {
+                    return null;
                 }
+                Snapshot snapshot = todoList instanceof ColumnarTaskList
+                        ? new Snapshot(((ColumnarTaskList) todoList).copy())
+                        : new Snapshot(todoList.getTasks());
+                return new Checkpoint(snapshot, todoList.getModCount(), format, position(journal), lastId.get());
+            });
+            if (checkpoint == null) {
+                return savedModCount;
             }
+            Path target = Paths.get(journal.getDataPath()).toAbsolutePath();
+            Path temp = target.resolveSibling(target.getFileName() + ".checkpoint.tmp");
+            long checksum = writeSnapshot(checkpoint.snapshot, temp, checkpoint.format, checkpoint.lastId);
+            boolean isSwapped = todoList.atomically(() -> {
+                if (!journal.isCurrent(checkpoint.position) || format != checkpoint.format) {
+                    return false;
+                }
+                swap(checkpoint.position, checksum, temp, target);
+                return true;
+            });
+            if (!isSwapped) {
+                Files.deleteIfExists(temp);
+                return savedModCount;
+            }
+            return checkpoint.modCount;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Journal.Position position(Journal journal) {
+        try {
+            return journal.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Puts a checkpoint's snapshot in place with the journal records written after it was copied. */
+    private void swap(Journal.Position position, long checksum, Path temp, Path target) {
+        try {
+            journal.prepareRebase(position, checksum);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.commitRebase();
         } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rewrites the data file in another format; later saves keep using that format. If the file cannot be
+     * written, the data file and the format saves use are left as they were.
+     *
+     * @param listToSave the current tasks
+     * @param path       the data file path
+     * @param target     the format to switch to
+     * @return whether the file was rewritten; if not, the reason is queued for {@link #takeNotices()}
+     */
+    public boolean convert(TaskList listToSave, String path, Format target) {
+        Format previous = format;
+        format = target;
+        if (saveFile(listToSave, path)) {
+            return true;
+        }
+        format = previous;
+        return false;
+    }
+
+    /**
+     * Returns the data file this storage loaded and journals to, or null if nothing was loaded,
+     * as for an in-memory session.
+     *
+     * @return the loaded data file path, or null
+     */
+    public String getDataPath() {
+        return journal == null ? null : journal.getDataPath();
+    }
+
+    /**
+     * Closes the journal of the loaded data file, if one is open. The session then has no data file, as
+     * {@link #getDataPath()} tells, and mutations are no longer journaled.
+     */
+    void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Turns journaling of mutations on or off. With it off, changes only reach disk on the next
+     * save, which is what batch runs want: they checkpoint with whole saves instead.
+     *
+     * @param isJournaling whether mutations should be journaled
+     */
+    public void setJournaling(boolean isJournaling) {
+        this.isJournaling = isJournaling;
+    }
+
+    /**
+     * Returns the messages from loading, saving and journaling since the last call, one per line, and
+     * forgets them. Callers show them along with their own output, so they appear in order with it.
+     *
+     * @return the pending messages, each ending in a newline, or "" if there are none
+     */
+    public String takeNotices() {
+        synchronized (notices) {
+            String pending = notices.toString();
+            notices.setLength(0);
+            return pending;
+        }
+    }
+
+    /**
+     * Queues a message for the user, to be shown with the next response.
+     *
+     * @param message one or more lines, without a trailing newline
+     */
+    void notice(String message) {
+        synchronized (notices) {
+            notices.append(message).append('\n');
+        }
+    }
+
+    /**
+     * Returns the format the next save will be written in.
+     *
+     * @return the current snapshot format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /** Writes a snapshot in the given format and returns its CRC32. */
+    private static long writeSnapshot(Snapshot snapshot, Path temp, Format format, int lastId)
+            throws IOException {
+        Events.Save event = new Events.Save();
+        event.begin();
+        long started = System.nanoTime();
+        CRC32 checksum = new CRC32();
+        Stats.TimedOutputStream file = new Stats.TimedOutputStream(Files.newOutputStream(temp));
+        if (snapshot.columns != null) {
+            lastId = Math.max(lastId, snapshot.columns.getLastId());
+            snapshot.columns.save(format, lastId, file, checksum);
+        } else {
+            for (Task t : snapshot.tasks) {
+                lastId = Math.max(lastId, t.getId());
+            }
+            if (format == Format.BINARY) {
+                BinaryFormat.save(snapshot.tasks, lastId, file, checksum);
+            } else {
+                saveText(snapshot.tasks, lastId, file, checksum);
+            }
         }
-        System.out.println("Tasks saved.");
+        Stats.recordPhase(Stats.SAVE_IO, file.nanos());
+        Stats.recordPhase(Stats.SAVE_FORMAT, System.nanoTime() - started - file.nanos());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = temp.toString();
+            event.format = format.name();
+            event.records = snapshot.size();
+            event.bytes = file.bytes();
+            event.commit();
+        }
+        return checksum.getValue();
     }
 
     /**
-     * Takes data.txt from DATA_PATH and converts it to TaskList to be used
+     * Writes the highest ID handed out, then one line per task; lazily loaded tasks copy their original record
+     * with the current done flag, adding the ID they were given if the record had none.
+     */
+    private static void saveText(ArrayList<Task> listToSave, int lastId, OutputStream file, CRC32 checksum)
+            throws IOException {
+        try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), checksum)) {
+            out.write((SnapshotLoader.LAST_ID_HEADER + lastId + "\n").getBytes(StandardCharsets.US_ASCII));
+            for (Task t : listToSave) {
+                byte[] record = t.getRecord();
+                if (record != null) {
+                    out.write(record, 0, Task.RECORD_DONE_OFFSET);
+                    out.write(t.isDone() ? '1' : '0');
+                    out.write(record, Task.RECORD_DONE_OFFSET + 1, record.length - Task.RECORD_DONE_OFFSET - 1);
+                    if (t.getId() != 0 && !SnapshotLoader.endsWithId(record, t.getId())) {
+                        out.write((SEPARATOR + "#" + t.getId()).getBytes(StandardCharsets.US_ASCII));
+                    }
+                } else {
+                    out.write(formatTask(t).getBytes(StandardCharsets.UTF_8));
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Takes data.txt from DATA_PATH and converts it to TaskList to be used.
+     * The text and binary formats are told apart by the binary magic number.
+     * Records journaled since the last save are replayed on top, and the journal is kept open
+     * so later mutations on this list can be appended to it. If the snapshot or the journal cannot be
+     * read, both are left untouched and the session gets no data file, see {@link #getLoadError()}.
+     * Tasks keep the IDs they were saved with; tasks from files written before IDs were saved get new ones.
      *
      * @return todoList
      */
     public TaskList readFile(String path) {
-        ArrayList<Task> todoList = new ArrayList<>();
-        try (Scanner fileReader = new Scanner(new File(path))) {
-            while (fileReader.hasNextLine()) {
-                String line = fileReader.nextLine();
-                String[] parts = line.split(" \\| ");
-                if (parts.length < 3) {
-                    continue;
+        return COLUMNAR ? readColumnar(path) : readFile(path, TaskList::new);
+    }
+
+    /**
+     * Loads the data file as {@link #readFile(String)} does into a {@link ColumnarTaskList}, copying each task
+     * into the columns as it is read rather than loading a list of task objects first.
+     *
+     * @param path the data file path
+     * @return todoList
+     */
+    TaskList readColumnar(String path) {
+        return load(path, new Columns());
+    }
+
+    /**
+     * Loads the data file as {@link #readFile(String)} does, into a list of the caller's choosing.
+     *
+     * @param path    the data file path
+     * @param newList makes the list from the loaded tasks
+     * @return todoList
+     */
+    public TaskList readFile(String path, Function<ArrayList<Task>, TaskList> newList) {
+        return load(path, new TaskObjects(newList));
+    }
+
+    private TaskList load(String path, LoadTarget todoList) {
+        close(); // the journal of a file loaded before
+        Events.Load event = new Events.Load();
+        event.begin();
+        CRC32 snapshotChecksum = new CRC32();
+        Path source = Paths.get(path);
+        int snapshotRecords = 0;
+        int journalRecords = 0;
+        long nameLookups = NamePool.SHARED.lookups();
+        long nameHits = NamePool.SHARED.hits();
+        loadError = null;
+        unreadablePath = null;
+        lastId.set(0);
+        try {
+            if (BinaryFormat.isBinary(source)) {
+                format = Format.BINARY;
+                BinaryFormat.load(source, snapshotChecksum, lastId::set, todoList::add);
+            } else {
+                format = Format.TEXT;
+                SnapshotLoader loader = new SnapshotLoader(LAZY_LOAD && todoList.keepsLazyTasks());
+                loader.load(source, snapshotChecksum, todoList::add);
+                lastId.set(loader.getLastId());
+            }
+            snapshotRecords = todoList.size();
+            notice(todoList.size() + " tasks loaded.");
+        } catch (NoSuchFileException e) {
+            notice("No file found, starting fresh!");
+        } catch (Exception e) {
+            failLoad(path, "Error reading file: " + e.getMessage());
+        }
+        if (loadError == null) {
+            Journal recovering = new Journal(Journal.pathFor(path), SYNC_POLICY);
+            try {
+                long started = System.nanoTime();
+                List<String> records = recovering.recover(snapshotChecksum.getValue());
+                for (String record : records) {
+                    replay(record, todoList);
                 }
-                String taskType = parts[0];
-                boolean isDone = parts[1].equals("1");
-                String taskName = parts[2];
-                Task task;
-                switch (taskType) {
-                case "T":
-                    task = new TodoTask(taskName);
-                    break;
-                case "D":
-                    task = new DeadlineTask(taskName, parts[3]);
-                    break;
-                case "E":
-                    task = new EventTask(taskName, parts[3], parts[4]);
-                    break;
-                default:
-                    throw new IllegalStateException("Unexpected value: " + taskType);
+                Stats.recordPhase(Stats.LOAD_REPLAY, System.nanoTime() - started);
+                journalRecords = records.size();
+                journal = recovering;
+                if (!records.isEmpty()) {
+                    notice(records.size() + " journal records replayed.");
                 }
-                if (task != null) {
-                    if (isDone) {
-                        task.complete();
+            } catch (Exception e) {
+                recovering.close();
+                failLoad(path, "Error reading journal: " + e.getMessage());
+            }
+        }
+        lastId.set(todoList.assignMissingIds(lastId.get()));
+        reportSharedNames(NamePool.SHARED.lookups() - nameLookups, NamePool.SHARED.hits() - nameHits);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.format = format.name();
+            event.records = snapshotRecords;
+            event.journalRecords = journalRecords;
+            event.bytes = source.toFile().length(); // 0 if there was no file
+            event.commit();
+        }
+        TaskList loaded = todoList.toList();
+        loaded.reserveIds(lastId.get());
+        return loaded;
+    }
+
+    /**
+     * What a load puts the snapshot's tasks and the journal's changes into. Tasks are added as read, some
+     * without an ID yet, and get their IDs once the journal has been replayed.
+     */
+    private interface LoadTarget {
+        void add(Task task);
+
+        int size();
+
+        void setDone(RangeSet positions, boolean isDone);
+
+        void remove(RangeSet positions);
+
+        /**
+         * Gives tasks loaded without an ID new ones above every ID loaded and above {@code highest}, in order.
+         *
+         * @return the highest ID now in use
+         */
+        int assignMissingIds(int highest);
+
+        /** Whether text records may stay unparsed until their task is used. */
+        boolean keepsLazyTasks();
+
+        TaskList toList();
+    }
+
+    /** Loads into a list of task objects, then makes the caller's list from it. */
+    private static final class TaskObjects implements LoadTarget {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final Function<ArrayList<Task>, TaskList> newList;
+
+        TaskObjects(Function<ArrayList<Task>, TaskList> newList) {
+            this.newList = newList;
+        }
+
+        @Override
+        public void add(Task task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public int size() {
+            return tasks.size();
+        }
+
+        @Override
+        public void setDone(RangeSet positions, boolean isDone) {
+            for (int k = 0; k < positions.rangeCount(); k++) {
+                for (int number = positions.start(k); number <= positions.end(k); number++) {
+                    Task task = tasks.get(number - 1);
+                    if (task.isDone() != isDone) {
+                        if (isDone) {
+                            task.complete();
+                        } else {
+                            task.incomplete();
+                        }
                     }
-                    todoList.add(task);
                 }
             }
-            System.out.println(todoList.size() + " tasks loaded.");
-        } catch (FileNotFoundException e) {
-            System.out.println("No file found, starting fresh!");
-        } catch (Exception e) {
-            System.out.println("Error reading file: " + e.getMessage());
         }
-        return new TaskList(todoList);
+
+        /** Removes the tasks at the given 1-based positions, shifting each kept task once. */
+        @Override
+        public void remove(RangeSet positions) {
+            int kept = positions.start(0) - 1;
+            for (int k = 0; k < positions.rangeCount(); k++) {
+                int keepUntil = k + 1 < positions.rangeCount() ? positions.start(k + 1) - 1 : tasks.size();
+                for (int i = positions.end(k); i < keepUntil; i++) {
+                    tasks.set(kept++, tasks.get(i));
+                }
+            }
+            tasks.subList(kept, tasks.size()).clear();
+        }
+
+        @Override
+        public int assignMissingIds(int highest) {
+            for (Task task : tasks) {
+                highest = Math.max(highest, task.getId());
+            }
+            for (Task task : tasks) {
+                if (task.getId() == 0) {
+                    task.assignId(++highest);
+                }
+            }
+            return highest;
+        }
+
+        @Override
+        public boolean keepsLazyTasks() {
+            return true;
+        }
+
+        @Override
+        public TaskList toList() {
+            return newList.apply(tasks);
+        }
+    }
+
+    /**
+     * Loads straight into the columns of a {@link ColumnarTaskList}: each task read is copied into a slot and
+     * dropped, so no list of task objects is ever held. Records are parsed as they are read, since a lazy
+     * task would be parsed anyway when copied.
+     */
+    private static final class Columns implements LoadTarget {
+        private final ColumnarTaskList columns = new ColumnarTaskList(new ArrayList<>());
+
+        @Override
+        public void add(Task task) {
+            columns.appendLoaded(task);
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+
+        @Override
+        public void setDone(RangeSet positions, boolean isDone) {
+            columns.setDone(positions, isDone);
+        }
+
+        @Override
+        public void remove(RangeSet positions) {
+            columns.removeTasks(positions);
+        }
+
+        @Override
+        public int assignMissingIds(int highest) {
+            return columns.assignMissingIds(highest);
+        }
+
+        @Override
+        public boolean keepsLazyTasks() {
+            return false;
+        }
+
+        @Override
+        public TaskList toList() {
+            return columns;
+        }
+    }
+
+    /**
+     * Leaves a data file that could not be read, and its journal, exactly as they are: the list loaded
+     * so far is incomplete, and saving it, or starting a journal for it, would replace what is on disk.
+     * Until the file is fixed and loaded again, the session has no data file and keeps changes in memory.
+     */
+    private void failLoad(String path, String error) {
+        loadError = error + "\n" + path + " and its journal were left untouched; changes made now will not"
+                + " be saved. Fix or move the file and restart.";
+        unreadablePath = Paths.get(path).toAbsolutePath();
+        close();
+        notice(loadError);
+    }
+
+    /**
+     * Returns why the data file could not be loaded, or null if it loaded, or did not exist yet.
+     * While this is set nothing is saved over the file or written to its journal.
+     *
+     * @return the error shown when loading, or null
+     */
+    public String getLoadError() {
+        return loadError;
+    }
+
+    /**
+     * Prints how many of the names decoded during a load were already pooled. Lazily loaded names are
+     * decoded on first use instead, so a lazy load of a well-formed file reports nothing.
+     */
+    private void reportSharedNames(long lookups, long hits) {
+        if (lookups > 0) {
+            notice(String.format(Locale.ROOT, "%d of %d task names shared (%.1f%% deduplicated).",
+                    hits, lookups, 100.0 * hits / lookups));
+        }
+    }
+
+    /**
+     * Journals a task that was appended to the list.
+     *
+     * @param task     the added task
+     * @param todoList the list after the change, snapshotted if the journal has grown too large
+     */
+    public void logAdd(Task task, TaskList todoList) {
+        lastId.accumulateAndGet(task.getId(), Math::max);
+        append(RECORD_ADD + SEPARATOR + formatTask(task), todoList);
+    }
+
+    /**
+     * Journals a mark or unmark of the task at a 1-based position.
+     *
+     * @param number   1-based index of the task
+     * @param isDone   whether the task was marked done
+     * @param todoList the list after the change, snapshotted if the journal has grown too large
+     */
+    public void logMark(int number, boolean isDone, TaskList todoList) {
+        append((isDone ? RECORD_MARK : RECORD_UNMARK) + SEPARATOR + number, todoList);
+    }
+
+    /**
+     * Journals a bulk mark or unmark as one record.
+     *
+     * @param positions the 1-based positions that were marked
+     * @param isDone    whether they were marked done
+     * @param todoList  the list after the change, snapshotted if the journal has grown too large
+     */
+    public void logMark(RangeSet positions, boolean isDone, TaskList todoList) {
+        append((isDone ? RECORD_MARK : RECORD_UNMARK) + SEPARATOR + positions, todoList);
+    }
+
+    /**
+     * Journals the deletion of the task at a 1-based position.
+     *
+     * @param number   1-based index of the removed task
+     * @param todoList the list after the change, snapshotted if the journal has grown too large
+     */
+    public void logDelete(int number, TaskList todoList) {
+        append(RECORD_DELETE + SEPARATOR + number, todoList);
+    }
+
+    /**
+     * Journals a bulk deletion as one record.
+     *
+     * @param positions the 1-based positions the removed tasks had before the deletion
+     * @param todoList  the list after the change, snapshotted if the journal has grown too large
+     */
+    public void logDelete(RangeSet positions, TaskList todoList) {
+        append(RECORD_DELETE + SEPARATOR + positions, todoList);
+    }
+
+    private void append(String record, TaskList todoList) {
+        if (journal == null || !isJournaling) {
+            return;
+        }
+        try {
+            journal.append(record);
+            if (journal.size() > COMPACT_THRESHOLD) {
+                saveFile(todoList, journal.getDataPath());
+            }
+        } catch (IOException e) {
+            notice("Error writing journal: " + e.getMessage());
+        }
+    }
+
+    /** Applies one journal record. Mark, unmark and delete records hold a position or a {@link RangeSet}. */
+    private void replay(String record, LoadTarget todoList) {
+        int split = record.indexOf(SEPARATOR);
+        String op = record.substring(0, split);
+        String arg = record.substring(split + SEPARATOR.length());
+        if (op.equals(RECORD_ADD)) {
+            Task task = parseTask(arg, lastId.get());
+            lastId.accumulateAndGet(task.getId(), Math::max);
+            todoList.add(task);
+            return;
+        }
+        RangeSet positions = RangeSet.parse(arg);
+        if (positions == null || positions.end(positions.rangeCount() - 1) > todoList.size()) {
+            throw new IllegalStateException("Unexpected journal record: " + record);
+        }
+        switch (op) {
+        case RECORD_MARK:
+        case RECORD_UNMARK:
+            todoList.setDone(positions, op.equals(RECORD_MARK));
+            break;
+        case RECORD_DELETE:
+            todoList.remove(positions);
+            break;
+        default:
+            throw new IllegalStateException("Unexpected journal record: " + record);
+        }
+    }
+
+    /** Formats a task as one data file line, ending in its ID if it has one, without the line terminator. */
+    static String formatTask(Task t) {
+        String taskName = t.getName();
+        int isDone = t.isDone() ? 1 : 0;
+        String id = t.getId() == 0 ? "" : SEPARATOR + "#" + t.getId();
+
+        String taskType = t.getClass().getSimpleName();
+        switch (taskType) {
+        case "TodoTask":
+            return "T | " + isDone + " | " + taskName + id;
+        case "DeadlineTask":
+            DeadlineTask dt = (DeadlineTask) t;
+            return "D | " + isDone + " | " + taskName + " | " + dt.getDeadlineString() + id;
+        case "EventTask":
+            EventTask et = (EventTask) t;
+            return "E | " + isDone + " | " + taskName + " | " + et.getStartString() + " | " + et.getEndString()
+                    + id;
+        default:
+            throw new IllegalStateException("Unexpected value: " + taskType);
+        }
+    }
+
+    /**
+     * Parses one data file line, returning null for lines with too few fields.
+     * Bulk loading goes through {@link SnapshotLoader}; this is used for single journal records.
+     *
+     * @param line  the record
+     * @param minId IDs up to this one are taken to be repeats and ignored, leaving the task without an ID
+     */
+    static Task parseTask(String line, int minId) {
+        String[] parts = line.split(" \\| ");
+        if (parts.length < 3) {
+            return null;
+        }
+        String taskType = parts[0];
+        boolean isDone = parts[1].equals("1");
+        String taskName = NamePool.SHARED.intern(parts[2]);
+        Task task;
+        switch (taskType) {
+        case "T":
+            task = new TodoTask(taskName);
+            break;
+        case "D":
+            task = new DeadlineTask(taskName, parts[3]);
+            break;
+        case "E":
+            task = new EventTask(taskName, parts[3], parts[4]);
+            break;
+        default:
+            throw new IllegalStateException("Unexpected value: " + taskType);
+        }
+        if (isDone) {
+            task.complete();
+        }
+        int idField = SnapshotLoader.idField(task);
+        if (parts.length == idField + 1) {
+            byte[] id = parts[idField].getBytes(StandardCharsets.UTF_8);
+            int parsed = SnapshotLoader.parseId(id, 0, id.length);
+            if (parsed > minId) {
+                task.assignId(parsed);
+            }
+        }
+        return task;
+    }
+
+    /** Tasks to save: the task objects, or the columns of a {@link ColumnarTaskList}. */
+    private static final class Snapshot {
+        private final ArrayList<Task> tasks;
+        private final ColumnarTaskList columns;
+
+        private Snapshot(ArrayList<Task> tasks) {
+            this.tasks = tasks;
+            this.columns = null;
+        }
+
+        private Snapshot(ColumnarTaskList columns) {
+            this.tasks = null;
+            this.columns = columns;
+        }
+
+        private int size() {
+            return columns != null ? columns.size() : tasks.size();
+        }
+    }
+
+    /** What a background checkpoint copied from the list, together under its lock. */
+    private static final class Checkpoint {
+        private final Snapshot snapshot;
+        private final long modCount;
+        private final Format format;
+        private final Journal.Position position;
+        private final int lastId;
+
+        private Checkpoint(Snapshot snapshot, long modCount, Format format, Journal.Position position,
+                int lastId) {
+            this.snapshot = snapshot;
+            this.modCount = modCount;
+            this.format = format;
+            this.position = position;
+            this.lastId = lastId;
+        }
     }
 }
@@ -1,11 +1,27 @@
 package sisyphus;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents a generic task with a name and completion status.
+ * <p>
+ * A task loaded lazily from the data file keeps its raw record and only reads its name (and, in
+ * subclasses, its dates) the first time one of them is asked for. Until then it is saved by writing the
+ * record straight back; once read, the record is dropped so the task does not hold its data twice.
+ * <p>
+ * The list a task is first added to gives it an ID that, unlike its position, does not change when
+ * other tasks are deleted. IDs are handed out in list order and saved with the task, so an ID keeps naming
+ * the same task after a restart, and the ID of a deleted task is never handed out again.
  */
 public class Task {
+    /** Offset of the done flag in a record kept by a lazily loaded task. */
+    static final int RECORD_DONE_OFFSET = 4;
+
     private String name;
-    private Boolean isDone = false;
+    private volatile boolean isDone;
+    private volatile byte[] record;
+    private volatile boolean isHydrated;
+    private int id;
 
     /**
      * Creates a new task with the given name. The task is initially not done.
@@ -16,6 +32,100 @@ public class Task {
         assert name != null : "Task name must not be null";
         assert !name.trim().isEmpty() : "Task name must not be empty";
         this.name = name;
+        this.record = null;
+        this.isHydrated = true;
+    }
+
+    /**
+     * Creates a task from a data file record that is parsed on first use.
+     * The record must have a one-character type and done flag and well-formed fields.
+     *
+     * @param record the record bytes, without the line terminator; not copied
+     * @param isDone the record's done flag
+     */
+    Task(byte[] record, boolean isDone) {
+        this.record = record;
+        this.isDone = isDone;
+    }
+
+    /**
+     * Returns the data file record this task was lazily loaded from, while its fields have not been read.
+     * Only the done flag at {@link #RECORD_DONE_OFFSET} can be out of date.
+     *
+     * @return the record bytes, or null if the task was not loaded lazily or has been hydrated since
+     */
+    byte[] getRecord() {
+        return record;
+    }
+
+    /**
+     * Reads the fields of a lazily loaded task from its record if that has not happened yet, then lets go of
+     * the record. Safe to call from several threads; the fields are parsed once.
+     */
+    final void hydrate() {
+        if (isHydrated) {
+            return;
+        }
+        synchronized (this) {
+            if (isHydrated) {
+                return;
+            }
+            int[] starts = new int[SnapshotLoader.MAX_FIELDS];
+            int[] ends = new int[SnapshotLoader.MAX_FIELDS];
+            SnapshotLoader.splitFields(record, 0, record.length, starts, ends);
+            name = NamePool.SHARED.intern(record, starts[2], ends[2]);
+            hydrate(record, starts, ends);
+            isHydrated = true;
+            record = null;
+        }
+    }
+
+    /**
+     * Reads one date field of a lazily loaded record without reading the others, so indexing tasks by time
+     * does not parse every record.
+     *
+     * @param field index of the " | "-separated field holding the date
+     * @return the date, or null if the task is not lazy (any more) and its fields hold the date
+     */
+    final LocalDateTime recordDate(int field) {
+        byte[] lazy = record;
+        if (lazy == null) {
+            return null;
+        }
+        int[] starts = new int[SnapshotLoader.MAX_FIELDS];
+        int[] ends = new int[SnapshotLoader.MAX_FIELDS];
+        SnapshotLoader.splitFields(lazy, 0, lazy.length, starts, ends);
+        return DateTimeParser.tryParse(lazy, starts[field], ends[field]);
+    }
+
+    /**
+     * Reads subclass fields from a lazily loaded record. Called once, before the task counts as hydrated.
+     *
+     * @param record the record bytes
+     * @param starts start offsets of the " | "-separated fields
+     * @param ends   end offsets of the fields
+     */
+    void hydrate(byte[] record, int[] starts, int[] ends) {
+    }
+
+    /**
+     * Returns the ID the task was given when it was first added to a list.
+     *
+     * @return the ID, or 0 if the task has not been added to a list yet
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gives the task its ID. Called once, by the first list it is added to.
+     *
+     * @param id a positive ID
+     */
+    void assignId(int id) {
+        assert this.id == 0 : "Task already has an ID";
+        assert id > 0 : "Task IDs are positive";
+        this.id = id;
     }
 
     /**
@@ -33,6 +143,7 @@ public class Task {
      * @return the task name
      */
     public String getName() {
+        hydrate();
         return this.name;
     }
 
@@ -43,9 +154,9 @@ public class Task {
      */
     public String toString() {
         if (isDone) {
-            return "[X] " + this.name;
+            return "[X] " + getName();
         } else {
-            return "[ ] " + this.name;
+            return "[ ] " + getName();
         }
     }
 
@@ -0,0 +1,348 @@
+package sisyphus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * Inverted index from the words of task names to the tasks containing them.
+ * Each distinct word also has all of its suffixes registered in a sorted map, so a query word
+ * matches any indexed word it is a substring of with one range lookup over the vocabulary
+ * instead of a scan over every task. Matching stays case-sensitive like the original find.
+ * Fuzzy searches go through a {@link TrigramIndex} of the same words, built in the background as soon as
+ * this index is; until it is ready they score every word of the vocabulary instead, with the same results.
+ */
+class TaskIndex {
+    /** Word to the tasks whose name contains that word. */
+    private final Map<String, Set<Task>> postings = new HashMap<>();
+    /** Suffix of an indexed word to the words ending with it. */
+    private final TreeMap<String, Set<String>> suffixes = new TreeMap<>();
+    /** Insertion sequence of each indexed task, used to return hits in list order. */
+    private final Map<Task, Long> sequence = new IdentityHashMap<>();
+    private long nextSequence;
+    /** Trigrams of the indexed words for fuzzy search, or null while they are being built. */
+    private TrigramIndex trigrams;
+    /** The trigram index being built from a copy of the words, or null once it is in use. */
+    private CompletableFuture<TrigramIndex> pendingTrigrams;
+    /** Words added (true) or dropped (false) since the copy was taken, to apply to the built index. */
+    private final Map<String, Boolean> changedWords = new HashMap<>();
+
+    /**
+     * Creates an index over the given tasks, in list order.
+     *
+     * @param tasks the tasks to index
+     */
+    TaskIndex(Collection<Task> tasks) {
+        int i = 0;
+        for (Task t : tasks) {
+            Cancellation.check(i++);
+            add(t);
+        }
+        List<String> vocabulary = new ArrayList<>(postings.keySet());
+        pendingTrigrams = CompletableFuture.supplyAsync(() -> new TrigramIndex(vocabulary), TrigramIndex.BUILDER);
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task the task to index
+     */
+    void add(Task task) {
+        sequence.put(task, nextSequence++);
+        for (String word : words(task.getName())) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks == null) {
+                tasks = Collections.newSetFromMap(new IdentityHashMap<>());
+                postings.put(word, tasks);
+                addSuffixes(word);
+                changeWord(word, true);
+            }
+            tasks.add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the index. Words no longer used by any task are dropped.
+     *
+     * @param task the task to remove
+     */
+    void remove(Task task) {
+        if (sequence.remove(task) == null) {
+            return;
+        }
+        for (String word : words(task.getName())) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks == null) {
+                continue;
+            }
+            tasks.remove(task);
+            if (tasks.isEmpty()) {
+                postings.remove(word);
+                removeSuffixes(word);
+                changeWord(word, false);
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose names contain every word of the query, in list order.
+     *
+     * @param query   one or more whitespace-separated words
+     * @param scanned told how many tasks were checked against every word: the tasks matching the rarest
+     *                word, or 0 if some word matches nothing
+     * @return the matching tasks, empty if none match or the query has no words
+     */
+    List<Task> search(String query, IntConsumer scanned) {
+        List<Set<Task>> candidates = candidates(query);
+        scanned.accept(candidates.isEmpty() ? 0 : candidates.get(0).size());
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Task> hits = new ArrayList<>();
+        int i = 0;
+        for (Task t : candidates.get(0)) {
+            Cancellation.check(i++);
+            if (containedInAll(t, candidates)) {
+                hits.add(t);
+            }
+        }
+        hits.sort((a, b) -> Long.compare(sequence.get(a), sequence.get(b)));
+        return hits;
+    }
+
+    /**
+     * Returns the tasks whose names best match the query, ignoring case and small typos, best first.
+     * Every query word must be similar to some word of the name (see {@link TrigramIndex}); a task scores
+     * the mean of its best similarity to each query word. Only the best {@code limit} are kept, in a heap,
+     * so ranking costs little however many tasks match. Equal scores go by ID, the order tasks were added in.
+     *
+     * @param query one or more whitespace-separated words
+     * @param limit most tasks to return
+     * @return at most limit tasks, best match first
+     */
+    List<Task> fuzzySearch(String query, int limit) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Double>> matches = new ArrayList<>(queryWords.size());
+        int rarest = 0;
+        long rarestTasks = Long.MAX_VALUE;
+        TrigramIndex index = trigrams();
+        for (String queryWord : queryWords) {
+            Map<String, Double> similar = index != null
+                    ? index.similar(queryWord)
+                    : TrigramIndex.similar(queryWord, postings.keySet());
+            if (similar.isEmpty()) {
+                return new ArrayList<>();
+            }
+            long tasks = 0;
+            for (String word : similar.keySet()) {
+                tasks += postings.get(word).size();
+                if (tasks >= rarestTasks) {
+                    break;
+                }
+            }
+            if (tasks < rarestTasks) {
+                rarest = matches.size();
+                rarestTasks = tasks;
+            }
+            matches.add(similar);
+        }
+        // Visit the candidates through the rarest query word's matches, best matching word first, so a task
+        // met again through a worse word can be skipped, and with one query word so can all worse words.
+        List<Map.Entry<String, Double>> byScore = new ArrayList<>(matches.get(rarest).entrySet());
+        byScore.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int i = 0;
+        for (Map.Entry<String, Double> entry : byScore) {
+            if (matches.size() == 1 && best.size() == limit && entry.getValue() < best.peek().score) {
+                break;
+            }
+            for (Task task : postings.get(entry.getKey())) {
+                Cancellation.check(i++);
+                if (byScore.size() > 1 && !seen.add(task)) {
+                    continue;
+                }
+                double score = matches.size() == 1 ? entry.getValue() : score(task, matches);
+                if (score == 0 || best.size() == limit && score < best.peek().score) {
+                    continue;
+                }
+                if (best.size() == limit && score == best.peek().score && task.getId() > best.peek().task.getId()) {
+                    continue;
+                }
+                best.add(new Hit(task, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        Task[] ranked = new Task[best.size()];
+        for (int k = ranked.length - 1; k >= 0; k--) {
+            ranked[k] = best.poll().task;
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /** Returns the mean over the query words of a task's best word score, or 0 if some query word has none. */
+    private static double score(Task task, List<Map<String, Double>> matches) {
+        List<String> taskWords = words(task.getName());
+        double total = 0;
+        for (Map<String, Double> similar : matches) {
+            double wordBest = 0;
+            for (String word : taskWords) {
+                wordBest = Math.max(wordBest, similar.getOrDefault(word, 0.0));
+            }
+            if (wordBest == 0) {
+                return 0;
+            }
+            total += wordBest;
+        }
+        return total / matches.size();
+    }
+
+    /**
+     * Returns the trigram index, putting it in use with the words changed since its build started if that has
+     * just finished, or null if it is still being built. Readers of a {@link ConcurrentTaskList} may get here
+     * together, hence the lock; changes to the words hold the list's write lock besides.
+     */
+    private synchronized TrigramIndex trigrams() {
+        if (trigrams == null && pendingTrigrams != null && pendingTrigrams.isDone()) {
+            trigrams = pendingTrigrams.join();
+            pendingTrigrams = null;
+            changedWords.forEach(this::applyChange);
+            changedWords.clear();
+        }
+        return trigrams;
+    }
+
+    /** Passes a word's change on to the trigram index, or keeps it for when the index is built. */
+    private synchronized void changeWord(String word, boolean isAdded) {
+        if (trigrams() != null) {
+            applyChange(word, isAdded);
+        } else if (pendingTrigrams != null) {
+            changedWords.put(word, isAdded);
+        } // else still in the constructor, which copies the words for the build once they are all in
+    }
+
+    private void applyChange(String word, boolean isAdded) {
+        if (isAdded) {
+            trigrams.add(word);
+        } else {
+            trigrams.remove(word);
+        }
+    }
+
+    /**
+     * Resolves each query word to the tasks matching it, smallest set first, so intersecting can start
+     * from the rarest word. Returns an empty list if the query has no words or a word matches nothing.
+     */
+    private List<Set<Task>> candidates(String query) {
+        List<String> queryWords = words(query);
+        List<Set<Task>> candidates = new ArrayList<>(queryWords.size());
+        for (String word : queryWords) {
+            Set<Task> matches = lookup(word);
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+            candidates.add(matches);
+        }
+        candidates.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        return candidates;
+    }
+
+    private boolean containedInAll(Task task, List<Set<Task>> candidates) {
+        for (int i = 1; i < candidates.size(); i++) {
+            if (!candidates.get(i).contains(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns every task with a word containing the given fragment. */
+    private Set<Task> lookup(String fragment) {
+        Map<String, Set<String>> range = suffixes.subMap(fragment, true, fragment + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> words = new HashSet<>();
+        for (Set<String> wordSet : range.values()) {
+            words.addAll(wordSet);
+        }
+        if (words.size() == 1) {
+            return postings.get(words.iterator().next());
+        }
+        Set<Task> tasks = Collections.newSetFromMap(new IdentityHashMap<>());
+        int i = 0;
+        for (String word : words) {
+            Cancellation.check(i++);
+            tasks.addAll(postings.get(word));
+        }
+        return tasks;
+    }
+
+    private void addSuffixes(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            suffixes.computeIfAbsent(word.substring(i), k -> new HashSet<>()).add(word);
+        }
+    }
+
+    private void removeSuffixes(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            String suffix = word.substring(i);
+            Set<String> words = suffixes.get(suffix);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    suffixes.remove(suffix);
+                }
+            }
+        }
+    }
+
+    /** A fuzzy search result; the heap's head is the worst kept, lowest score then latest added. */
+    private static final class Hit implements Comparable<Hit> {
+        private final Task task;
+        private final double score;
+
+        Hit(Task task, double score) {
+            this.task = task;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.task.getId(), task.getId());
+        }
+    }
+
+    /** Splits text on whitespace without going through a regex. */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean boundary = i == text.length() || Character.isWhitespace(text.charAt(i));
+            if (boundary && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            } else if (!boundary && start < 0) {
+                start = i;
+            }
+        }
+        return words;
+    }
+}
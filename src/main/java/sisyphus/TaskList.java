@@ -1,21 +1,50 @@
 package sisyphus;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
- * A simple wrapper around an ArrayList of tasks that provides basic operations
+ * A simple wrapper around a list of tasks that provides basic operations
  * used by the application (add, remove, access, and size checks).
+ * The tasks are kept in a {@link ChunkedList}, so access and removal by position take O(log n)
+ * rather than shifting every later task. Tasks added here for the first time get the next ID.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private final ChunkedList<Task> tasks = new ChunkedList<>();
+    /** Word index for find; built on the first search and kept up to date by add/remove after that. */
+    private TaskIndex index;
+    /** Time order for latest and between; built on first use and kept up to date after that. */
+    private TimeIndex timeIndex;
+    /** Event intervals for at, busy and free; built on first use and kept up to date after that. */
+    private IntervalIndex intervals;
+    /**
+     * Dated tasks not yet done, for reminders and upcoming; built on first use. A second time index, kept in
+     * step by every add, delete, mark and unmark, so that finding the next due task never walks past done ones.
+     */
+    private TimeIndex pending;
+    /** Told about each dated task that becomes pending, so reminders can wake up earlier; may be null. */
+    private volatile Consumer<Task> pendingListener;
+    /** Number of changes made so far, so a saver can tell whether anything is left to write. */
+    private long modCount;
+    /** Highest ID given out or seen in this list. */
+    private int lastId;
+    /** Whether IDs increase along the list, so a task can be found by ID with a binary search. */
+    private boolean isIdOrdered = true;
 
     /**
-     * Creates a TaskList backed by the provided task list.
+     * Creates a TaskList holding the provided tasks; later changes to the given list are not seen.
      *
      * @param tasks the initial list of tasks
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        for (Task task : tasks) {
+            append(task);
+        }
     }
 
     /**
@@ -26,22 +55,200 @@ public class TaskList {
     public void addTask(Task task) {
         assert task != null : "Cannot add null task";
         int oldSize = tasks.size();
-        tasks.add(task);
+        append(task);
+        if (index != null) {
+            index.add(task);
+        }
+        if (timeIndex != null) {
+            timeIndex.add(task);
+        }
+        if (intervals != null) {
+            intervals.add(task);
+        }
+        if (!task.isDone()) {
+            addPending(task);
+        }
+        modCount++;
         assert tasks.size() == oldSize + 1 : "Size should increase by 1 after add";
     }
 
+    /** Adds a task to the end, giving it an ID if it has none yet. */
+    private void append(Task task) {
+        if (task.getId() == 0) {
+            task.assignId(++lastId);
+        } else {
+            isIdOrdered &= task.getId() > lastId;
+            lastId = Math.max(lastId, task.getId());
+        }
+        tasks.add(task);
+    }
+
     /**
      * Removes the task at the given 1-based position.
      *
      * @param number 1-based index of the task to remove
+     * @return the removed task
      */
-    public void removeTask(int number) {
+    public Task removeTask(int number) {
         if (number <= 0 || number > tasks.size()) {
             throw new IndexOutOfBoundsException("Index: " + number + " Size: " + tasks.size());
         }
         int oldSize = tasks.size();
-        tasks.remove(number - 1);
+        Task removed = tasks.remove(number - 1);
+        if (index != null) {
+            index.remove(removed);
+        }
+        if (timeIndex != null) {
+            timeIndex.remove(removed);
+        }
+        if (intervals != null) {
+            intervals.remove(removed);
+        }
+        if (pending != null) {
+            pending.remove(removed);
+        }
+        modCount++;
         assert tasks.size() == oldSize - 1 : "Size should decrease by 1 after remove";
+        return removed;
+    }
+
+    /**
+     * Marks the task at the given 1-based position as done or not done.
+     * Setting a task to the state it is already in is a no-op.
+     *
+     * @param number 1-based index of the task
+     * @param isDone the new completion state
+     * @return the updated task
+     */
+    public Task setDone(int number, boolean isDone) {
+        Task task = get(number);
+        if (isDone && !task.isDone()) {
+            task.complete();
+            removePending(task);
+            modCount++;
+        } else if (!isDone && task.isDone()) {
+            task.incomplete();
+            addPending(task);
+            modCount++;
+        }
+        return task;
+    }
+
+    /**
+     * Marks every task at the given positions as done or not done, in one pass.
+     *
+     * @param positions 1-based positions, all within the list
+     * @param isDone    the new completion state
+     * @return the number of tasks whose state changed
+     */
+    int setDone(RangeSet positions, boolean isDone) {
+        int changed = 0;
+        for (int k = 0; k < positions.rangeCount(); k++) {
+            for (int number = positions.start(k); number <= positions.end(k); number++) {
+                Task task = get(number);
+                if (task.isDone() != isDone) {
+                    if (isDone) {
+                        task.complete();
+                        removePending(task);
+                    } else {
+                        task.incomplete();
+                        addPending(task);
+                    }
+                    changed++;
+                }
+            }
+        }
+        modCount += changed;
+        return changed;
+    }
+
+    /**
+     * Removes the tasks at the given positions in one pass.
+     *
+     * @param positions 1-based positions, all within the list
+     * @return the number of tasks removed
+     */
+    int removeTasks(RangeSet positions) {
+        int[] number = {0};
+        int[] range = {0};
+        return removeWhere(t -> {
+            number[0]++;
+            while (range[0] < positions.rangeCount() && positions.end(range[0]) < number[0]) {
+                range[0]++;
+            }
+            return range[0] < positions.rangeCount() && positions.start(range[0]) <= number[0];
+        }).size();
+    }
+
+    /**
+     * Removes every task the filter accepts in one pass.
+     *
+     * @param filter returns true for tasks to remove
+     * @return the 1-based positions the removed tasks had, for journaling
+     */
+    RangeSet removeTasks(Predicate<Task> filter) {
+        return removeWhere(filter);
+    }
+
+    /**
+     * Removes every task that is done in one pass.
+     *
+     * @return the 1-based positions the removed tasks had, for journaling
+     */
+    RangeSet removeDone() {
+        return removeWhere(Task::isDone);
+    }
+
+    private RangeSet removeWhere(Predicate<Task> filter) {
+        RangeSet removed = new RangeSet();
+        int[] number = {0};
+        tasks.removeIf(t -> {
+            number[0]++;
+            if (!filter.test(t)) {
+                return false;
+            }
+            removed.add(number[0]);
+            if (index != null) {
+                index.remove(t);
+            }
+            if (timeIndex != null) {
+                timeIndex.remove(t);
+            }
+            if (intervals != null) {
+                intervals.remove(t);
+            }
+            if (pending != null) {
+                pending.remove(t);
+            }
+            return true;
+        });
+        modCount += removed.size();
+        return removed;
+    }
+
+    private void addPending(Task task) {
+        if (pending != null) {
+            pending.add(task);
+        }
+        notifyPending(task);
+    }
+
+    /**
+     * Tells the pending listener, if any, that a task is now pending, provided it has a due time.
+     *
+     * @param task the task that was added or unmarked
+     */
+    void notifyPending(Task task) {
+        Consumer<Task> listener = pendingListener;
+        if (listener != null && TimeIndex.timeOf(task) != null) {
+            listener.accept(task);
+        }
+    }
+
+    private void removePending(Task task) {
+        if (pending != null) {
+            pending.remove(task);
+        }
     }
 
     /**
@@ -62,6 +269,16 @@ public class TaskList {
         return tasks.size();
     }
 
+    /**
+     * Returns how many changes have been made to the list. Adds, removes and marks that change a
+     * task's state each count once, so an unchanged count means there is nothing new to save.
+     *
+     * @return the modification count
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
     /**
      * Returns the task at the given 1-based index.
      *
@@ -76,11 +293,284 @@ public class TaskList {
     }
 
     /**
-     * Returns the underlying mutable task list.
+     * Returns the position of the task with the given ID.
+     *
+     * @param id the task ID
+     * @return its 1-based index, or -1 if no task in the list has that ID
+     */
+    public int indexOfId(int id) {
+        if (isIdOrdered) {
+            int i = tasks.binarySearch(Task::getId, id);
+            return i < 0 ? -1 : i + 1;
+        }
+        int i = 0;
+        for (Task t : tasks) {
+            i++;
+            if (t.getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes tasks added from now on get IDs above the given one, so the IDs of tasks deleted before the list
+     * was saved are not handed out again.
      *
-     * @return the tasks backing this TaskList
+     * @param id the highest ID handed out so far
+     */
+    void reserveIds(int id) {
+        lastId = Math.max(lastId, id);
+    }
+
+    /**
+     * Returns the highest ID given out or seen in this list.
+     *
+     * @return the highest ID, or 0 if there has been none
+     */
+    int getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the tasks whose names contain every word of the query, in list order.
+     * Each query word matches as a case-sensitive substring of a word in the task name.
+     *
+     * @param query one or more whitespace-separated words
+     * @return the matching tasks
+     */
+    public List<Task> search(String query) {
+        return search(query, scanned -> { });
+    }
+
+    /**
+     * Searches as {@link #search(String)} does, also reporting how hard it worked.
+     *
+     * @param query   one or more whitespace-separated words
+     * @param scanned told how many tasks were checked against the whole query
+     * @return the matching tasks
+     */
+    List<Task> search(String query, IntConsumer scanned) {
+        return index().search(query, scanned);
+    }
+
+    /**
+     * Returns the tasks whose names best match the query, ignoring case and small typos, best match first.
+     *
+     * @param query one or more whitespace-separated words
+     * @param limit most tasks to return
+     * @return at most limit tasks, ranked by similarity to the query
+     */
+    public List<Task> fuzzySearch(String query, int limit) {
+        return index().fuzzySearch(query, limit);
+    }
+
+    /**
+     * Returns the tasks ordered by deadline or event start, earliest first, followed by the
+     * tasks without a time in list order. Tasks with the same time keep their list order.
+     *
+     * @return the tasks in time order
+     */
+    public List<Task> sortedByTime() {
+        List<Task> sorted = timeIndex().inOrder();
+        int i = 0;
+        for (Task t : tasks) {
+            Cancellation.check(i++);
+            if (TimeIndex.timeOf(t) == null) {
+                sorted.add(t);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns one page of {@link #sortedByTime()} without building the whole order.
+     *
+     * @param offset number of tasks in time order to skip
+     * @param limit  maximum number of tasks to return
+     * @return at most limit tasks in time order
+     */
+    public List<Task> sortedByTime(int offset, int limit) {
+        TimeIndex byTime = timeIndex();
+        List<Task> page = byTime.inOrder(offset, limit);
+        int undatedToSkip = Math.max(0, offset - byTime.size());
+        int i = 0;
+        for (Task t : tasks) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Cancellation.check(i++);
+            if (TimeIndex.timeOf(t) != null) {
+                continue;
+            }
+            if (undatedToSkip > 0) {
+                undatedToSkip--;
+            } else {
+                page.add(t);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the tasks whose deadline or event start falls in [from, to), earliest first.
+     *
+     * @param from inclusive lower bound
+     * @param to   exclusive upper bound
+     * @return the tasks in the window
+     */
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        return timeIndex().between(from, to);
+    }
+
+    /**
+     * Returns the events taking place at a time.
+     *
+     * @param time the time
+     * @return events that have started by then and not yet ended, earliest start first
+     */
+    public List<EventTask> eventsAt(LocalDateTime time) {
+        return intervals().at(time);
+    }
+
+    /**
+     * Returns the events that overlap a window.
+     *
+     * @param from start of the window, inclusive
+     * @param to   end of the window, exclusive
+     * @return events starting before to and ending after from, earliest start first
+     */
+    public List<EventTask> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return intervals().overlapping(from, to);
+    }
+
+    /**
+     * Returns the next deadlines and event starts that are not done, at or after a time.
+     *
+     * @param from  the earliest due time to include, usually now
+     * @param limit maximum number of tasks to return
+     * @return at most limit tasks, earliest first
+     */
+    public List<Task> upcoming(LocalDateTime from, int limit) {
+        return pending().from(from, limit);
+    }
+
+    /**
+     * Returns the deadlines and event starts that are not done and fall in [from, to), earliest first.
+     *
+     * @param from inclusive lower bound
+     * @param to   exclusive upper bound
+     * @return the pending tasks due in the window
+     */
+    List<Task> pendingBetween(LocalDateTime from, LocalDateTime to) {
+        return pending().between(from, to);
+    }
+
+    /**
+     * Returns the earliest due time of a pending task at or after the given time.
+     *
+     * @param from inclusive lower bound
+     * @return that time, or null if nothing pending is due then or later
+     */
+    LocalDateTime nextPendingTime(LocalDateTime from) {
+        return pending().firstTimeFrom(from);
+    }
+
+    /**
+     * Sets who is told when a dated task is added or unmarked, which is how {@link Reminders} learns of
+     * work due sooner than it was going to wake up for. The listener runs inside the change, so it must
+     * return quickly and not touch the list.
+     *
+     * @param listener the listener, or null for none
+     */
+    void setPendingListener(Consumer<Task> listener) {
+        pendingListener = listener;
+    }
+
+    /**
+     * Runs a compound action, such as a change plus its journal record, as one unit.
+     * A plain TaskList is used by one command thread at a time, so this only excludes the background
+     * checkpointer; {@link ConcurrentTaskList} holds its write lock for the duration.
+     *
+     * @param action the action to run
+     * @param <T>    the result type
+     * @return the action's result
+     */
+    public synchronized <T> T atomically(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * Builds the lazy indexes up front so later reads never have to. The fuzzy search index is only started,
+     * in the background, as it is whenever the word index is built.
+     */
+    void buildIndexes() {
+        index();
+        timeIndex();
+        intervals();
+        pending();
+    }
+
+    /**
+     * Returns the word index, building it if needed. This and the other lazy index getters hold the monitor
+     * {@link #atomically} does, so a query building one on the command thread never races the reminder thread
+     * building or reading the same index inside atomically.
+     */
+    private synchronized TaskIndex index() {
+        if (index == null) {
+            index = new TaskIndex(tasks);
+        }
+        return index;
+    }
+
+    private synchronized IntervalIndex intervals() {
+        if (intervals == null) {
+            intervals = new IntervalIndex(tasks);
+        }
+        return intervals;
+    }
+
+    /** Builds the pending index aside and keeps it only once complete, so a cancelled build leaves none. */
+    private synchronized TimeIndex pending() {
+        if (pending == null) {
+            TimeIndex built = new TimeIndex(List.of());
+            int i = 0;
+            for (Task t : tasks) {
+                Cancellation.check(i++);
+                if (!t.isDone()) {
+                    built.add(t);
+                }
+            }
+            pending = built;
+        }
+        return pending;
+    }
+
+    private synchronized TimeIndex timeIndex() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex(tasks);
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Returns a copy of the tasks in list order; changing it does not affect this TaskList.
+     *
+     * @return a snapshot of the tasks
      */
     public ArrayList<Task> getTasks() {
-        return tasks;
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Returns a copy of one page of the tasks in list order.
+     *
+     * @param offset number of tasks to skip from the start of the list
+     * @param limit  maximum number of tasks to return
+     * @return at most limit tasks
+     */
+    public ArrayList<Task> getTasks(int offset, int limit) {
+        int from = Math.min(offset, tasks.size());
+        return new ArrayList<>(tasks.subList(from, (int) Math.min((long) from + limit, tasks.size())));
     }
 }
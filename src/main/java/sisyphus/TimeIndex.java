@@ -0,0 +1,183 @@
+package sisyphus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of the dated tasks in a list, keyed on a deadline's due time or an event's start.
+ * Tasks sharing a time keep their list order, since adds only ever append and removals keep
+ * the relative order of what is left.
+ */
+class TimeIndex {
+    private final TreeMap<LocalDateTime, Set<Task>> byTime = new TreeMap<>();
+    private int size;
+
+    /**
+     * Creates an index over the given tasks, in list order.
+     *
+     * @param tasks the tasks to index; undated ones are skipped
+     */
+    TimeIndex(Collection<Task> tasks) {
+        int i = 0;
+        for (Task t : tasks) {
+            Cancellation.check(i++);
+            add(t);
+        }
+    }
+
+    /**
+     * Returns the time a task is ordered by, or null for tasks without one. A lazily loaded task stays lazy.
+     *
+     * @param task the task
+     * @return the deadline for a deadline task, the start for an event, otherwise null
+     */
+    static LocalDateTime timeOf(Task task) {
+        if (task instanceof DeadlineTask) {
+            return ((DeadlineTask) task).peekDeadline();
+        } else if (task instanceof EventTask) {
+            return ((EventTask) task).peekStart();
+        }
+        return null;
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task the task to index
+     */
+    void add(Task task) {
+        LocalDateTime time = timeOf(task);
+        if (time != null) {
+            if (byTime.computeIfAbsent(time, k -> new LinkedHashSet<>()).add(task)) {
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task the task to remove
+     */
+    void remove(Task task) {
+        LocalDateTime time = timeOf(task);
+        if (time == null) {
+            return;
+        }
+        Set<Task> tasks = byTime.get(time);
+        if (tasks == null || !tasks.remove(task)) {
+            return;
+        }
+        size--;
+        if (tasks.isEmpty()) {
+            byTime.remove(time);
+        }
+    }
+
+    /**
+     * Returns every dated task, earliest first.
+     *
+     * @return the dated tasks in time order
+     */
+    List<Task> inOrder() {
+        List<Task> tasks = new ArrayList<>();
+        int i = 0;
+        for (Set<Task> sameTime : byTime.values()) {
+            Cancellation.check(i++);
+            tasks.addAll(sameTime);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns one page of the dated tasks, earliest first.
+     *
+     * @param offset number of dated tasks to skip
+     * @param limit  maximum number of tasks to return
+     * @return at most limit tasks
+     */
+    List<Task> inOrder(int offset, int limit) {
+        List<Task> tasks = new ArrayList<>(Math.min(limit, Math.max(0, size - offset)));
+        int skip = offset;
+        for (Set<Task> sameTime : byTime.values()) {
+            if (skip >= sameTime.size()) {
+                skip -= sameTime.size();
+                continue;
+            }
+            for (Task t : sameTime) {
+                if (skip > 0) {
+                    skip--;
+                } else if (tasks.size() < limit) {
+                    tasks.add(t);
+                } else {
+                    return tasks;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the number of dated tasks.
+     *
+     * @return how many tasks the index holds
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the dated tasks whose time falls in [from, to), earliest first.
+     *
+     * @param from inclusive lower bound
+     * @param to   exclusive upper bound
+     * @return the tasks in the window
+     */
+    List<Task> between(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return tasks;
+        }
+        int i = 0;
+        for (Set<Task> sameTime : byTime.subMap(from, true, to, false).values()) {
+            Cancellation.check(i++);
+            tasks.addAll(sameTime);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the first dated tasks at or after a time, earliest first.
+     *
+     * @param from  inclusive lower bound
+     * @param limit maximum number of tasks to return
+     * @return at most limit tasks
+     */
+    List<Task> from(LocalDateTime from, int limit) {
+        List<Task> tasks = new ArrayList<>(Math.min(limit, size));
+        for (Set<Task> sameTime : byTime.tailMap(from, true).values()) {
+            for (Task t : sameTime) {
+                if (tasks.size() == limit) {
+                    return tasks;
+                }
+                tasks.add(t);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the earliest time a task is indexed under at or after the given one.
+     *
+     * @param from inclusive lower bound
+     * @return that time, or null if no task is that late
+     */
+    LocalDateTime firstTimeFrom(LocalDateTime from) {
+        return byTime.ceilingKey(from);
+    }
+}
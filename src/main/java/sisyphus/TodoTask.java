@@ -14,6 +14,16 @@ public class TodoTask extends Task {
         super(name);
     }
 
+    /**
+     * Creates a to-do task from a data file record that is parsed on first use.
+     *
+     * @param record the record bytes
+     * @param isDone the record's done flag
+     */
+    TodoTask(byte[] record, boolean isDone) {
+        super(record, isDone);
+    }
+
     /**
      * Returns the formatted string representation with the to-do tag.
      *
@@ -0,0 +1,197 @@
+package sisyphus;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The conversation shown in the GUI, as a model separate from the controls that display it.
+ * Only the most recent messages are kept in memory; older ones are appended to a history file
+ * (or dropped, if there is none) so a long session does not grow without bound. The history file does
+ * not either: once it passes its size limit it is moved to a ".1" backup, replacing the previous one,
+ * and started afresh, so at most about twice the limit is kept on disk.
+ */
+public class Transcript implements Closeable {
+    /** Messages kept in memory unless the sisyphus.transcript.retained property says otherwise. */
+    public static final int DEFAULT_RETAINED = Integer.getInteger("sisyphus.transcript.retained", 1000);
+    /** History file used by the GUI unless the sisyphus.transcript.history property says otherwise. */
+    public static final String DEFAULT_HISTORY_PATH = System.getProperty("sisyphus.transcript.history",
+            "transcript.log");
+    /** Size in bytes of the history file past which it is rotated, unless sisyphus.transcript.maxBytes says. */
+    public static final long DEFAULT_MAX_HISTORY_BYTES = Long.getLong("sisyphus.transcript.maxBytes", 1 << 20);
+    private static final String BACKUP_SUFFIX = ".1";
+
+    /**
+     * Who a message is from.
+     */
+    public enum Speaker {
+        USER,
+        SISYPHUS
+    }
+
+    /**
+     * One message in the conversation.
+     */
+    public static final class Message {
+        private final Speaker speaker;
+        private final String text;
+
+        /**
+         * Creates a message.
+         *
+         * @param speaker who sent it
+         * @param text    what was said
+         */
+        public Message(Speaker speaker, String text) {
+            this.speaker = speaker;
+            this.text = text;
+        }
+
+        /**
+         * Returns who sent the message.
+         *
+         * @return the speaker
+         */
+        public Speaker getSpeaker() {
+            return speaker;
+        }
+
+        /**
+         * Returns the message text.
+         *
+         * @return the text
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final int capacity;
+    private final Path historyPath;
+    private final long maxHistoryBytes;
+    private final ArrayDeque<Message> retained = new ArrayDeque<>();
+    private BufferedWriter history;
+    private long historyBytes;
+    private long spilledCount;
+
+    /**
+     * Creates an empty transcript whose history file is rotated at {@link #DEFAULT_MAX_HISTORY_BYTES}.
+     *
+     * @param capacity    how many messages to keep in memory, at least 1
+     * @param historyPath file older messages are appended to, or null to drop them
+     */
+    public Transcript(int capacity, Path historyPath) {
+        this(capacity, historyPath, DEFAULT_MAX_HISTORY_BYTES);
+    }
+
+    /**
+     * Creates an empty transcript.
+     *
+     * @param capacity        how many messages to keep in memory, at least 1
+     * @param historyPath     file older messages are appended to, or null to drop them
+     * @param maxHistoryBytes size past which the history file is moved to a ".1" backup and started afresh
+     */
+    public Transcript(int capacity, Path historyPath, long maxHistoryBytes) {
+        assert capacity > 0 : "Transcript must retain at least one message";
+        this.capacity = capacity;
+        this.historyPath = historyPath;
+        this.maxHistoryBytes = maxHistoryBytes;
+    }
+
+    /**
+     * Adds a message, moving the oldest ones to the history file once more than the capacity are held.
+     *
+     * @param message the message to add
+     * @return the messages that were moved out of memory, oldest first; empty if none
+     */
+    public List<Message> add(Message message) {
+        retained.addLast(message);
+        if (retained.size() <= capacity) {
+            return List.of();
+        }
+        List<Message> spilled = new ArrayList<>(retained.size() - capacity);
+        while (retained.size() > capacity) {
+            spilled.add(retained.removeFirst());
+        }
+        spill(spilled);
+        return spilled;
+    }
+
+    /**
+     * Returns the number of messages kept in memory.
+     *
+     * @return the retained message count
+     */
+    public int size() {
+        return retained.size();
+    }
+
+    /**
+     * Returns the number of messages moved out of memory so far.
+     *
+     * @return the spilled message count
+     */
+    public long getSpilledCount() {
+        return spilledCount;
+    }
+
+    private void spill(List<Message> messages) {
+        spilledCount += messages.size();
+        if (historyPath == null) {
+            return;
+        }
+        try {
+            if (history == null) {
+                openHistory();
+            }
+            for (Message m : messages) {
+                String entry = (m.getSpeaker() == Speaker.USER ? "> " : "") + m.getText() + "\n\n";
+                int length = entry.getBytes(StandardCharsets.UTF_8).length;
+                if (historyBytes > 0 && historyBytes + length > maxHistoryBytes) {
+                    rotateHistory();
+                }
+                history.write(entry);
+                historyBytes += length;
+            }
+            history.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing transcript history: " + e.getMessage());
+        }
+    }
+
+    private void openHistory() throws IOException {
+        historyBytes = Files.exists(historyPath) ? Files.size(historyPath) : 0;
+        history = Files.newBufferedWriter(historyPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** Moves the history file to its backup, replacing the last one, and starts a new one. */
+    private void rotateHistory() throws IOException {
+        history.close();
+        history = null;
+        Path backup = historyPath.resolveSibling(historyPath.getFileName() + BACKUP_SUFFIX);
+        Files.move(historyPath, backup, StandardCopyOption.REPLACE_EXISTING);
+        openHistory();
+    }
+
+    /**
+     * Closes the history file, if one was opened.
+     *
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (history != null) {
+            history.close();
+            history = null;
+        }
+    }
+}
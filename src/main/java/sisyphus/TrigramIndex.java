@@ -0,0 +1,416 @@
+package sisyphus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds the words of a vocabulary that look like a query word, ignoring case and small typos.
+ * <p>
+ * Each word is broken into the three-character sequences (trigrams) of its lower-case form, padded with
+ * two spaces in front and one behind so that the start and end count for more, as in PostgreSQL's pg_trgm.
+ * Two words are as similar as the share of trigrams they have in common, so "standp" and "Standup" share
+ * 5 of the 10 trigrams between them. Only words sharing a trigram with the query are ever looked at,
+ * found through one posting list of word numbers per trigram.
+ * <p>
+ * Words removed from the vocabulary leave their numbers in the posting lists, where they are skipped,
+ * until they outnumber the live words and the lists are rebuilt.
+ * <p>
+ * Building an index over a large vocabulary takes seconds, so lists build theirs on {@link #BUILDER} and scan
+ * the vocabulary with {@link #similar(String, Iterable)} until it is ready; both give the same scores.
+ */
+class TrigramIndex {
+    /** Lowest similarity, from 0 to 1, at which a word counts as a match. */
+    static final double THRESHOLD = 0.3;
+    /** Runs index builds off the command thread, one at a time, on a thread that never keeps the JVM alive. */
+    static final Executor BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sisyphus-fuzzy-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final int MIN_REBUILD = 4096;
+
+    /** Word to its number. */
+    private final Map<String, Integer> ids = new HashMap<>();
+    /** Number to its word, or null once the word is removed. */
+    private final List<String> words = new ArrayList<>();
+    /** Number to its word in lower case; the same String when the word has no capitals. */
+    private final List<String> foldedWords = new ArrayList<>();
+    /** Number to how many distinct trigrams its word has. */
+    private int[] sizes = new int[16];
+    /** Trigram to the numbers of the words that have it. */
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int removed;
+
+    /**
+     * Creates an index over the given words.
+     *
+     * @param vocabulary the distinct words to index
+     */
+    TrigramIndex(Iterable<String> vocabulary) {
+        int i = 0;
+        for (String word : vocabulary) {
+            Cancellation.check(i++);
+            add(word);
+        }
+    }
+
+    /**
+     * Adds a word. Adding a word that is already indexed does nothing.
+     *
+     * @param word the word, as it appears in task names
+     */
+    void add(String word) {
+        if (ids.containsKey(word)) {
+            return;
+        }
+        int id = words.size();
+        String folded = fold(word);
+        words.add(word);
+        foldedWords.add(folded);
+        ids.put(word, id);
+        long[] grams = trigrams(folded);
+        if (id == sizes.length) {
+            sizes = Arrays.copyOf(sizes, id * 2);
+        }
+        sizes[id] = grams.length;
+        for (long gram : grams) {
+            postings.computeIfAbsent(gram, k -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * Removes a word.
+     *
+     * @param word the word, as it was added
+     */
+    void remove(String word) {
+        Integer id = ids.remove(word);
+        if (id == null) {
+            return;
+        }
+        words.set(id, null);
+        foldedWords.set(id, null);
+        removed++;
+        if (removed > MIN_REBUILD && removed > ids.size()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        List<String> live = new ArrayList<>(ids.size());
+        for (String word : words) {
+            if (word != null) {
+                live.add(word);
+            }
+        }
+        ids.clear();
+        words.clear();
+        foldedWords.clear();
+        postings.clear();
+        sizes = new int[Math.max(16, live.size())];
+        removed = 0;
+        for (String word : live) {
+            add(word);
+        }
+    }
+
+    /**
+     * Returns the indexed words that match a query word, with their similarity to it.
+     * A word containing the query, ignoring case, scores halfway between its similarity and 1, so
+     * "book" still finds "notebook" and ranks it above near misses.
+     *
+     * @param queryWord one word, without whitespace
+     * @return matching words mapped to a score of at least {@link #THRESHOLD}, at most 1 for an exact match
+     */
+    Map<String, Double> similar(String queryWord) {
+        String query = fold(queryWord);
+        long[] grams = trigrams(query);
+        SharedCounts shared = new SharedCounts();
+        int i = 0;
+        for (long gram : grams) {
+            Postings withGram = postings.get(gram);
+            if (withGram == null) {
+                continue;
+            }
+            for (int k = 0; k < withGram.size; k++) {
+                Cancellation.check(i++);
+                int id = withGram.ids[k];
+                if (words.get(id) != null) {
+                    shared.increment(id);
+                }
+            }
+        }
+        // A word containing the query has all of the query's unpadded trigrams.
+        int containedShare = Math.max(1, query.length() - 2);
+        Map<String, Double> matches = new HashMap<>();
+        for (int k = 0; k < shared.keys.length; k++) {
+            int id = shared.keys[k] - 1;
+            if (id < 0) {
+                continue;
+            }
+            int count = shared.counts[k];
+            double score = similarity(count, grams.length, sizes[id]);
+            if (count >= containedShare && foldedWords.get(id).contains(query)) {
+                score = (1 + score) / 2;
+            }
+            if (score >= THRESHOLD) {
+                matches.put(words.get(id), score);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the words of a vocabulary that match a query word, as {@link #similar(String)} would for an
+     * index of them, by scoring every word. For use while an index is still being built.
+     *
+     * @param queryWord  one word, without whitespace
+     * @param vocabulary the distinct words to look through
+     * @return matching words mapped to their scores
+     */
+    static Map<String, Double> similar(String queryWord, Iterable<String> vocabulary) {
+        Matcher matcher = new Matcher(queryWord);
+        Map<String, Double> matches = new HashMap<>();
+        int i = 0;
+        for (String word : vocabulary) {
+            Cancellation.check(i++);
+            double score = matcher.score(word);
+            if (score >= THRESHOLD) {
+                matches.put(word, score);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns how similar a word is to a query word on the same scale as {@link #similar}, without an index.
+     *
+     * @param queryWord the query word
+     * @param word      the word to compare it with
+     * @return a score from 0 to 1
+     */
+    static double score(String queryWord, String word) {
+        String query = fold(queryWord);
+        return score(query, trigrams(query), word);
+    }
+
+    /** Scores a word against a folded query word and its trigrams. */
+    private static double score(String query, long[] queryGrams, String word) {
+        String folded = fold(word);
+        long[] wordGrams = trigrams(folded);
+        int shared = 0;
+        for (long gram : queryGrams) {
+            if (Arrays.binarySearch(wordGrams, gram) >= 0) {
+                shared++;
+            }
+        }
+        double score = similarity(shared, queryGrams.length, wordGrams.length);
+        boolean isContained = shared >= Math.max(1, query.length() - 2) && folded.contains(query);
+        return isContained ? (1 + score) / 2 : score;
+    }
+
+    private static double similarity(int shared, int queryGrams, int wordGrams) {
+        return (double) shared / (queryGrams + wordGrams - shared);
+    }
+
+    private static String fold(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    /** Returns the distinct padded trigrams of a folded word, three chars packed into a long, sorted. */
+    private static long[] trigrams(String word) {
+        String padded = "  " + word + " ";
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * A query word prepared for scoring many words against it without an index, scoring words given as
+     * ASCII bytes without making a String of them. Not safe for use by several threads at once.
+     */
+    static final class Matcher {
+        private final String query;
+        private final byte[] queryBytes;
+        private final long[] grams;
+        private final int containedShare;
+        private long[] scratch = new long[32];
+
+        /**
+         * Prepares a query word.
+         *
+         * @param queryWord one word, without whitespace
+         */
+        Matcher(String queryWord) {
+            query = fold(queryWord);
+            queryBytes = isAscii(query) ? query.getBytes(StandardCharsets.US_ASCII) : null;
+            grams = trigrams(query);
+            containedShare = Math.max(1, query.length() - 2);
+        }
+
+        /**
+         * Returns the score of a word on the same scale as {@link TrigramIndex#score}.
+         *
+         * @param b    bytes holding the word in UTF-8
+         * @param from start of the word, inclusive
+         * @param to   end of the word, exclusive
+         * @return a score from 0 to 1
+         */
+        double score(byte[] b, int from, int to) {
+            int length = to - from;
+            for (int i = from; i < to; i++) {
+                if (b[i] < 0) {
+                    return TrigramIndex.score(query, grams, new String(b, from, length, StandardCharsets.UTF_8));
+                }
+            }
+            if (scratch.length < length + 1) {
+                scratch = new long[length * 2];
+            }
+            boolean isSharing = false;
+            for (int i = 0; i <= length; i++) {
+                long first = lower(b, from + i - 2, from, to);
+                long second = lower(b, from + i - 1, from, to);
+                scratch[i] = first << 32 | second << 16 | lower(b, from + i, from, to);
+                isSharing |= !isSharing && Arrays.binarySearch(grams, scratch[i]) >= 0;
+            }
+            if (!isSharing) {
+                return 0; // most words, and they need no sorting to say so
+            }
+            Arrays.sort(scratch, 0, length + 1);
+            int wordGrams = 0;
+            int shared = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == 0 || scratch[i] != scratch[i - 1]) {
+                    wordGrams++;
+                    if (Arrays.binarySearch(grams, scratch[i]) >= 0) {
+                        shared++;
+                    }
+                }
+            }
+            if (shared == 0) {
+                return 0;
+            }
+            double score = similarity(shared, grams.length, wordGrams);
+            boolean isContained = shared >= containedShare && queryBytes != null && contains(b, from, to);
+            return isContained ? (1 + score) / 2 : score;
+        }
+
+        /**
+         * Returns the score of a word on the same scale as {@link TrigramIndex#score}.
+         *
+         * @param word the word
+         * @return a score from 0 to 1
+         */
+        double score(String word) {
+            return TrigramIndex.score(query, grams, word);
+        }
+
+        /** Returns the lower-case character at a position of the padded word, a space outside it. */
+        private static char lower(byte[] b, int i, int from, int to) {
+            if (i < from || i >= to) {
+                return ' ';
+            }
+            byte c = b[i];
+            return (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+
+        private boolean contains(byte[] b, int from, int to) {
+            outer:
+            for (int i = from; i <= to - queryBytes.length; i++) {
+                for (int j = 0; j < queryBytes.length; j++) {
+                    if (lower(b, i + j, from, to) != queryBytes[j]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean isAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * How many trigrams each word shares with a query, for only the words that share any: an open-addressing
+     * table of word numbers plus one, 0 marking a free slot, so a query costs what it touches.
+     */
+    private static final class SharedCounts {
+        private int[] keys = new int[16];
+        private int[] counts = new int[16];
+        private int size;
+
+        void increment(int id) {
+            int slot = slotOf(id);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(id);
+                }
+                keys[slot] = id + 1;
+                size++;
+            }
+            counts[slot]++;
+        }
+
+        /** Returns the slot holding a word number, or the free slot where it would go. */
+        private int slotOf(int id) {
+            int mask = keys.length - 1;
+            int hash = id * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (keys[slot] != 0 && keys[slot] != id + 1) {
+                slot = slot + 1 & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] != 0) {
+                    int slot = slotOf(oldKeys[k] - 1);
+                    keys[slot] = oldKeys[k];
+                    counts[slot] = oldCounts[k];
+                }
+            }
+        }
+    }
+
+    /** A growable list of word numbers. */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchRunnerTest {
+
+    @Test
+    void runsScriptAndSavesOnceWithoutJournaling(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        String script = "todo read book\n\ndeadline return book /by 2024-10-01\nmark 1\nlist\nbye\ntodo ignored\n";
+        StringWriter out = new StringWriter();
+
+        long commands = new BatchRunner(storage, list, 0).run(new BufferedReader(new StringReader(script)), out);
+
+        assertEquals(5, commands);
+        assertTrue(out.toString().endsWith("See you!\n"));
+        // only the header line: every change went into the snapshot instead
+        assertEquals(1, Files.readAllLines(dir.resolve("data.txt.journal")).size());
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals(2, reloaded.size());
+        assertTrue(reloaded.get(1).isDone());
+    }
+
+    @Test
+    void storageMessagesAreWrittenInOrderWithResponses(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("data.txt");
+        Files.writeString(path, "T | 0 | read book\n");
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path.toString());
+        StringWriter out = new StringWriter();
+
+        new BatchRunner(storage, list, 0).run(new BufferedReader(new StringReader("list\n")), out);
+
+        assertEquals("1 tasks loaded.\n    1.[T] [ ] read book\n", out.toString());
+    }
+}
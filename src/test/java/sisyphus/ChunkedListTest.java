@@ -0,0 +1,79 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkedListTest {
+
+    @Test
+    void behavesLikeArrayList() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        ChunkedList<Integer> actual = new ChunkedList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                expected.add(i);
+                actual.add(i);
+            } else if (op < 7) {
+                int at = random.nextInt(expected.size() + 1);
+                expected.add(at, i);
+                actual.add(at, i);
+            } else {
+                int at = random.nextInt(expected.size());
+                assertEquals(expected.remove(at), actual.remove(at));
+            }
+        }
+        assertEquals(expected, actual);
+        assertEquals(expected, new ArrayList<>(actual));
+        assertEquals(expected.subList(100, 150), actual.subList(100, 150));
+    }
+
+    @Test
+    void drainsFromTheFront() {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        for (int i = 0; i < 5 * ChunkedList.MAX_CHUNK; i++) {
+            list.add(i);
+        }
+        for (int i = 0; i < 5 * ChunkedList.MAX_CHUNK; i++) {
+            assertEquals(i, list.remove(0));
+        }
+        assertEquals(0, list.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+
+    @Test
+    void findsIncreasingKeys() {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        for (int i = 0; i < 3 * ChunkedList.MAX_CHUNK; i++) {
+            list.add(i * 2);
+        }
+        list.remove(10);
+        assertEquals(10, list.binarySearch(Integer::intValue, 22));
+        assertEquals(-1, list.binarySearch(Integer::intValue, 20));
+        assertEquals(-1, list.binarySearch(Integer::intValue, 7));
+        assertEquals(list.size() - 1, list.binarySearch(Integer::intValue, 2 * (3 * ChunkedList.MAX_CHUNK - 1)));
+    }
+
+    @Test
+    void iteratorRemovesAcrossChunks() {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        for (int i = 0; i < 3 * ChunkedList.MAX_CHUNK; i++) {
+            list.add(i);
+        }
+        for (Iterator<Integer> it = list.iterator(); it.hasNext();) {
+            if (it.next() < 2 * ChunkedList.MAX_CHUNK + 1) {
+                it.remove();
+            }
+        }
+        assertEquals(ChunkedList.MAX_CHUNK - 1, list.size());
+        assertEquals(2 * ChunkedList.MAX_CHUNK + 1, list.get(0));
+    }
+}
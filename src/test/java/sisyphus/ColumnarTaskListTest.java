@@ -0,0 +1,243 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ColumnarTaskListTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 9, 0);
+
+    @Test
+    void answersQueriesLikeTaskListThroughRandomChanges() {
+        Random random = new Random(23);
+        TaskList expected = new TaskList(new ArrayList<>());
+        ColumnarTaskList actual = new ColumnarTaskList(new ArrayList<>());
+        for (int step = 0; step < 2_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                Task task = randomTask(random, step);
+                expected.addTask(task);
+                actual.addTask(copy(task));
+            } else if (op < 7) {
+                int number = 1 + random.nextInt(expected.size());
+                boolean isDone = random.nextBoolean();
+                assertEquals(expected.setDone(number, isDone).toString(), actual.setDone(number, isDone).toString());
+            } else if (op < 8) {
+                int number = 1 + random.nextInt(expected.size());
+                assertEquals(expected.removeTask(number).toString(), actual.removeTask(number).toString());
+            } else if (op < 9) {
+                String word = "w" + random.nextInt(5);
+                assertEquals(expected.removeTasks(t -> t.getName().contains(word)).toString(),
+                        actual.removeTasks(t -> t.getName().contains(word)).toString());
+            } else {
+                assertEquals(expected.removeDone().toString(), actual.removeDone().toString());
+            }
+            if (step % 50 == 0) {
+                assertSameAnswers(expected, actual, random);
+            }
+        }
+        assertSameAnswers(expected, actual, random);
+    }
+
+    @Test
+    void removeDoneKeepsOrderAndIds() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Task task = new DeadlineTask("report " + i, BASE.plusHours(10 - i));
+            if (i % 3 == 0) {
+                task.complete();
+            }
+            tasks.add(task);
+        }
+        ColumnarTaskList list = new ColumnarTaskList(tasks);
+        list.sortedByTime();
+
+        assertEquals("1,4,7,10", list.removeDone().toString());
+        assertEquals(6, list.size());
+        assertEquals("report 1", list.get(1).getName());
+        assertEquals(2, list.get(1).getId());
+        assertEquals(2, list.indexOfId(3));
+        assertEquals(-1, list.indexOfId(4));
+        assertEquals("report 8", list.sortedByTime().get(0).getName());
+        assertTrue(list.removeDone().isEmpty());
+    }
+
+    @Test
+    void manySingleDeletesCompactAndKeepAnswers() {
+        Random random = new Random(24);
+        TaskList expected = new TaskList(new ArrayList<>());
+        ColumnarTaskList actual = new ColumnarTaskList(new ArrayList<>());
+        for (int i = 0; i < 10_000; i++) {
+            Task task = manyTask(random, i);
+            expected.addTask(task);
+            actual.addTask(copy(task));
+        }
+        expected.sortedByTime();
+        actual.sortedByTime();
+        for (int deleted = 1; deleted <= 7_000; deleted++) {
+            int number = 1 + random.nextInt(expected.size());
+            assertEquals(expected.removeTask(number).toString(), actual.removeTask(number).toString());
+            if (deleted % 1_000 == 0) {
+                assertSameAnswers(expected, actual, random);
+            }
+        }
+    }
+
+    @Test
+    void fuzzySearchAnswersTheSameOnceItsIndexIsBuilt() {
+        Random random = new Random(25);
+        TaskList expected = new TaskList(new ArrayList<>());
+        ColumnarTaskList actual = new ColumnarTaskList(new ArrayList<>());
+        for (int i = 0; i < 10_000; i++) {
+            Task task = manyTask(random, i);
+            expected.addTask(task);
+            actual.addTask(copy(task));
+        }
+        assertEquals(expected.fuzzySearch("W3x T1", 9).toString(), actual.fuzzySearch("W3x T1", 9).toString());
+        awaitIndexBuilds();
+        for (int step = 0; step < 6_000; step++) {
+            if (step % 4 == 0) {
+                Task task = manyTask(random, 10_000 + step);
+                expected.addTask(task);
+                actual.addTask(copy(task));
+            } else {
+                int number = 1 + random.nextInt(expected.size());
+                expected.removeTask(number);
+                actual.removeTask(number);
+            }
+            if (step % 500 == 0) {
+                String fuzzy = "W" + random.nextInt(5) + "x T" + random.nextInt(3) + " #" + random.nextInt(99);
+                assertEquals(expected.fuzzySearch(fuzzy, 9).toString(), actual.fuzzySearch(fuzzy, 9).toString());
+            }
+        }
+        assertEquals(expected.removeTasks(t -> t.getName().contains("w2")).toString(),
+                actual.removeTasks(t -> t.getName().contains("w2")).toString());
+        assertSameAnswers(expected, actual, random);
+    }
+
+    @Test
+    void savesTheSameBytesAsTaskObjects(@TempDir Path dir) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Task task = i % 7 == 0 ? new TodoTask("caf\u00e9 #" + i) : randomTask(new Random(i), i);
+            if (i % 3 == 0) {
+                task.complete();
+            }
+            tasks.add(task);
+        }
+        tasks.add(new DeadlineTask("far off", LocalDateTime.of(12_000, 1, 2, 3, 4)));
+        tasks.add(new EventTask("long ago", LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(1969, 12, 31, 23, 59)));
+        TaskList objects = new TaskList(new ArrayList<>());
+        ColumnarTaskList columns = new ColumnarTaskList(new ArrayList<>());
+        for (Task task : tasks) {
+            objects.addTask(task);
+            columns.addTask(copy(task));
+            columns.setDone(columns.size(), task.isDone());
+        }
+        for (int number : new int[] {30, 12, 1}) {
+            objects.removeTask(number);
+            columns.removeTask(number);
+        }
+        for (Storage.Format format : Storage.Format.values()) {
+            Path fromObjects = dir.resolve("objects-" + format);
+            Path fromColumns = dir.resolve("columns-" + format);
+            Storage storage = new Storage();
+            storage.convert(objects, fromObjects.toString(), format);
+            storage.saveFile(columns, fromColumns.toString());
+            assertArrayEquals(Files.readAllBytes(fromObjects), Files.readAllBytes(fromColumns), format.name());
+        }
+    }
+
+    @Test
+    void boundsFallOnWholeMinutes() {
+        ColumnarTaskList list = new ColumnarTaskList(new ArrayList<>());
+        list.addTask(new DeadlineTask("submit", BASE));
+        list.addTask(new EventTask("meeting", BASE.plusMinutes(30), BASE.plusMinutes(90)));
+
+        assertEquals(2, list.upcoming(BASE.minusSeconds(1), 10).size());
+        assertEquals("meeting", list.upcoming(BASE.plusSeconds(1), 10).get(0).getName());
+        assertEquals(BASE.plusMinutes(30), list.nextPendingTime(BASE.plusSeconds(1)));
+        assertEquals(1, list.eventsAt(BASE.plusMinutes(89)).size());
+        assertEquals(0, list.eventsAt(BASE.plusMinutes(90)).size());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+    }
+
+    private static void assertSameAnswers(TaskList expected, ColumnarTaskList actual, Random random) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getTasks().toString(), actual.getTasks().toString());
+        assertEquals(ids(expected.getTasks()), ids(actual.getTasks()));
+        assertEquals(expected.sortedByTime().toString(), actual.sortedByTime().toString());
+        assertEquals(expected.sortedByTime(7, 11).toString(), actual.sortedByTime(7, 11).toString());
+        String query = "w" + random.nextInt(5) + " t" + random.nextInt(3);
+        assertEquals(expected.search(query).toString(), actual.search(query).toString());
+        String fuzzy = "W" + random.nextInt(5) + "x T" + random.nextInt(3);
+        assertEquals(expected.fuzzySearch(fuzzy, 9).toString(), actual.fuzzySearch(fuzzy, 9).toString());
+        LocalDateTime from = BASE.plusMinutes(random.nextInt(3_000));
+        LocalDateTime to = from.plusMinutes(random.nextInt(600));
+        assertEquals(expected.between(from, to).toString(), actual.between(from, to).toString());
+        assertEquals(expected.upcoming(from, 5).toString(), actual.upcoming(from, 5).toString());
+        assertEquals(expected.pendingBetween(from, to).toString(), actual.pendingBetween(from, to).toString());
+        assertEquals(expected.nextPendingTime(from), actual.nextPendingTime(from));
+        assertEquals(expected.eventsAt(from).toString(), actual.eventsAt(from).toString());
+        assertEquals(expected.eventsOverlapping(from, to).toString(), actual.eventsOverlapping(from, to).toString());
+        for (Task task : expected.getTasks()) {
+            assertEquals(expected.indexOfId(task.getId()), actual.indexOfId(task.getId()));
+        }
+    }
+
+    /** Returns a task with a distinct time, so time order has no ties to break differently. */
+    private static Task randomTask(Random random, int step) {
+        String name = "w" + random.nextInt(5) + " t" + random.nextInt(3) + " #" + step;
+        LocalDateTime time = BASE.plusMinutes(step * 7_919L % 3_001); // distinct for the first 3001 steps
+        switch (random.nextInt(3)) {
+        case 0:
+            return new TodoTask(name);
+        case 1:
+            return new DeadlineTask(name, time);
+        default:
+            return new EventTask(name, time, time.plusMinutes(random.nextInt(240)));
+        }
+    }
+
+    /** Waits for the fuzzy search indexes started so far, as their builds run one after another. */
+    private static void awaitIndexBuilds() {
+        CompletableFuture.runAsync(() -> { }, TrigramIndex.BUILDER).join();
+    }
+
+    /** Returns a task with a time distinct from those of the first 10007 steps. */
+    private static Task manyTask(Random random, int step) {
+        String name = "w" + random.nextInt(5) + " t" + random.nextInt(3) + " #" + step;
+        LocalDateTime time = BASE.plusMinutes(step * 7_919L % 10_007);
+        return random.nextBoolean() ? new TodoTask(name) : new EventTask(name, time, time.plusMinutes(90));
+    }
+
+    private static Task copy(Task task) {
+        if (task instanceof DeadlineTask) {
+            return new DeadlineTask(task.getName(), ((DeadlineTask) task).getDeadline());
+        } else if (task instanceof EventTask) {
+            return new EventTask(task.getName(), ((EventTask) task).getStart(), ((EventTask) task).getEnd());
+        }
+        return new TodoTask(task.getName());
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,58 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandLineTest {
+
+    private static void assertSplitsLikeString(String input) {
+        CommandLine line = new CommandLine().reset(input);
+        String[] expected = input.split(" ");
+        assertEquals(expected.length, line.count(), "token count of \"" + input + "\"");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], line.token(i));
+        }
+        assertEquals(String.join(" ", expected), line.text(0, line.count()));
+    }
+
+    @Test
+    void splitsLikeStringSplit() {
+        assertSplitsLikeString("");
+        assertSplitsLikeString(" ");
+        assertSplitsLikeString("list");
+        assertSplitsLikeString("todo  read   book  ");
+        assertSplitsLikeString(" mark 1");
+    }
+
+    @Test
+    void findsMarkersInOnePass() {
+        CommandLine line = new CommandLine().reset("event talk /to x /from 2024-01-01 /to 2024-01-02 /by");
+        assertEquals(4, line.fromIndex());
+        assertEquals(2, line.toIndex());
+        assertEquals(8, line.byIndex());
+        assertEquals("2024-01-01", line.trimmed(line.fromIndex() + 1, 6));
+    }
+
+    @Test
+    void keepsLegacyTrailingSpaceOnNames() {
+        CommandLine line = new CommandLine().reset("deadline  return book  /by 2024-10-01");
+        assertEquals("return book ", line.trimmedWithSpace(1, line.byIndex()));
+        assertEquals(" ", line.trimmedWithSpace(1, 1));
+    }
+
+    @Test
+    void parserGivesSameResultsAsBefore() {
+        TaskList list = new TaskList(new ArrayList<>());
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+        parser.readAndRespond("deadline return book /by 2024-10-01 18:00", storage, list);
+        parser.readAndRespond("event  talk /from 2024-10-02 /to 2024-10-02 10:00 ", storage, list);
+        assertEquals("[D] [ ] return book  (by: Oct 01 2024 18:00)", list.get(1).toString());
+        assertEquals("talk ", list.get(2).getName());
+        assertEquals("Task x does not exist", parser.readAndRespond("mark x", storage, list));
+        assertEquals("Invalid command, you are wrong.", parser.readAndRespond("marks 1", storage, list));
+    }
+}
@@ -0,0 +1,116 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentTaskListTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int TASKS_PER_WRITER = 5_000;
+
+    @Test
+    void concurrentAddsAreNeitherLostNorReordered() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            String prefix = "w" + w + " ";
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                    list.addTask(new TodoTask(prefix + i));
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                int lastSize = 0;
+                while (writing.get()) {
+                    // Every snapshot must be a prefix-consistent state: sizes never shrink and
+                    // each writer's tasks appear in the order that writer added them.
+                    ArrayList<Task> snapshot = list.getTasks();
+                    assertTrue(snapshot.size() >= lastSize);
+                    lastSize = snapshot.size();
+                    assertWriterOrder(snapshot);
+                    int size = list.size();
+                    if (size > 0) {
+                        assertTrue(list.get(size).getName().startsWith("w"));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : writers) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> f : readers) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(WRITERS * TASKS_PER_WRITER, list.size());
+        assertWriterOrder(list.getTasks());
+        assertEquals(TASKS_PER_WRITER, list.search("w0").size());
+    }
+
+    @Test
+    void concurrentDeletesRemoveEachTaskExactlyOnce() throws Exception {
+        List<Task> initial = new ArrayList<>();
+        for (int i = 0; i < WRITERS * TASKS_PER_WRITER; i++) {
+            initial.add(new TodoTask("task " + i));
+        }
+        ConcurrentTaskList list = new ConcurrentTaskList(initial);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        AtomicInteger removed = new AtomicInteger();
+        List<Future<?>> deleters = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            deleters.add(pool.submit(() -> {
+                while (true) {
+                    // check-then-act must be atomic, otherwise two threads can race on the last task
+                    Task t = list.atomically(() -> list.isEmpty() ? null : list.removeTask(1));
+                    if (t == null) {
+                        return null;
+                    }
+                    removed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> f : deleters) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(initial.size(), removed.get());
+        assertTrue(list.isEmpty());
+        assertTrue(list.search("task").isEmpty());
+    }
+
+    private static void assertWriterOrder(List<Task> tasks) {
+        int[] next = new int[WRITERS];
+        for (Task t : tasks) {
+            String[] parts = t.getName().split(" ");
+            int writer = Integer.parseInt(parts[0].substring(1));
+            assertEquals(next[writer], Integer.parseInt(parts[1]));
+            next[writer]++;
+        }
+    }
+}
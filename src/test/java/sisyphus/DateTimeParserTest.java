@@ -0,0 +1,39 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+public class DateTimeParserTest {
+
+    @Test
+    void readsBothShapesWithoutTheFormatter() {
+        assertEquals(LocalDateTime.of(2024, 10, 1, 18, 5), DateTimeParser.tryParse("2024-10-01 18:05"));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), DateTimeParser.tryParse("2024-02-29"));
+        byte[] bytes = "x 2024-10-01 y".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), DateTimeParser.tryParse(bytes, 2, 12));
+    }
+
+    @Test
+    void leavesOddInputToTheFormatter() {
+        assertNull(DateTimeParser.tryParse("2023-02-30"));
+        assertNull(DateTimeParser.tryParse("2024-10-01 24:00"));
+        assertNull(DateTimeParser.tryParse("2024/10/01"));
+        // The formatter's lenient resolution still applies on the fallback path.
+        assertEquals(LocalDateTime.of(2023, 2, 28, 0, 0), DateTimeParser.parse("2023-02-30"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse("tomorrow"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse("2024-13-01"));
+    }
+
+    @Test
+    void repeatedDatesShareAnInstance() {
+        assertSame(DateTimeParser.parse("2025-06-01 12:00"), DateTimeParser.parse("2025-06-01 12:00"));
+    }
+}
@@ -0,0 +1,77 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EventsTest {
+    private static final List<String> NAMES = List.of(
+            "sisyphus.Command", "sisyphus.Load", "sisyphus.Save", "sisyphus.Search", "sisyphus.Render");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void eachStageIsRecordedWithItsFigures() throws Exception {
+        Path recordingFile = dir.resolve("stages.jfr");
+        String path = dir.resolve("data.txt").toString();
+        try (Recording recording = new Recording()) {
+            NAMES.forEach(name -> recording.enable(name).withThreshold(Duration.ZERO));
+            recording.start();
+            Storage storage = new Storage();
+            TaskList list = storage.readFile(path);
+            Parser parser = new Parser();
+            parser.readAndRespond("todo read book", storage, list);
+            parser.readAndRespond("todo read paper", storage, list);
+            parser.readAndRespond("find read book", storage, list);
+            storage.saveFile(list.getTasks(), path);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        List<RecordedEvent> commands = named(events, "sisyphus.Command");
+        assertEquals(List.of("todo", "todo", "find"),
+                commands.stream().map(e -> e.getString("command")).collect(Collectors.toList()));
+        assertEquals(2, commands.get(2).getInt("tasks"));
+        RecordedEvent search = named(events, "sisyphus.Search").get(0);
+        assertEquals("read book", search.getString("query"));
+        assertEquals(1, search.getInt("hits"));
+        assertEquals(1, search.getInt("scanned"));
+        RecordedEvent save = named(events, "sisyphus.Save").get(0);
+        assertEquals(2, save.getInt("records"));
+        assertEquals(Files.size(Path.of(path)), save.getLong("bytes"));
+        assertEquals(0, named(events, "sisyphus.Load").get(0).getInt("records"));
+        assertTrue(named(events, "sisyphus.Render").stream().anyMatch(e -> e.getInt("tasks") == 1));
+    }
+
+    @Test
+    void bundledSettingsCoverEveryEvent() throws Exception {
+        try (Reader reader = new InputStreamReader(Events.class.getResourceAsStream(Events.SETTINGS),
+                StandardCharsets.UTF_8)) {
+            Configuration settings = Configuration.create(reader);
+            for (String name : NAMES) {
+                assertEquals("true", settings.getSettings().get(name + "#enabled"));
+            }
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
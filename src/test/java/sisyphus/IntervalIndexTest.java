@@ -0,0 +1,55 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static List<EventTask> bruteForce(List<EventTask> events, LocalDateTime from, LocalDateTime to) {
+        List<EventTask> found = new ArrayList<>();
+        for (EventTask e : events) {
+            LocalDateTime end = e.getEnd().isAfter(e.getStart()) ? e.getEnd() : e.getStart().plusMinutes(1);
+            if (e.getStart().isBefore(to) && end.isAfter(from)) {
+                found.add(e);
+            }
+        }
+        found.sort((a, b) -> a.getStart().equals(b.getStart())
+                ? Integer.compare(a.getId(), b.getId()) : a.getStart().compareTo(b.getStart()));
+        return found;
+    }
+
+    @Test
+    void matchesALinearScan() {
+        Random random = new Random(7);
+        TaskList list = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(10_000));
+            list.addTask(new EventTask("e" + i, start, start.plusMinutes(random.nextInt(300))));
+            if (i % 5 == 0) {
+                list.addTask(new TodoTask("t" + i));
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            list.removeTask(1 + random.nextInt(list.size()));
+        }
+        List<EventTask> events = new ArrayList<>();
+        for (Task t : list.getTasks()) {
+            if (t instanceof EventTask) {
+                events.add((EventTask) t);
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(10_500) - 200);
+            LocalDateTime to = from.plusMinutes(random.nextInt(120));
+            assertEquals(bruteForce(events, from, to), list.eventsOverlapping(from, to));
+            assertEquals(bruteForce(events, from, from.plusMinutes(1)), list.eventsAt(from));
+        }
+    }
+}
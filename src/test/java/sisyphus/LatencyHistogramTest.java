@@ -0,0 +1,36 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    void everyValueFallsInABucketThatHoldsIt() {
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long v : values) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue(LatencyHistogram.highestIn(index) >= v);
+            assertTrue(index == 0 || LatencyHistogram.highestIn(index - 1) < v);
+        }
+        assertEquals(63, LatencyHistogram.indexOf(63));
+    }
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000_000, histogram.max());
+        assertEquals(50_000_500, histogram.mean());
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000 * 1.04, "p50 was " + p50);
+        assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000 * 1.04, "p99 was " + p99);
+        assertEquals(100_000_000, histogram.percentile(100));
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+}
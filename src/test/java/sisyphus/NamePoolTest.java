@@ -0,0 +1,50 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class NamePoolTest {
+    @Test
+    void equalNamesFromBytesAndStringsShareOneInstance() {
+        NamePool pool = new NamePool(64);
+        byte[] record = "D | 0 | pay rent | 2025-12-01".getBytes(StandardCharsets.UTF_8);
+        String first = pool.intern(record, 8, 16);
+        assertEquals("pay rent", first);
+        assertSame(first, pool.intern(record, 8, 16));
+        assertSame(first, pool.intern(new String("pay rent")));
+        assertEquals(3, pool.lookups());
+        assertEquals(2, pool.hits());
+    }
+
+    @Test
+    void nonAsciiNamesArePooledAfterDecoding() {
+        NamePool pool = new NamePool(64);
+        byte[] name = "caf\u00e9 run".getBytes(StandardCharsets.UTF_8);
+        String first = pool.intern(name, 0, name.length);
+        assertEquals("caf\u00e9 run", first);
+        assertSame(first, pool.intern(name, 0, name.length));
+        assertSame(first, pool.intern("caf\u00e9 run"));
+    }
+
+    @Test
+    void longNamesAndCollisionsStillDecodeCorrectly() {
+        NamePool pool = new NamePool(1);
+        String longName = "x".repeat(NamePool.MAX_LENGTH + 1);
+        byte[] bytes = longName.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(longName, pool.intern(bytes, 0, bytes.length));
+        assertNotSame(pool.intern(longName), pool.intern(new String(longName)));
+        assertEquals(0, pool.lookups());
+
+        // one slot: each new name evicts the last, and nothing is confused with it
+        assertEquals("gym", pool.intern("gym"));
+        assertEquals("standup", pool.intern("standup"));
+        byte[] gym = "gym".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("gym", pool.intern(gym, 0, gym.length));
+        assertEquals(0, pool.hits());
+    }
+}
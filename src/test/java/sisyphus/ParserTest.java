@@ -0,0 +1,207 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Test;
+
+public class ParserTest {
+
+    private static TaskList numberedTodos(int count) {
+        TaskList list = new TaskList(new ArrayList<>());
+        for (int i = 1; i <= count; i++) {
+            list.addTask(new TodoTask("task " + i));
+        }
+        return list;
+    }
+
+    @Test
+    void listShowsOnePageAndMoreContinues() {
+        TaskList list = numberedTodos(120);
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+
+        String first = parser.readAndRespond("list", storage, list);
+        assertTrue(first.startsWith("    1.[T] [ ] task 1\n"));
+        assertTrue(first.endsWith(
+                "    50.[T] [ ] task 50\nShowing 1-50 of 120 tasks, type 'more' for the next page.\n"));
+
+        assertTrue(parser.readAndRespond("more", storage, list).startsWith("    51.[T] [ ] task 51\n"));
+        String last = parser.readAndRespond("more", storage, list);
+        assertTrue(last.endsWith("    120.[T] [ ] task 120\nShowing 101-120 of 120 tasks.\n"));
+        assertEquals("There is nothing more to show.\n", parser.readAndRespond("more", storage, list));
+    }
+
+    @Test
+    void listTakesPageAndSize() {
+        TaskList list = numberedTodos(7);
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+        assertEquals("    4.[T] [ ] task 4\n    5.[T] [ ] task 5\n    6.[T] [ ] task 6\n"
+                + "Showing 4-6 of 7 tasks, type 'more' for the next page.\n",
+                parser.readAndRespond("list 2 3", storage, list));
+        assertEquals("Page 4 does not exist, there are 3 pages of 3 tasks.\n",
+                parser.readAndRespond("list 4 3", storage, list));
+        assertEquals("Usage: list [page] [page size]\n", parser.readAndRespond("list 0", storage, list));
+    }
+
+    @Test
+    void shortListsRenderAsBefore() {
+        TaskList list = numberedTodos(2);
+        assertEquals("    1.[T] [ ] task 1\n    2.[T] [ ] task 2\n",
+                new Parser().readAndRespond("list", new Storage(), list));
+    }
+
+    @Test
+    void findAndLatestPageThroughTheirOwnResults() {
+        TaskList list = numberedTodos(60);
+        for (int i = 0; i < 60; i++) {
+            list.addTask(new DeadlineTask("due " + i, "2024-01-01 00:00"));
+        }
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+
+        String found = parser.readAndRespond("find due", storage, list);
+        assertTrue(found.contains("    1.[D] [ ] due 0 "));
+        assertTrue(found.endsWith("Showing 1-50 of 60 tasks, type 'more' for the next page.\n"));
+        assertTrue(parser.readAndRespond("more", storage, list).contains("    60.[D] [ ] due 59 "));
+
+        parser.readAndRespond("latest", storage, list);
+        String rest = parser.readAndRespond("more", storage, list);
+        assertTrue(rest.startsWith("    51.[D] [ ] due 50 "));
+        assertTrue(rest.contains("    61.[T] [ ] task 1\n"));
+        assertEquals(list.sortedByTime().subList(50, 100), list.sortedByTime(50, 50));
+    }
+
+    @Test
+    void moreReusesTheSearchUntilTheListChanges() {
+        int[] searches = {0};
+        TaskList list = new TaskList(new ArrayList<>()) {
+            @Override
+            List<Task> search(String query, IntConsumer scanned) {
+                searches[0]++;
+                return super.search(query, scanned);
+            }
+        };
+        for (int i = 0; i < 120; i++) {
+            list.addTask(new TodoTask("due " + i));
+        }
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+
+        parser.readAndRespond("find due", storage, list);
+        assertTrue(parser.readAndRespond("more", storage, list).contains("    51.[T] [ ] due 50\n"));
+        assertEquals(1, searches[0]);
+
+        list.addTask(new TodoTask("due 120"));
+        assertTrue(parser.readAndRespond("more", storage, list).endsWith("Showing 101-121 of 121 tasks.\n"));
+        assertEquals(2, searches[0]);
+    }
+
+    @Test
+    void fuzzyFindShowsClosestMatches() {
+        TaskList list = new TaskList(new ArrayList<>());
+        list.addTask(new TodoTask("pay rent"));
+        list.addTask(new TodoTask("Standup notes"));
+        Parser parser = new Parser();
+
+        assertEquals("Closest matches to query: standp\n" + Sisyphus.Ui.divider + "    1.[T] [ ] Standup notes\n",
+                parser.readAndRespond("find ~standp", new Storage(), list));
+        assertEquals("Invalid input", parser.readAndRespond("find ~", new Storage(), list));
+        assertTrue(Parser.isReadOnly("find ~standp"));
+    }
+
+    @Test
+    void onlyQueriesAreReadOnly() {
+        assertTrue(Parser.isReadOnly("find book"));
+        assertTrue(Parser.isReadOnly("list 2"));
+        assertTrue(Parser.isReadOnly("nonsense"));
+        assertFalse(Parser.isReadOnly("mark 1"));
+        assertFalse(Parser.isReadOnly("todo read"));
+        assertFalse(Parser.isReadOnly("bye"));
+    }
+
+    @Test
+    void interruptedQueryIsCancelled() {
+        TaskList list = numberedTodos(10_000);
+        Parser parser = new Parser();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> parser.readAndRespond("find task", new Storage(), list));
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(parser.readAndRespond("find task", new Storage(), list).contains("of 10000 tasks"));
+    }
+
+    @Test
+    void idReferencesSurviveDeletes() {
+        TaskList list = numberedTodos(5);
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+        assertTrue(parser.readAndRespond("todo six", storage, list).startsWith("added: [T] [ ] six (#6)\n"));
+        parser.readAndRespond("delete 1", storage, list);
+        parser.readAndRespond("delete 1", storage, list);
+        assertTrue(parser.readAndRespond("mark #4", storage, list).startsWith("Okay, task 2 is done\n"));
+        assertTrue(parser.readAndRespond("delete #6", storage, list)
+                .startsWith("I have removed this task: [T] [ ] six"));
+        assertEquals("Task #1 does not exist", parser.readAndRespond("unmark #1", storage, list));
+        assertEquals("The task to delete does not exist!\n", parser.readAndRespond("delete #x", storage, list));
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    void answersAtBusyAndFreeFromEvents() {
+        TaskList list = new TaskList(new ArrayList<>());
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+        parser.readAndRespond("event standup /from 2026-01-05 09:00 /to 2026-01-05 09:30", storage, list);
+        parser.readAndRespond("event review /from 2026-01-05 13:00 /to 2026-01-05 15:00", storage, list);
+        String added = parser.readAndRespond("event lunch /from 2026-01-05 12:00 /to 2026-01-05 13:30", storage, list);
+        assertTrue(added.endsWith("Warning: this overlaps 1 other event:\n"
+                + "      [E] [ ] review  (from: Jan 05 2026 13:00 to: Jan 05 2026 15:00) (#2)\n"));
+
+        assertTrue(parser.readAndRespond("at 2026-01-05 13:15", storage, list).contains("    2.[E] [ ] review "));
+        assertTrue(parser.readAndRespond("at 2026-01-05 10:00", storage, list).endsWith("No tasks found"));
+        assertTrue(parser.readAndRespond("busy 2026-01-05 09:15 2026-01-05 12:00", storage, list)
+                .contains("    1.[E] [ ] standup "));
+        assertEquals("Free for at least 2h30m on 2026-01-05\n" + Sisyphus.Ui.divider
+                + "    00:00-09:00\n    09:30-12:00\n    15:00-24:00\n",
+                parser.readAndRespond("free 2h30m on 2026-01-05", storage, list));
+        assertTrue(parser.readAndRespond("free 10h on 2026-01-05", storage, list)
+                .endsWith("No free slot that long.\n"));
+        assertEquals(150, Parser.parseDuration("2h30m"));
+        assertEquals(-1, Parser.parseDuration("2x"));
+        assertEquals(-1, Parser.parseDuration("30"));
+    }
+
+    @Test
+    void upcomingListsPendingTasksInDueOrder() {
+        TaskList list = new TaskList(new ArrayList<>());
+        Parser parser = new Parser();
+        Storage storage = new Storage();
+        parser.readAndRespond("deadline report /by 2099-03-01", storage, list);
+        parser.readAndRespond("event launch /from 2099-01-10 09:00 /to 2099-01-10 10:00", storage, list);
+        parser.readAndRespond("deadline taxes /by 2099-02-01", storage, list);
+        parser.readAndRespond("deadline history /by 2000-01-01", storage, list);
+        parser.readAndRespond("todo read", storage, list);
+        parser.readAndRespond("mark 3", storage, list);
+
+        String upcoming = parser.readAndRespond("upcoming", storage, list);
+        assertTrue(upcoming.startsWith("Next 2 due tasks\n"));
+        assertTrue(upcoming.indexOf("1.[E] [ ] launch") >= 0);
+        assertTrue(upcoming.indexOf("2.[D] [ ] report") >= 0);
+        parser.readAndRespond("unmark 3", storage, list);
+        assertTrue(parser.readAndRespond("upcoming 1", storage, list).contains("1.[E] [ ] launch"));
+        assertTrue(parser.readAndRespond("upcoming 3", storage, list).contains("2.[D] [ ] taxes"));
+        assertEquals("Usage: upcoming [number of tasks]\n", parser.readAndRespond("upcoming 0", storage, list));
+        assertTrue(Parser.isReadOnly("upcoming 5"));
+    }
+}
@@ -0,0 +1,29 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class RangeSetTest {
+
+    @Test
+    void parsesAndMergesRanges() {
+        RangeSet set = RangeSet.parse("40-90,12,10,11,85-100");
+        assertEquals("10-12,40-100", set.toString());
+        assertEquals(64, set.size());
+        assertEquals("10-12,40-50", set.upTo(50).toString());
+        assertEquals("", set.upTo(5).toString());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertNull(RangeSet.parse(""));
+        assertNull(RangeSet.parse("-1"));
+        assertNull(RangeSet.parse("5-3"));
+        assertNull(RangeSet.parse("0-3"));
+        assertNull(RangeSet.parse("1,,2"));
+        assertNull(RangeSet.parse("1-"));
+        assertNull(RangeSet.parse("a-b"));
+    }
+}
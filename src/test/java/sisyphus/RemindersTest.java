@@ -0,0 +1,66 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+public class RemindersTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 5, 9, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    @Test
+    void remindsOfWhatIsDueWithinTheLeadTime() throws InterruptedException {
+        TaskList list = new TaskList(new ArrayList<>());
+        list.addTask(new DeadlineTask("old ", "2026-01-04 09:00"));
+        list.addTask(new DeadlineTask("soon ", "2026-01-05 09:10"));
+        list.addTask(new EventTask("standup ", "2026-01-05 09:14", "2026-01-05 09:30"));
+        list.addTask(new DeadlineTask("later ", "2026-01-05 11:00"));
+        list.addTask(new DeadlineTask("finished ", "2026-01-05 09:05"));
+        list.setDone(5, true);
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        try (Reminders reminders = Reminders.start(list, messages::add, Duration.ofMinutes(15), CLOCK)) {
+            assertEquals("You have 1 overdue deadline.", messages.poll(5, TimeUnit.SECONDS));
+            assertEquals("Due soon: " + list.get(2), messages.poll(5, TimeUnit.SECONDS));
+            assertEquals("Starting soon: " + list.get(3), messages.poll(5, TimeUnit.SECONDS));
+
+            // Added inside the window already covered, so the reminder comes straight away.
+            list.addTask(new DeadlineTask("urgent ", "2026-01-05 09:12"));
+            assertEquals("Due soon: " + list.get(6), messages.poll(5, TimeUnit.SECONDS));
+            list.setDone(5, false);
+            assertEquals("Due soon: " + list.get(5), messages.poll(5, TimeUnit.SECONDS));
+            assertNull(messages.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void changeRacingWithCloseStillGoesThrough() {
+        TaskList list = new TaskList(new ArrayList<>()) {
+            @Override
+            void setPendingListener(Consumer<Task> listener) {
+                if (listener != null) {
+                    super.setPendingListener(listener); // kept past close, as by a change already under way
+                }
+            }
+        };
+        Reminders.start(list, message -> { }, Duration.ofMinutes(15), CLOCK).close();
+        list.addTask(new DeadlineTask("soon ", "2026-01-05 09:10"));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void zeroLeadTurnsRemindersOff() {
+        assertNull(Reminders.start(new TaskList(new ArrayList<>()), message -> { }, Duration.ZERO, CLOCK));
+    }
+}
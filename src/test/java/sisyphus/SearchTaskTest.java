@@ -0,0 +1,98 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class SearchTaskTest {
+
+    private TaskList sampleList() {
+        TaskList list = new TaskList(new ArrayList<>());
+        list.addTask(new TodoTask("read book"));
+        list.addTask(new TodoTask("return book to library"));
+        list.addTask(new TodoTask("buy groceries"));
+        list.addTask(new TodoTask("read notes"));
+        return list;
+    }
+
+    @Test
+    void matchesSubstringOfAWord() {
+        TaskList hits = SearchTask.filterTasks(sampleList(), "oo");
+        assertEquals(2, hits.size());
+        assertEquals("read book", hits.get(1).getName());
+        assertEquals("return book to library", hits.get(2).getName());
+    }
+
+    @Test
+    void multiWordQueryRequiresEveryWord() {
+        TaskList hits = SearchTask.filterTasks(sampleList(), "read book");
+        assertEquals(1, hits.size());
+        assertEquals("read book", hits.get(1).getName());
+    }
+
+    @Test
+    void isCaseSensitive() {
+        assertTrue(SearchTask.filterTasks(sampleList(), "Book").isEmpty());
+    }
+
+    @Test
+    void indexFollowsAddAndRemove() {
+        TaskList list = sampleList();
+        assertEquals(2, SearchTask.filterTasks(list, "read").size());
+
+        list.removeTask(1);
+        list.addTask(new TodoTask("reread chapter"));
+        TaskList hits = SearchTask.filterTasks(list, "read");
+        assertEquals(2, hits.size());
+        assertEquals("read notes", hits.get(1).getName());
+        assertEquals("reread chapter", hits.get(2).getName());
+
+        list.removeTask(2);
+        assertTrue(SearchTask.filterTasks(list, "groceries").isEmpty());
+    }
+
+    @Test
+    void fuzzyFindToleratesTyposAndCase() {
+        TaskList list = sampleList();
+        list.addTask(new TodoTask("Daily standup"));
+        list.addTask(new TodoTask("standing desk order"));
+
+        TaskList hits = SearchTask.fuzzyFilterTasks(list, "STANDP", 10);
+        assertEquals(2, hits.size());
+        assertEquals("Daily standup", hits.get(1).getName());
+        assertEquals("standing desk order", hits.get(2).getName());
+        assertEquals("return book to library", SearchTask.fuzzyFilterTasks(list, "retrn librry", 10).get(1).getName());
+        assertTrue(SearchTask.fuzzyFilterTasks(list, "xylophone", 10).isEmpty());
+    }
+
+    @Test
+    void fuzzyFindRanksBestFirstAndKeepsOnlyTheLimit() {
+        TaskList list = new TaskList(new ArrayList<>());
+        list.addTask(new TodoTask("notebook"));
+        for (int i = 0; i < 20; i++) {
+            list.addTask(new TodoTask("book " + i));
+        }
+        list.addTask(new TodoTask("books"));
+
+        TaskList hits = SearchTask.fuzzyFilterTasks(list, "book", 3);
+        assertEquals(3, hits.size());
+        assertEquals("book 0", hits.get(1).getName()); // exact word first, ties in list order
+        assertEquals("book 2", hits.get(3).getName());
+        assertEquals("books", SearchTask.fuzzyFilterTasks(list, "book", 21).get(21).getName());
+        assertEquals("notebook", SearchTask.fuzzyFilterTasks(list, "book", 30).get(22).getName());
+    }
+
+    @Test
+    void fuzzyIndexFollowsAddAndRemove() {
+        TaskList list = sampleList();
+        assertEquals(1, SearchTask.fuzzyFilterTasks(list, "grocries", 10).size());
+        list.removeTask(3);
+        list.addTask(new TodoTask("Groceries for the week"));
+        TaskList hits = SearchTask.fuzzyFilterTasks(list, "grocries", 10);
+        assertEquals(1, hits.size());
+        assertEquals("Groceries for the week", hits.get(1).getName());
+    }
+}
@@ -0,0 +1,153 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ServerTest {
+    private Server server;
+    private Thread serverThread;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        start(new ConcurrentTaskList(new ArrayList<>()));
+    }
+
+    private void start(TaskList sharedList) throws IOException {
+        Sisyphus shared = new Sisyphus(new Storage(), sharedList);
+        server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), shared, 2);
+        serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        serverThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        serverThread.join(5000);
+    }
+
+    @Test
+    void isolatedClientsDoNotSeeEachOther() throws IOException {
+        try (Client a = new Client(); Client b = new Client()) {
+            assertTrue(a.send("todo read book").contains("You now have 1 tasks"));
+            assertEquals("No tasks found", b.send("list"));
+            assertEquals("    1.[T] [ ] read book", a.send("list"));
+        }
+    }
+
+    @Test
+    void sharedClientsSeeEachOther() throws IOException {
+        try (Client a = new Client(); Client b = new Client()) {
+            a.send(Server.CMD_SHARED);
+            b.send(Server.CMD_SHARED);
+            a.send("todo read book");
+            assertEquals("    1.[T] [ ] read book", b.send("list"));
+            b.send(Server.CMD_ISOLATED);
+            assertEquals("No tasks found", b.send("list"));
+        }
+    }
+
+    @Test
+    void pipelinedCommandsAreAnsweredInOrder() throws IOException {
+        try (Client a = new Client()) {
+            StringBuilder batch = new StringBuilder();
+            for (int i = 1; i <= 50; i++) {
+                batch.append("todo task ").append(i).append('\n');
+            }
+            a.write(batch.toString());
+            for (int i = 1; i <= 50; i++) {
+                assertTrue(a.readResponse().contains("You now have " + i + " tasks"));
+            }
+        }
+    }
+
+    @Test
+    void byeClosesTheConnection() throws IOException {
+        try (Client a = new Client()) {
+            assertTrue(a.send("bye").contains("See you!"));
+            assertNull(a.reader.readLine());
+        }
+    }
+
+    @Test
+    void commandFailingWithAnErrorStillGetsAReply() throws Exception {
+        tearDown();
+        start(new ConcurrentTaskList(new ArrayList<>()) {
+            @Override
+            public void addTask(Task task) {
+                throw new AssertionError("broken list");
+            }
+        });
+        try (Client a = new Client()) {
+            a.send(Server.CMD_SHARED);
+            assertEquals("Error: the command failed unexpectedly.", a.send("todo read book"));
+            assertEquals("No tasks found", a.send("list"));
+        }
+    }
+
+    @Test
+    void framesDotStuffLeadingDots() {
+        String framed = new String(Server.frame(".hidden\nplain"), StandardCharsets.UTF_8);
+        assertEquals("..hidden\nplain\n.\n", framed);
+    }
+
+    /** Minimal blocking client for the line protocol. */
+    private class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final OutputStream out;
+
+        Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = socket.getOutputStream();
+        }
+
+        String send(String command) throws IOException {
+            write(command + "\n");
+            return readResponse();
+        }
+
+        void write(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        String readResponse() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while (!(line = reader.readLine()).equals(Server.END_OF_RESPONSE)) {
+                if (sb.length() > 0) {
+                    sb.append('\n');
+                }
+                sb.append(line.startsWith("..") ? line.substring(1) : line);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StatsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void commandsAndStoragePhasesAreTimed() throws Exception {
+        Stats.GLOBAL.reset();
+        Storage storage = new Storage();
+        String path = dir.resolve("data.txt").toString();
+        TaskList list = storage.readFile(path);
+        Parser parser = new Parser();
+        parser.readAndRespond("todo read", storage, list);
+        parser.readAndRespond("list", storage, list);
+        parser.readAndRespond("list", storage, list);
+        storage.saveFile(list.getTasks(), path);
+        storage.readFile(path);
+
+        assertEquals(2L, Stats.GLOBAL.getCommandCounts().get("list"));
+        assertEquals(1L, Stats.GLOBAL.getCommandCounts().get("todo"));
+        assertTrue(Stats.GLOBAL.getCommandMaxNanos().get("list") > 0);
+        assertTrue(Stats.GLOBAL.getPhaseTotalNanos().keySet().containsAll(
+                List.of(Stats.LOAD_IO, Stats.LOAD_PARSE, Stats.LOAD_REPLAY, Stats.SAVE_IO, Stats.SAVE_FORMAT)));
+        String report = parser.readAndRespond("stats", storage, list);
+        assertTrue(report.startsWith("Commands: runs, p50, p90, p99, max, allocated per run\n"));
+        assertTrue(report.contains("    list            2 "));
+        assertTrue(report.contains("    save.io         1 "));
+        assertTrue(Parser.isReadOnly("stats"));
+    }
+
+    @Test
+    void figuresArePublishedOverJmx() throws Exception {
+        Stats.registerMBean();
+        Stats.registerMBean();
+        Stats.GLOBAL.reset();
+        new Parser().readAndRespond("list", new Storage(), new TaskList(new ArrayList<>()));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        TabularData counts = (TabularData) server.getAttribute(new ObjectName(Stats.OBJECT_NAME), "CommandCounts");
+        CompositeData list = counts.get(new Object[] {"list"});
+        assertEquals(1L, list.get("value"));
+    }
+}
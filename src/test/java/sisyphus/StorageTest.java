@@ -1,11 +1,24 @@
 package sisyphus;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.zip.CRC32;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 
 public class StorageTest {
@@ -30,5 +43,353 @@ public class StorageTest {
         if (deleteData.exists()) { // Check if the file exists before attempting deletion
             deleteData.delete();
         }
+        new File(DATA_PATH + ".journal").delete();
+    }
+
+    @Test
+    public void journalReplaysMutationsOnTopOfSnapshot(@TempDir Path dir) {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        Parser parser = new Parser();
+        parser.readAndRespond("todo read book".split(" "), storage, list);
+        parser.readAndRespond("deadline return book /by 2024-10-01".split(" "), storage, list);
+        parser.readAndRespond("todo buy milk".split(" "), storage, list);
+        parser.readAndRespond("mark 2".split(" "), storage, list);
+        parser.readAndRespond("delete 1".split(" "), storage, list);
+
+        // nothing was saved, so everything comes back from the journal
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals(2, reloaded.size());
+        assertEquals(list.get(1).toString(), reloaded.get(1).toString());
+        assertEquals(list.get(2).toString(), reloaded.get(2).toString());
+    }
+
+    @Test
+    public void staleJournalIsIgnoredAfterSave(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        new Parser().readAndRespond("todo read book".split(" "), storage, list);
+        Path journal = dir.resolve("data.txt.journal");
+        byte[] staleJournal = Files.readAllBytes(journal);
+
+        storage.saveFile(list.getTasks(), path);
+        // simulate a crash between the snapshot rename and the journal reset
+        Files.write(journal, staleJournal);
+
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals(1, reloaded.size());
+    }
+
+    @Test
+    public void binaryFormatRoundTripsAndIsDetected(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new TodoTask("read book"));
+        DeadlineTask dt = new DeadlineTask("return book", "2024-10-01");
+        dt.complete();
+        tasks.add(dt);
+        tasks.add(new EventTask("project meeting", "2024-10-01 14:00", "2024-10-01 16:00"));
+
+        Storage storage = new Storage();
+        storage.convert(new TaskList(tasks), path, Storage.Format.BINARY);
+        assertTrue(BinaryFormat.isBinary(Path.of(path)));
+
+        Storage reader = new Storage();
+        ArrayList<Task> readTasks = reader.readFile(path).getTasks();
+        assertEquals(Storage.Format.BINARY, reader.getFormat());
+        assertEquals(tasks.size(), readTasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toString(), readTasks.get(i).toString());
+        }
+    }
+
+    @Test
+    public void formatNamesDoNotDependOnTheLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR")); // "binary".toUpperCase() is "B\u0130NARY" there
+        System.setProperty("sisyphus.storage.format", "binary");
+        try {
+            assertEquals(Storage.Format.BINARY, new Storage().getFormat());
+        } finally {
+            System.clearProperty("sisyphus.storage.format");
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void lazyLoadMatchesEagerLoadAndSavesRecordsBack(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("data.txt");
+        String contents = "# last id 6\n"
+                + "T | 0 | read book | #2\n"
+                + "D | 1 | return book  | 2024-10-01 | #3\n"
+                + "E | 0 | talk  | 2024-10-02 09:00 | 2024-10-02 10:00 | #5\n"
+                + "D | 0 | odd date | 2023-02-30 | #6\n";
+        Files.writeString(file, contents);
+        ArrayList<Task> lazy = new SnapshotLoader(true).load(file, new CRC32());
+        ArrayList<Task> eager = new SnapshotLoader(false).load(file, new CRC32());
+        assertTrue(lazy.get(0).getRecord() != null);
+        assertNull(lazy.get(3).getRecord()); // left to the lenient formatter, so loaded eagerly
+
+        lazy.get(0).complete();
+        eager.get(0).complete();
+        new Storage().saveFile(lazy, file.toString());
+        assertEquals(contents.replaceFirst("T \\| 0", "T | 1").replace("2023-02-30", "2023-02-28 00:00"),
+                Files.readString(file));
+
+        assertEquals(eager.size(), lazy.size());
+        for (int i = 0; i < eager.size(); i++) {
+            assertEquals(eager.get(i).getId(), lazy.get(i).getId());
+            assertEquals(eager.get(i).toString(), lazy.get(i).toString());
+            assertNull(lazy.get(i).getRecord()); // read, so no longer kept
+        }
+    }
+
+    @Test
+    public void recordsWithoutIdsStayLazyAndAreSavedWithTheirNewIds(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("data.txt");
+        Files.writeString(file, "T | 0 | read book\nE | 1 | talk | 2024-10-02 09:00 | 2024-10-02 10:00\n");
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(file.toString());
+        assertTrue(list.getTasks().get(0).getRecord() != null);
+        assertTrue(list.getTasks().get(1).getRecord() != null);
+
+        storage.saveFile(list, file.toString());
+        assertEquals("# last id 2\nT | 0 | read book | #1\nE | 1 | talk | 2024-10-02 09:00 | 2024-10-02 10:00 | #2\n",
+                Files.readString(file));
+    }
+
+    @Test
+    public void indexingByTimeLeavesLazyRecordsUnread(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("data.txt");
+        Files.writeString(file, "D | 0 | return book | 2024-10-01 12:00 | #1\n"
+                + "E | 0 | talk | 2024-10-02 09:00 | 2024-10-02 10:00 | #2\n");
+        TaskList list = new Storage().readFile(file.toString());
+
+        LocalDateTime from = LocalDateTime.of(2024, 10, 1, 0, 0);
+        assertEquals(2, list.pendingBetween(from, from.plusDays(2)).size());
+        assertEquals(LocalDateTime.of(2024, 10, 2, 9, 0), list.nextPendingTime(from.plusDays(1)));
+        assertTrue(list.getTasks().get(0).getRecord() != null);
+        assertTrue(list.getTasks().get(1).getRecord() != null);
+    }
+
+    @Test
+    public void columnarLoadMatchesLoadingTaskObjects(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("data.txt");
+        Files.writeString(file, "# last id 6\n"
+                + "T | 0 | read book | #2\n"
+                + "T | 1 | no id yet\n"
+                + "D | 0 | return book | 2024-10-01 12:00 | #2\n"
+                + "E | 0 | talk | 2024-10-02 09:00 | 2024-10-02 10:00 | #5\n");
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(file.toString());
+        Parser parser = new Parser();
+        parser.readAndRespond("todo buy milk".split(" "), storage, list);
+        parser.readAndRespond("mark 1,4".split(" "), storage, list);
+        parser.readAndRespond("unmark 2".split(" "), storage, list);
+        parser.readAndRespond("delete 3".split(" "), storage, list);
+
+        TaskList objects = new Storage().readFile(file.toString());
+        TaskList columns = new Storage().readColumnar(file.toString());
+        assertTrue(columns instanceof ColumnarTaskList);
+        assertEquals(objects.size(), columns.size());
+        for (int i = 1; i <= objects.size(); i++) {
+            assertEquals(objects.get(i).getId(), columns.get(i).getId());
+            assertEquals(objects.get(i).toString(), columns.get(i).toString());
+        }
+        assertEquals(objects.getLastId(), columns.getLastId());
+        assertEquals(3, columns.indexOfId(objects.get(3).getId()));
+    }
+
+    @Test
+    public void checkpointKeepsRecordsMadeWhileWriting(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        Parser parser = new Parser();
+        Runnable[] duringWrite = {null};
+        // The snapshot writer walks the copy it was given; the first walk runs the pending change.
+        TaskList list = new TaskList(storage.readFile(path).getTasks()) {
+            @Override
+            public ArrayList<Task> getTasks() {
+                return new ArrayList<>(super.getTasks()) {
+                    @Override
+                    public Iterator<Task> iterator() {
+                        Runnable change = duringWrite[0];
+                        duringWrite[0] = null;
+                        if (change != null) {
+                            change.run();
+                        }
+                        return super.iterator();
+                    }
+                };
+            }
+        };
+        parser.readAndRespond("todo read book", storage, list);
+        parser.readAndRespond("todo buy milk", storage, list);
+        duringWrite[0] = () -> {
+            parser.readAndRespond("todo walk dog", storage, list);
+            parser.readAndRespond("delete 1", storage, list);
+        };
+
+        long saved = storage.checkpoint(list, 0);
+        assertTrue(saved > 0 && saved < list.getModCount()); // the changes made while writing are not in it
+        assertEquals("# last id 2\nT | 0 | read book | #1\nT | 0 | buy milk | #2\n", Files.readString(Path.of(path)));
+        assertEquals(3, Files.readAllLines(Journal.pathFor(path)).size()); // the header and those two changes
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals("[[T] [ ] buy milk, [T] [ ] walk dog]", reloaded.getTasks().toString());
+
+        saved = storage.checkpoint(list, saved);
+        assertEquals(list.getModCount(), saved);
+        assertEquals(saved, storage.checkpoint(list, saved)); // nothing changed, nothing written
+        assertEquals(1, Files.readAllLines(Journal.pathFor(path)).size());
+        assertEquals(reloaded.getTasks().toString(), new Storage().readFile(path).getTasks().toString());
+    }
+
+    @Test
+    public void interruptedCheckpointRecoversFromNextJournal(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        new Parser().readAndRespond("todo read book", storage, list);
+        Journal journal = new Journal(Journal.pathFor(path), Journal.SyncPolicy.ALWAYS);
+        journal.recover(0);
+        journal.append("A | T | 0 | buy milk");
+        Journal.Position position = journal.position();
+        journal.append("A | T | 0 | walk dog");
+
+        // the snapshot holds everything up to the position, but the crash came before the journal swap
+        CRC32 checksum = new CRC32();
+        byte[] snapshot = "T | 0 | buy milk\n".getBytes();
+        checksum.update(snapshot);
+        journal.prepareRebase(position, checksum.getValue());
+        Files.write(Path.of(path), snapshot);
+
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals(2, reloaded.size());
+        assertEquals("[T] [ ] walk dog", reloaded.get(2).toString());
+        assertFalse(Files.exists(Path.of(path + ".journal.next")));
+    }
+
+    @Test
+    public void byeSavesAnEmptiedList(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Files.writeString(Path.of(path), "T | 0 | read book\n");
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        Parser parser = new Parser();
+        parser.readAndRespond("delete 1", storage, list);
+        assertTrue(parser.readAndRespond("bye", storage, list).startsWith("Saved.\n"));
+        assertEquals("# last id 1\n", Files.readString(Path.of(path)));
+    }
+
+    @Test
+    public void idsSurviveARestartAndAreNeverGivenOutAgain(@TempDir Path dir) throws IOException {
+        for (String format : new String[] {"text", "binary"}) {
+            String path = dir.resolve(format + ".txt").toString();
+            Files.writeString(Path.of(path), "T | 0 | read book\nT | 0 | buy milk\n"); // saved before IDs were
+            Storage storage = new Storage();
+            TaskList list = storage.readFile(path);
+            Parser parser = new Parser();
+            parser.readAndRespond("convert " + format, storage, list);
+            parser.readAndRespond("todo walk dog", storage, list);
+            parser.readAndRespond("delete 1", storage, list);
+            parser.readAndRespond("delete #3", storage, list);
+            parser.readAndRespond("bye", storage, list);
+
+            storage = new Storage();
+            list = storage.readFile(path);
+            assertEquals(1, list.indexOfId(2));
+            assertEquals(-1, list.indexOfId(3)); // a stale reference is rejected, not sent elsewhere
+            assertTrue(parser.readAndRespond("todo pay rent", storage, list).contains("(#4)"));
+
+            TaskList replayed = new Storage().readFile(path); // the new task is only in the journal
+            assertEquals("[[T] [ ] buy milk, [T] [ ] pay rent]", replayed.getTasks().toString());
+            assertEquals(2, replayed.indexOfId(4));
+            replayed.addTask(new TodoTask("water plants"));
+            assertEquals(5, replayed.get(3).getId());
+        }
+    }
+
+    @Test
+    public void unreadableSnapshotAndItsJournalAreNeverOverwritten(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Files.writeString(Path.of(path), "T | 0 | read book\n");
+        Storage first = new Storage();
+        TaskList list = first.readFile(path);
+        new Parser().readAndRespond("todo buy milk", first, list);
+        Files.writeString(Path.of(path), "T | 0 | read book\nZ | 0 | scrambled\n");
+        byte[] snapshot = Files.readAllBytes(Path.of(path));
+        byte[] journal = Files.readAllBytes(Journal.pathFor(path));
+
+        Storage storage = new Storage();
+        TaskList partial = storage.readFile(path);
+        assertTrue(storage.getLoadError().startsWith("Error reading file: "));
+        assertNull(storage.getDataPath());
+        Parser parser = new Parser();
+        parser.readAndRespond("todo walk dog", storage, partial);
+        assertNull(Checkpointer.start(storage, partial, 1));
+        assertEquals(0, storage.checkpoint(partial, 0));
+        assertTrue(parser.readAndRespond("bye", storage, partial).startsWith("Not saved: "));
+        storage.saveFile(partial.getTasks(), path);
+
+        assertArrayEquals(snapshot, Files.readAllBytes(Path.of(path)));
+        assertArrayEquals(journal, Files.readAllBytes(Journal.pathFor(path)));
+    }
+
+    @Test
+    public void failedConvertKeepsTheFormatAndSaysSo(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Files.writeString(Path.of(path), "T | 0 | read book\n");
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        byte[] snapshot = Files.readAllBytes(Path.of(path));
+        Files.createDirectories(Path.of(path + ".tmp").resolve("blocked")); // the temporary file cannot be written
+
+        assertEquals("Data file was not converted; it is still stored as text.\n",
+                new Parser().readAndRespond("convert binary", storage, list));
+        assertTrue(storage.takeNotices().contains("Error saving file: "));
+        assertEquals(Storage.Format.TEXT, storage.getFormat());
+        assertArrayEquals(snapshot, Files.readAllBytes(Path.of(path)));
+    }
+
+    @Test
+    public void bulkCommandsAreJournaledAsOneRecordEach(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Storage storage = new Storage();
+        TaskList list = storage.readFile(path);
+        Parser parser = new Parser();
+        for (int i = 1; i <= 20; i++) {
+            parser.readAndRespond("deadline task " + i + " /by 2025-12-" + (10 + i % 20), storage, list);
+        }
+        assertEquals("Okay, 20 tasks are done (20 changed, 0 already were).\n",
+                parser.readAndRespond("mark 1-25", storage, list));
+        assertEquals("Okay, 5 tasks are not done yet (5 changed, 0 already were).\n",
+                parser.readAndRespond("unmark 2,4,15-17", storage, list));
+        assertEquals("I have removed 3 tasks.\nYou now have 17 tasks in the list.\n",
+                parser.readAndRespond("delete 1-2,20", storage, list));
+        assertEquals("I have removed 7 tasks.\nYou now have 10 tasks in the list.\n",
+                parser.readAndRespond("delete before 2025-12-20", storage, list));
+        parser.readAndRespond("delete done", storage, list);
+        assertEquals("No tasks match, nothing was removed.\n", parser.readAndRespond("delete done", storage, list));
+
+        assertEquals(26, Files.readAllLines(dir.resolve("data.txt.journal")).size());
+        TaskList reloaded = new Storage().readFile(path);
+        assertEquals(list.getTasks().toString(), reloaded.getTasks().toString());
+        assertEquals(3, reloaded.size());
+    }
+
+    @Test
+    public void loadedTasksShareRepeatedNames(@TempDir Path dir) throws IOException {
+        String path = dir.resolve("data.txt").toString();
+        Files.writeString(Path.of(path), "T | 0 | standup\nD | 1 | standup | 2025-12-01 09:00\n"
+                + "T | 0 | pay rent\nT | 0 | standup\n");
+        for (String saved : new String[] {"text", "binary"}) {
+            TaskList list = new Storage().readFile(path);
+            assertSame(list.get(1).getName(), list.get(2).getName(), saved);
+            assertSame(list.get(1).getName(), list.get(4).getName(), saved);
+            assertEquals("pay rent", list.get(3).getName());
+            new Storage().convert(list, path, Storage.Format.BINARY);
+        }
     }
 }
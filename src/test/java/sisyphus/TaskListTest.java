@@ -6,7 +6,10 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import org.junit.jupiter.api.Test;
 
@@ -60,5 +63,73 @@ public class TaskListTest {
         assertThrows(IndexOutOfBoundsException.class, () -> list.removeTask(0)); // 0 is invalid (1-based)
         assertThrows(IndexOutOfBoundsException.class, () -> list.removeTask(2)); // beyond size
     }
-}
 
+    @Test
+    void sortedByTimeFollowsAddsAndRemoves() {
+        TaskList list = new TaskList(new ArrayList<>());
+        TodoTask todo = new TodoTask("read book");
+        DeadlineTask late = new DeadlineTask("report", "2024-10-05");
+        EventTask early = new EventTask("meeting", "2024-10-01 10:00", "2024-10-01 12:00");
+        DeadlineTask sameTime = new DeadlineTask("call", "2024-10-01 10:00");
+        list.addTask(todo);
+        list.addTask(late);
+        list.addTask(early);
+        assertEquals(List.of(early, late, todo), list.sortedByTime());
+
+        list.addTask(sameTime);
+        assertEquals(List.of(early, sameTime, late, todo), list.sortedByTime());
+
+        list.removeTask(3);
+        assertEquals(List.of(sameTime, late, todo), list.sortedByTime());
+    }
+
+    @Test
+    void betweenReturnsOnlyTheWindow() {
+        TaskList list = new TaskList(new ArrayList<>());
+        DeadlineTask before = new DeadlineTask("old", "2024-09-30 23:59");
+        DeadlineTask inside = new DeadlineTask("due", "2024-10-01 00:00");
+        EventTask alsoInside = new EventTask("meeting", "2024-10-02 09:00", "2024-10-09 10:00");
+        DeadlineTask atEnd = new DeadlineTask("next", "2024-10-03");
+        list.addTask(new TodoTask("no date"));
+        list.addTask(atEnd);
+        list.addTask(alsoInside);
+        list.addTask(inside);
+        list.addTask(before);
+
+        LocalDateTime from = LocalDateTime.of(2024, 10, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 10, 3, 0, 0);
+        assertEquals(List.of(inside, alsoInside), list.between(from, to));
+    }
+
+    @Test
+    void idsStayWithTheirTasks() {
+        TaskList list = new TaskList(new ArrayList<>());
+        for (int i = 1; i <= 3000; i++) {
+            list.addTask(new TodoTask("task " + i));
+        }
+        Task kept = list.get(2500);
+        for (int i = 0; i < 2000; i++) {
+            list.removeTask(1);
+        }
+        assertEquals(2500, kept.getId());
+        assertEquals(500, list.indexOfId(2500));
+        assertEquals(-1, list.indexOfId(1));
+
+        TaskList copy = new TaskList(list.getTasks());
+        copy.addTask(new TodoTask("new"));
+        assertEquals(2500, kept.getId());
+        assertEquals(3001, copy.get(copy.size()).getId());
+    }
+
+    @Test
+    void cancelledUpcomingLeavesNoHalfBuiltIndex() {
+        LocalDateTime due = LocalDateTime.of(2030, 1, 1, 9, 0);
+        TaskList list = new TaskList(new ArrayList<>());
+        list.addTask(new DeadlineTask("file taxes", due));
+
+        Thread.currentThread().interrupt();
+        assertThrows(CancellationException.class, () -> list.upcoming(due.minusDays(1), 5));
+        assertTrue(Thread.interrupted());
+        assertEquals(1, list.upcoming(due.minusDays(1), 5).size());
+    }
+}
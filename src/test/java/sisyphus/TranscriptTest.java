@@ -0,0 +1,58 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TranscriptTest {
+
+    @Test
+    void keepsOnlyTheNewestMessagesAndSpillsTheRest(@TempDir Path dir) throws IOException {
+        Path history = dir.resolve("transcript.log");
+        try (Transcript transcript = new Transcript(3, history)) {
+            Transcript.Message first = new Transcript.Message(Transcript.Speaker.USER, "list");
+            assertTrue(transcript.add(first).isEmpty());
+            transcript.add(new Transcript.Message(Transcript.Speaker.SISYPHUS, "No tasks found"));
+            transcript.add(new Transcript.Message(Transcript.Speaker.USER, "todo read"));
+            List<Transcript.Message> spilled =
+                    transcript.add(new Transcript.Message(Transcript.Speaker.SISYPHUS, "added: read"));
+
+            assertEquals(1, spilled.size());
+            assertSame(first, spilled.get(0));
+            assertEquals(3, transcript.size());
+            assertEquals(1, transcript.getSpilledCount());
+        }
+        assertEquals("> list\n\n", Files.readString(history));
+    }
+
+    @Test
+    void rotatesTheHistoryFileOnceItIsFull(@TempDir Path dir) throws IOException {
+        Path history = dir.resolve("transcript.log");
+        try (Transcript transcript = new Transcript(1, history, 20)) {
+            for (int i = 1; i <= 5; i++) {
+                transcript.add(new Transcript.Message(Transcript.Speaker.USER, "message " + i)); // 13 bytes each
+            }
+        }
+        assertEquals("> message 3\n\n", Files.readString(dir.resolve("transcript.log.1")));
+        assertEquals("> message 4\n\n", Files.readString(history));
+    }
+
+    @Test
+    void dropsSpilledMessagesWithoutAHistoryFile() throws IOException {
+        try (Transcript transcript = new Transcript(1, null)) {
+            for (int i = 0; i < 10_000; i++) {
+                transcript.add(new Transcript.Message(Transcript.Speaker.USER, "message " + i));
+            }
+            assertEquals(1, transcript.size());
+            assertEquals(9_999, transcript.getSpilledCount());
+        }
+    }
+}
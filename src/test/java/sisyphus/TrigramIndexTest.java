@@ -0,0 +1,65 @@
+package sisyphus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TrigramIndexTest {
+    @Test
+    void scoresBySharedTrigramsIgnoringCase() {
+        TrigramIndex index = new TrigramIndex(List.of("Standup", "standing", "submit", "notebook", "book"));
+        Map<String, Double> similar = index.similar("standp");
+
+        assertEquals(0.5, similar.get("Standup"), 1e-9); // 5 of 10 trigrams
+        assertEquals(5.0 / 11, similar.get("standing"), 1e-9);
+        assertFalse(similar.containsKey("submit"));
+        assertEquals(1.0, index.similar("BOOK").get("book"), 1e-9);
+        assertEquals((1 + 3.0 / 11) / 2, index.similar("book").get("notebook"), 1e-9); // contains it
+    }
+
+    @Test
+    void removedWordsStopMatching() {
+        TrigramIndex index = new TrigramIndex(List.of("groceries"));
+        index.remove("groceries");
+        assertTrue(index.similar("grocries").isEmpty());
+        index.add("Groceries");
+        assertTrue(index.similar("grocries").containsKey("Groceries"));
+    }
+
+    @Test
+    void scanningTheVocabularyFindsWhatTheIndexDoes() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 6_000; i++) {
+            words.add("word" + i);
+        }
+        words.addAll(List.of("Standup", "standing", "notebook", "caf\u00e9"));
+        TrigramIndex index = new TrigramIndex(words);
+        for (int i = 0; i < 5_000; i++) {
+            index.remove(words.get(i)); // enough to rebuild the posting lists once
+        }
+        List<String> live = words.subList(5_000, words.size());
+        for (String query : new String[] {"standp", "word5123", "wrd59", "Caf\u00e9", "zzz"}) {
+            assertEquals(TrigramIndex.similar(query, live), index.similar(query), query);
+        }
+    }
+
+    @Test
+    void matcherScoresBytesLikeTheIndex() {
+        String[] words = {"Standup", "standing", "notebook", "BOOKS", "caf\u00e9", "x", "aaaa"};
+        for (String query : new String[] {"standp", "book", "Caf\u00e9", "aa"}) {
+            TrigramIndex.Matcher matcher = new TrigramIndex.Matcher(query);
+            for (String word : words) {
+                byte[] bytes = ("  " + word + " ").getBytes(StandardCharsets.UTF_8);
+                assertEquals(TrigramIndex.score(query, word), matcher.score(bytes, 2, bytes.length - 1), 1e-9,
+                        query + " vs " + word);
+            }
+        }
+    }
+}